@@ -0,0 +1,34 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 16:45
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The generated Markdown corpora: prose-, table- and code-heavy documents of 1 KB up to 10 MB.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+
+    @Param({"PROSE", "TABLES", "CODE"})
+    public MarkdownCorpus.Kind kind;
+
+    @Param({"1024", "102400", "1048576", "10485760"})
+    public int size;
+
+    public String markdown;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        markdown = MarkdownCorpus.generate(kind, size);
+    }
+}
@@ -0,0 +1,73 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 20:05
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One keystroke in the middle of the document plus reading the text for the preview, with Swing's
+ * gap buffer ({@code getText}) and with the piece table ({@code snapshot}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocumentBenchmark {
+
+    @Param({"102400", "10485760", "104857600"})
+    public int size;
+
+    private PlainDocument plainDocument;
+    private PieceTableDocument pieceTableDocument;
+    private int offset;
+    private boolean inserted;
+
+    @Setup(Level.Trial)
+    public void load() throws BadLocationException {
+        String markdown = MarkdownCorpus.generate(MarkdownCorpus.Kind.PROSE, size);
+        plainDocument = new PlainDocument();
+        plainDocument.insertString(0, markdown, null);
+        pieceTableDocument = new PieceTableDocument();
+        pieceTableDocument.insertString(0, markdown, null);
+        offset = markdown.length() / 2;
+    }
+
+    @Benchmark
+    public String plainKeystroke() throws BadLocationException {
+        type(plainDocument);
+        return plainDocument.getText(0, plainDocument.getLength());
+    }
+
+    @Benchmark
+    public CharSequence pieceTableKeystroke() throws BadLocationException {
+        type(pieceTableDocument);
+        return pieceTableDocument.snapshot();
+    }
+
+    /**
+     * Alternates between typing and deleting a character, so the document size stays constant.
+     */
+    private void type(PlainDocument document) throws BadLocationException {
+        inserted = !inserted;
+        if (inserted) {
+            document.insertString(offset, "x", null);
+        } else {
+            document.remove(offset, 1);
+        }
+    }
+}
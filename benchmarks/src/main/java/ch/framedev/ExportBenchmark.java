@@ -0,0 +1,65 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 16:45
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code exportAsHtml()} path: rendering the document and assembling the standalone HTML page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    private final MarkdownRenderService renderService = MarkdownRenderService.uncached();
+
+    private MarkdownRenderService cachedRenderService;
+    private String body;
+
+    @Setup(Level.Trial)
+    public void renderCorpus(CorpusState corpus) {
+        body = renderService.renderFull(corpus.markdown);
+        cachedRenderService = new MarkdownRenderService(new HtmlFragmentCache(100_000, 512L * 1024 * 1024),
+                new SyntaxHighlighter(new HtmlFragmentCache(0, 0)));
+    }
+
+    @Benchmark
+    public String export(CorpusState corpus) {
+        return renderService.exportDocument("benchmark.md", renderService.renderFull(corpus.markdown), RenderOptions.DEFAULT);
+    }
+
+    @Benchmark
+    public String exportCachedBlocks(CorpusState corpus) {
+        return cachedRenderService.renderExportDocument("benchmark.md", corpus.markdown, RenderOptions.DEFAULT);
+    }
+
+    /**
+     * The streaming export path, without the file system: only one block is held at a time.
+     */
+    @Benchmark
+    public void exportStreaming(CorpusState corpus) throws IOException {
+        renderService.writeExportDocument("benchmark.md", corpus.markdown, RenderOptions.DEFAULT, Writer.nullWriter(), false);
+    }
+
+    @Benchmark
+    public String assemble() {
+        return renderService.exportDocument("benchmark.md", body, RenderOptions.DEFAULT);
+    }
+}
@@ -0,0 +1,55 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 16:45
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenizing code blocks with the precompiled grammars, uncached and through the per-block cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HighlightBenchmark {
+
+    @Param({"java", "json", "yaml", "sql", "bash"})
+    public String language;
+
+    @Param({"1024", "65536"})
+    public int size;
+
+    private final SyntaxHighlighter cachedHighlighter = new SyntaxHighlighter(new HtmlFragmentCache(64, 64L * 1024 * 1024));
+
+    private LanguageGrammar grammar;
+    private String code;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        grammar = SyntaxHighlighter.getGrammar(language);
+        code = MarkdownCorpus.code(language, size);
+    }
+
+    @Benchmark
+    public String highlight() {
+        return SyntaxHighlighter.highlight(grammar, code);
+    }
+
+    @Benchmark
+    public String highlightCached() {
+        return cachedHighlighter.highlight(language, code);
+    }
+}
@@ -0,0 +1,53 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 16:45
+ */
+
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Parser#parse(String)} and {@link HtmlRenderer#render(com.vladsch.flexmark.util.ast.Node)} with the
+ * extensions configured by {@link MarkdownRenderService}. Highlighting is uncached here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MarkdownBenchmark {
+
+    private final MarkdownRenderService renderService = MarkdownRenderService.uncached();
+    private final Parser parser = renderService.getParser();
+    private final HtmlRenderer renderer = renderService.getRenderer();
+
+    private Document document;
+
+    @Setup(Level.Trial)
+    public void parseCorpus(CorpusState corpus) {
+        document = parser.parse(corpus.markdown);
+    }
+
+    @Benchmark
+    public Document parse(CorpusState corpus) {
+        return parser.parse(corpus.markdown);
+    }
+
+    @Benchmark
+    public String render() {
+        return renderer.render(document);
+    }
+}
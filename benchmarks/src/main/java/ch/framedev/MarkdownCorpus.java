@@ -0,0 +1,167 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 16:20
+ */
+
+import java.util.Random;
+
+/**
+ * Generates deterministic Markdown documents of a given size for the benchmarks.
+ */
+public final class MarkdownCorpus {
+
+    public enum Kind {
+        PROSE,
+        TABLES,
+        CODE
+    }
+
+    private static final String[] WORDS = {
+            "editor", "preview", "markdown", "render", "latency", "document", "runbook", "deploy", "cluster",
+            "service", "restart", "config", "verify", "backup", "rollback", "release", "token", "network",
+            "the", "a", "and", "of", "to", "in", "is", "on", "with", "for", "before", "after"
+    };
+
+    private static final String[][] CODE_SAMPLES = {
+            {"java", """
+                    @Override
+                    public String render(Node node) {
+                        // render the node into a string
+                        StringBuilder html = new StringBuilder(256);
+                        for (int i = 0; i < 10; i++) {
+                            html.append("<p>").append(i).append("</p>");
+                        }
+                        return html.toString();
+                    }
+                    """},
+            {"json", """
+                    {"service": "editor", "replicas": 3, "enabled": true, "ports": [8080, 8443],
+                     "owner": null, "ratio": 0.75, "tags": {"team": "docs", "tier": "gold"}}
+                    """},
+            {"yaml", """
+                    # deployment settings
+                    service: editor
+                    replicas: 3
+                    enabled: true
+                    ports:
+                      - 8080
+                      - 8443
+                    owner: 'docs team'
+                    """},
+            {"sql", """
+                    SELECT d.name, COUNT(r.id) AS revisions
+                    FROM documents d LEFT JOIN revisions r ON r.document_id = d.id
+                    WHERE d.updated_at > :since -- recent only
+                    GROUP BY d.name ORDER BY revisions DESC LIMIT 20;
+                    """},
+            {"bash", """
+                    #!/bin/bash
+                    for host in "${HOSTS[@]}"; do
+                      if ssh "$host" systemctl restart editor; then echo "restarted $host"; fi
+                    done
+                    exit 0
+                    """}
+    };
+
+    private MarkdownCorpus() {
+    }
+
+    public static String generate(Kind kind, int targetBytes) {
+        Random random = new Random(42L + kind.ordinal() * 31L + targetBytes);
+        StringBuilder markdown = new StringBuilder(targetBytes + 4096);
+        int section = 0;
+        while (markdown.length() < targetBytes) {
+            markdown.append("## Section ").append(++section).append("\n\n");
+            switch (kind) {
+                case PROSE -> appendProse(markdown, random);
+                case TABLES -> {
+                    appendParagraph(markdown, random);
+                    appendTable(markdown, random, targetBytes - markdown.length());
+                }
+                case CODE -> {
+                    appendParagraph(markdown, random);
+                    String[] sample = CODE_SAMPLES[random.nextInt(CODE_SAMPLES.length)];
+                    markdown.append("```").append(sample[0]).append('\n').append(sample[1]).append("```\n\n");
+                }
+            }
+        }
+        return markdown.toString();
+    }
+
+    /**
+     * Returns a code sample of the given language repeated until it is at least {@code targetBytes} long.
+     */
+    public static String code(String language, int targetBytes) {
+        for (String[] sample : CODE_SAMPLES) {
+            if (sample[0].equals(language)) {
+                return sample[1].repeat(Math.max(1, (targetBytes + sample[1].length() - 1) / sample[1].length()));
+            }
+        }
+        throw new IllegalArgumentException("No code sample for " + language);
+    }
+
+    private static void appendProse(StringBuilder markdown, Random random) {
+        for (int i = 0; i < 3; i++) {
+            appendParagraph(markdown, random);
+        }
+        for (int i = 0; i < 4; i++) {
+            markdown.append("- ");
+            appendWords(markdown, random, 6);
+            markdown.append('\n');
+        }
+        markdown.append("\n> ");
+        appendWords(markdown, random, 12);
+        markdown.append("\n\n");
+    }
+
+    private static void appendParagraph(StringBuilder markdown, Random random) {
+        int sentences = 2 + random.nextInt(4);
+        for (int s = 0; s < sentences; s++) {
+            appendWords(markdown, random, 8 + random.nextInt(10));
+            switch (random.nextInt(5)) {
+                case 0 -> markdown.append(" **important**");
+                case 1 -> markdown.append(" see [the docs](https://example.com/docs/").append(s).append(')');
+                case 2 -> markdown.append(" `inline code`");
+                case 3 -> markdown.append(" ~~obsolete~~ https://example.com/page");
+                default -> {
+                }
+            }
+            markdown.append(". ");
+        }
+        markdown.append("\n\n");
+    }
+
+    private static void appendTable(StringBuilder markdown, Random random, int remainingBytes) {
+        // A row is roughly 60 characters long
+        int rows = Math.max(2, Math.min(20 + random.nextInt(180), remainingBytes / 60));
+        markdown.append("| Host | Status | Latency | Owner | Notes |\n");
+        markdown.append("|------|--------|--------:|-------|-------|\n");
+        for (int row = 0; row < rows; row++) {
+            markdown.append("| host-").append(row)
+                    .append(" | ").append(random.nextBoolean() ? "up" : "*down*")
+                    .append(" | ").append(random.nextInt(500)).append(" ms")
+                    .append(" | ").append(WORDS[random.nextInt(WORDS.length)])
+                    .append(" | ");
+            appendWords(markdown, random, 4);
+            markdown.append(" |\n");
+        }
+        markdown.append('\n');
+    }
+
+    private static void appendWords(StringBuilder markdown, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                markdown.append(' ');
+            }
+            markdown.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+    }
+}
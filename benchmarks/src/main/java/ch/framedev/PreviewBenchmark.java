@@ -0,0 +1,72 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 16:45
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The preview path of {@code updatePreview()}: a full render, a single-character edit through the
+ * incremental renderer, and the HTML/CSS assembly of the preview document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreviewBenchmark {
+
+    private final MarkdownRenderService renderService = MarkdownRenderService.uncached();
+
+    private IncrementalMarkdownRenderer incrementalRenderer;
+    private List<String> fragments;
+    private String original;
+    private String edited;
+    private int editOffset;
+    private boolean editApplied;
+
+    @Setup(Level.Trial)
+    public void renderCorpus(CorpusState corpus) {
+        original = corpus.markdown;
+        editOffset = original.length() / 2;
+        edited = original.substring(0, editOffset) + "x" + original.substring(editOffset);
+        // No fragment cache, so every edit really re-renders the touched blocks
+        incrementalRenderer = new IncrementalMarkdownRenderer(renderService, false);
+        fragments = incrementalRenderer.render(original, IncrementalMarkdownRenderer.DirtyRegion.FULL);
+        editApplied = false;
+    }
+
+    @Benchmark
+    public List<String> fullRender() {
+        return List.of(renderService.renderPreviewFull(original));
+    }
+
+    @Benchmark
+    public List<String> incrementalEdit() {
+        editApplied = !editApplied;
+        if (editApplied) {
+            return incrementalRenderer.render(edited,
+                    new IncrementalMarkdownRenderer.DirtyRegion(editOffset, editOffset + 1, 1, false));
+        }
+        return incrementalRenderer.render(original,
+                new IncrementalMarkdownRenderer.DirtyRegion(editOffset, editOffset, -1, false));
+    }
+
+    @Benchmark
+    public String assemble() {
+        return PreviewPatcher.toHtml(renderService.previewContent(fragments, incrementalRenderer.getBlockStarts(),
+                RenderOptions.DEFAULT));
+    }
+}
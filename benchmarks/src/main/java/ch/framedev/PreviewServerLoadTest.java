@@ -0,0 +1,193 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 18.10.2026 00:05
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Load test of the {@link PreviewServer} on localhost, not a JMH benchmark since the latency of whole
+ * HTTP round trips is measured. Generates a directory of Markdown files, starts the server on a free
+ * port and lets every client request random pages in a loop; {@code --conditional} of the requests send
+ * the ETag they got last time. Prints the throughput, the latency percentiles and the status codes:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar ch.framedev.PreviewServerLoadTest --clients 64 --seconds 20
+ * </pre>
+ */
+public final class PreviewServerLoadTest {
+
+    private PreviewServerLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = 32;
+        int seconds = 10;
+        int files = 200;
+        int fileBytes = 32 * 1024;
+        int conditionalPercent = 50;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--clients" -> clients = Integer.parseInt(args[++i]);
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                case "--files" -> files = Integer.parseInt(args[++i]);
+                case "--file-bytes" -> fileBytes = Integer.parseInt(args[++i]);
+                case "--conditional" -> conditionalPercent = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Usage: PreviewServerLoadTest [--clients n] [--seconds n] [--files n]"
+                            + " [--file-bytes n] [--conditional percent]");
+                    System.exit(2);
+                }
+            }
+        }
+
+        Path root = createCorpus(files, fileBytes);
+        String buffer = MarkdownCorpus.generate(MarkdownCorpus.Kind.PROSE, 256 * 1024);
+        try (PreviewServer server = new PreviewServer(MarkdownRenderService.uncached(), RenderOptions.DEFAULT,
+                new InetSocketAddress("127.0.0.1", 0), root, 64L * 1024 * 1024)) {
+            server.setBuffer(() -> new PreviewServer.Buffer("buffer.md", buffer));
+            server.start();
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            List<URI> pages = new ArrayList<>();
+            pages.add(URI.create(base + PreviewServer.BUFFER_PATH));
+            for (int i = 0; i < files; i++) {
+                pages.add(URI.create(base + PreviewServer.FILES_PATH + "doc" + i + ".html"));
+            }
+            System.out.printf("%d clients, %d pages of %d KB, %d%% conditional, %d s%n", clients, pages.size(),
+                    fileBytes / 1024, conditionalPercent, seconds);
+
+            Result result = run(pages, clients, seconds, conditionalPercent);
+            result.print(seconds);
+            PreviewServer.Stats stats = server.getStats();
+            System.out.printf("Server: %d requests, %d not modified, %d cache hits, %d renders, %d cached pages (%.1f MB)%n",
+                    stats.requests(), stats.notModified(), stats.cacheHits(), stats.renders(), stats.cachedPages(),
+                    stats.cachedBytes() / (1024.0 * 1024.0));
+        } finally {
+            try (var entries = Files.list(root)) {
+                for (Path entry : entries.toList()) {
+                    Files.delete(entry);
+                }
+            }
+            Files.delete(root);
+        }
+    }
+
+    private static Path createCorpus(int files, int fileBytes) throws IOException {
+        Path root = Files.createTempDirectory("preview-load");
+        MarkdownCorpus.Kind[] kinds = MarkdownCorpus.Kind.values();
+        for (int i = 0; i < files; i++) {
+            // Different sizes give every file its own content
+            String markdown = MarkdownCorpus.generate(kinds[i % kinds.length], fileBytes + i);
+            Files.writeString(root.resolve("doc" + i + ".md"), markdown);
+        }
+        return root;
+    }
+
+    private static Result run(List<URI> pages, int clients, int seconds, int conditionalPercent)
+            throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        Map<URI, String> etags = new ConcurrentHashMap<>();
+        Result result = new Result();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                long seed = c;
+                executor.execute(() -> {
+                    Random random = new Random(seed);
+                    long[] latencies = new long[1 << 16];
+                    int count = 0;
+                    while (System.nanoTime() < end) {
+                        URI page = pages.get(random.nextInt(pages.size()));
+                        HttpRequest.Builder request = HttpRequest.newBuilder(page).GET();
+                        String etag = etags.get(page);
+                        if (etag != null && random.nextInt(100) < conditionalPercent) {
+                            request.header("If-None-Match", etag);
+                        }
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                            response.headers().firstValue("ETag").ifPresent(value -> etags.put(page, value));
+                            result.status(response.statusCode(), response.body().length);
+                        } catch (IOException ex) {
+                            result.status(0, 0);
+                        } catch (InterruptedException ex) {
+                            return;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    result.add(Arrays.copyOf(latencies, count));
+                });
+            }
+        }
+        return result;
+    }
+
+    private static final class Result {
+        // 0 counts failed connections
+        private final AtomicLongArray statuses = new AtomicLongArray(600);
+        private final AtomicLongArray bytes = new AtomicLongArray(1);
+        private final List<long[]> latencies = new ArrayList<>();
+
+        void status(int status, int length) {
+            statuses.incrementAndGet(status);
+            bytes.addAndGet(0, length);
+        }
+
+        synchronized void add(long[] clientLatencies) {
+            latencies.add(clientLatencies);
+        }
+
+        synchronized void print(int seconds) {
+            long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            if (all.length == 0) {
+                System.out.println("No requests completed");
+                return;
+            }
+            System.out.printf("%d requests, %.0f requests/s, %.1f MB/s%n", all.length, (double) all.length / seconds,
+                    bytes.get(0) / (1024.0 * 1024.0) / seconds);
+            System.out.printf("Latency ms: p50 %.3f, p90 %.3f, p99 %.3f, max %.3f%n", percentile(all, 0.50),
+                    percentile(all, 0.90), percentile(all, 0.99), all[all.length - 1] / 1e6);
+            StringBuilder codes = new StringBuilder("Status:");
+            for (int status = 0; status < statuses.length(); status++) {
+                if (statuses.get(status) > 0) {
+                    codes.append(' ').append(status == 0 ? "failed" : String.valueOf(status)).append('=')
+                            .append(statuses.get(status));
+                }
+            }
+            System.out.println(codes);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e6;
+        }
+    }
+}
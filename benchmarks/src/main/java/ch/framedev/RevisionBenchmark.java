@@ -0,0 +1,124 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 21:55
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The revision history in a SQLite store: saving a revision of an edited document and rebuilding the
+ * revision at the end of the longest delta chain and a snapshot. {@code snapshotInterval=1} stores every
+ * revision in full, as the baseline. The storage used for the history is printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RevisionBenchmark {
+
+    private static final String NAME = "benchmark.md";
+
+    @Param({"1048576"})
+    public int size;
+
+    @Param({"1", "20"})
+    public int snapshotInterval;
+
+    @Param({"100"})
+    public int revisions;
+
+    private final Random random = new Random(42);
+    private Path directory;
+    private SQLiteManager store;
+    private String text;
+    private int deepestRevision;
+    private int snapshotRevision;
+
+    @Setup(Level.Trial)
+    public void fillHistory() throws IOException, SQLException {
+        directory = Files.createTempDirectory("revision-benchmark");
+        store = new SQLiteManager(directory.resolve("store.db"), 1, 10000, snapshotInterval);
+        text = MarkdownCorpus.generate(MarkdownCorpus.Kind.PROSE, size);
+        for (int i = 0; i < revisions; i++) {
+            store.save(NAME, edit());
+        }
+        List<IDatabase.Revision> history = store.revisions(NAME);
+        long stored = 0;
+        int depth = -1;
+        int chainStart = 1;
+        // The latest revision is excluded, the store keeps it in memory
+        for (IDatabase.Revision revision : history.subList(0, history.size() - 1)) {
+            stored += revision.storedBytes();
+            if (revision.snapshot()) {
+                chainStart = revision.revision();
+                snapshotRevision = revision.revision();
+            }
+            if (revision.revision() - chainStart > depth) {
+                depth = revision.revision() - chainStart;
+                deepestRevision = revision.revision();
+            }
+        }
+        stored += history.get(history.size() - 1).storedBytes();
+        long fullCopies = history.stream().mapToLong(IDatabase.Revision::size).sum();
+        System.out.printf("%n%d revisions of %,d characters: %,d KB stored, %,d KB as full copies, deepest delta chain %d%n",
+                history.size(), text.length(), stored / 1024, fullCopies / 1024, depth);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteStore() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int save() throws SQLException {
+        return store.save(NAME, edit());
+    }
+
+    @Benchmark
+    public String rebuildDeepestRevision() throws SQLException {
+        return store.loadRevision(NAME, deepestRevision).orElseThrow().content();
+    }
+
+    @Benchmark
+    public String rebuildSnapshot() throws SQLException {
+        return store.loadRevision(NAME, snapshotRevision).orElseThrow().content();
+    }
+
+    /**
+     * Changes a few lines of the document, like a short editing session between two saves.
+     */
+    private String edit() {
+        StringBuilder edited = new StringBuilder(text);
+        for (int i = 0; i < 3; i++) {
+            int line = edited.indexOf("\n", random.nextInt(edited.length()));
+            edited.insert(line < 0 ? edited.length() : line, " Edited " + random.nextInt(1000) + ".");
+        }
+        text = edited.toString();
+        return text;
+    }
+}
@@ -0,0 +1,247 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 20:55
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the edits made since the last save. The file starts with a header naming the
+ * saved file and its size and modification time, so recovery can tell whether the edits still apply
+ * to it. Edits are appended in batches of {@code [length][crc32][records]}, each forced to disk, so a
+ * crash in the middle of a batch only loses that batch. Offsets and lengths are written as varints,
+ * which keeps a typed character at a few bytes.
+ */
+@SuppressWarnings("unused")
+public class AutosaveJournal implements Closeable {
+
+    private static final int MAGIC = 0x4D444A31;
+    private static final byte INSERT = 'I';
+    private static final byte REMOVE = 'R';
+
+    /**
+     * @param file the saved file the edits apply to, or empty for an untitled document
+     */
+    public record Header(String file, long baseLength, long baseModified) {
+    }
+
+    /**
+     * An insert of {@code text} at {@code offset}, or a removal of {@code length} characters if {@code text} is {@code null}.
+     */
+    public record Edit(long sequence, int offset, int length, String text) {
+
+        public boolean isInsert() {
+            return text != null;
+        }
+    }
+
+    public record Contents(Header header, List<Edit> edits) {
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+
+    private AutosaveJournal(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Creates or truncates the journal and writes its header.
+     */
+    public static AutosaveJournal create(Path path, Header header) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeUTF(header.file());
+            out.writeLong(header.baseLength());
+            out.writeLong(header.baseModified());
+            writeFully(channel, ByteBuffer.wrap(bytes.toByteArray()));
+            channel.force(true);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        return new AutosaveJournal(path, channel);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Appends the edits as one batch and forces it to disk.
+     */
+    public void append(List<Edit> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        for (Edit edit : batch) {
+            if (edit.isInsert()) {
+                byte[] text = edit.text().getBytes(StandardCharsets.UTF_8);
+                payload.write(INSERT);
+                writeVarInt(payload, edit.offset());
+                writeVarInt(payload, text.length);
+                payload.write(text);
+            } else {
+                payload.write(REMOVE);
+                writeVarInt(payload, edit.offset());
+                writeVarInt(payload, edit.length());
+            }
+        }
+        byte[] records = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(records);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + records.length);
+        buffer.putInt(records.length).putInt((int) crc.getValue()).put(records).flip();
+        writeFully(channel, buffer);
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the header and every complete batch. Reading stops at the first torn or corrupt batch.
+     */
+    public static Contents read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not an autosave journal");
+            }
+            Header header = new Header(in.readUTF(), in.readLong(), in.readLong());
+            List<Edit> edits = new ArrayList<>();
+            while (true) {
+                byte[] payload;
+                int crc;
+                try {
+                    int length = in.readInt();
+                    crc = in.readInt();
+                    if (length < 0) {
+                        break;
+                    }
+                    payload = in.readNBytes(length);
+                    if (payload.length != length) {
+                        break;
+                    }
+                } catch (EOFException ex) {
+                    break;
+                }
+                CRC32 check = new CRC32();
+                check.update(payload);
+                if ((int) check.getValue() != crc) {
+                    break;
+                }
+                readBatch(ByteBuffer.wrap(payload), edits);
+            }
+            return new Contents(header, edits);
+        }
+    }
+
+    /**
+     * Applies the edits to the saved file and returns the text of the document at the time of the last batch.
+     *
+     * @throws IOException if the saved file changed after the journal was started
+     */
+    public static String replay(Contents contents) throws IOException {
+        Header header = contents.header();
+        StringBuilder text = new StringBuilder();
+        if (!header.file().isEmpty()) {
+            Path file = Path.of(header.file());
+            if (!Files.exists(file) || Files.size(file) != header.baseLength()
+                    || Files.getLastModifiedTime(file).toMillis() != header.baseModified()) {
+                throw new IOException(file + " was changed after the unsaved edits were recorded");
+            }
+            // Decoded like the LargeFileLoader, which drops a byte order mark
+            text.append(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            if (!text.isEmpty() && text.charAt(0) == '\uFEFF') {
+                text.deleteCharAt(0);
+            }
+        }
+        for (Edit edit : contents.edits()) {
+            int end = edit.isInsert() ? edit.offset() : edit.offset() + edit.length();
+            if (edit.offset() < 0 || end > text.length()) {
+                throw new IOException("The unsaved edits do not match " + (header.file().isEmpty() ? "the document" : header.file()));
+            }
+            if (edit.isInsert()) {
+                text.insert(edit.offset(), edit.text());
+            } else {
+                text.delete(edit.offset(), edit.offset() + edit.length());
+            }
+        }
+        return text.toString();
+    }
+
+    private static void readBatch(ByteBuffer payload, List<Edit> edits) throws IOException {
+        while (payload.hasRemaining()) {
+            byte type = payload.get();
+            int offset = readVarInt(payload);
+            int length = readVarInt(payload);
+            if (type == INSERT) {
+                if (length > payload.remaining()) {
+                    throw new IOException("Corrupt autosave journal");
+                }
+                byte[] text = new byte[length];
+                payload.get(text);
+                String inserted = new String(text, StandardCharsets.UTF_8);
+                edits.add(new Edit(0, offset, inserted.length(), inserted));
+            } else if (type == REMOVE) {
+                edits.add(new Edit(0, offset, length, null));
+            } else {
+                throw new IOException("Corrupt autosave journal");
+            }
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!in.hasRemaining()) {
+                throw new IOException("Corrupt autosave journal");
+            }
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt autosave journal");
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,602 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 21:10
+ */
+
+import ch.framedev.simplejavautils.SimpleJavaUtils;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Saves the editor document in the background. Every edit is queued by a document listener and
+ * appended to an {@link AutosaveJournal} in batches, and a dirty document is periodically written to
+ * its file through a temporary file, {@code fsync} and an atomic move, after which its journal starts
+ * over. The EDT only queues edits, all file I/O runs on the autosave thread.
+ * <p>
+ * Untitled documents are only journaled, starting with the text they were opened with. After a crash,
+ * {@link #findRecoveries(Path, Consumer)} returns the journals that still hold edits.
+ */
+@SuppressWarnings("unused")
+public class AutosaveManager {
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    // Every tab has its own manager, the counter keeps their journal names apart
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    /**
+     * A journal left behind by a session that did not shut down cleanly.
+     *
+     * @param file the file the edits belong to, or {@code null} for an untitled document
+     */
+    public record Recovery(Path journal, Path file, AutosaveJournal.Contents contents) {
+    }
+
+    /**
+     * The state of a file right after the autosave thread wrote it, see {@link #getLastWritten()}.
+     */
+    public record WrittenFile(Path file, FileTime modified, long size) {
+
+        /**
+         * Whether {@code attributes} of {@code file} still describe this write, i.e. no other program changed it since.
+         */
+        public boolean matches(Path file, BasicFileAttributes attributes) {
+            return this.file.equals(file.toAbsolutePath().normalize()) && modified.equals(attributes.lastModifiedTime())
+                    && size == attributes.size();
+        }
+    }
+
+    /**
+     * An edit waiting for the journal, tagged with the document it was made in, see {@link #open(Path)}.
+     */
+    private record PendingEdit(long generation, AutosaveJournal.Edit edit) {
+    }
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Document document;
+    private final Path directory;
+    private final long journalDelayMillis;
+    private final Consumer<Exception> errorHandler;
+    private final String session = Long.toString(System.currentTimeMillis(), 36) + "-" + INSTANCES.incrementAndGet();
+    private final ConcurrentLinkedQueue<PendingEdit> pendingEdits = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicLong editSequence = new AtomicLong();
+    private final List<Runnable> stateListeners = new ArrayList<>();
+
+    // Changed on the EDT and by saves, read on both threads
+    private final Object stateLock = new Object();
+    private volatile Path file;
+    private volatile long generation;
+    private volatile long savedSequence;
+    private volatile boolean suspended = true;
+    private volatile WrittenFile lastWritten;
+
+    // Confined to the autosave thread
+    private long journalGeneration;
+    private long journalBaseSequence;
+    private AutosaveJournal.Header journalHeader = new AutosaveJournal.Header("", 0, 0);
+    // The text an untitled document was opened with, there is no file to replay its edits onto
+    private CharSequence journalBaseText;
+    private Path journalPath;
+    private AutosaveJournal journal;
+    private boolean journalHasEdits;
+
+    /**
+     * @param directory          where the journals are kept
+     * @param intervalSeconds    how often a dirty document is written to its file, {@code 0} to only save on request
+     * @param journalDelayMillis how long edits are collected before they are written to the journal as one batch
+     * @param errorHandler       called on the EDT when a background save fails
+     */
+    public AutosaveManager(Document document, Path directory, int intervalSeconds, long journalDelayMillis,
+                           Consumer<Exception> errorHandler) {
+        this.document = document;
+        this.directory = directory;
+        this.journalDelayMillis = Math.max(0, journalDelayMillis);
+        this.errorHandler = errorHandler;
+        this.journalPath = newJournalPath();
+        document.addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                if (!suspended) {
+                    try {
+                        record(e.getOffset(), e.getLength(), document.getText(e.getOffset(), e.getLength()));
+                    } catch (BadLocationException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                if (!suspended) {
+                    record(e.getOffset(), e.getLength(), null);
+                }
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        if (intervalSeconds > 0) {
+            executor.scheduleWithFixedDelay(() -> saveInBackground(false), intervalSeconds, intervalSeconds,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    public static Path directoryFromConfig() {
+        return Path.of(Main.config.getString("autosave.directory",
+                new SimpleJavaUtils().getFilePath(Main.class) + "autosave"));
+    }
+
+    public static AutosaveManager fromConfig(Document document, Consumer<Exception> errorHandler) {
+        return new AutosaveManager(document, directoryFromConfig(),
+                Main.config.getInt("autosave.intervalSeconds", 30),
+                Main.config.getInt("autosave.journalDelayMillis", 250),
+                errorHandler);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the file as it was after the last successful save, whether or not the document was edited
+     * since, or {@code null} before the first save. Lets a file watcher tell the saves of this manager
+     * from changes made by other programs.
+     */
+    public WrittenFile getLastWritten() {
+        return lastWritten;
+    }
+
+    public boolean isDirty() {
+        return editSequence.get() > savedSequence;
+    }
+
+    /**
+     * Adds a listener that is called on the EDT whenever the file or the dirty flag may have changed.
+     */
+    public void addStateListener(Runnable listener) {
+        stateListeners.add(listener);
+    }
+
+    /**
+     * Stops recording edits, e.g. while a file is being loaded into the document. Must be called on the EDT.
+     */
+    public void suspend() {
+        suspended = true;
+    }
+
+    /**
+     * Starts tracking the document as the content of {@code file}, or as an untitled document if it is
+     * {@code null}. The current content counts as saved. Must be called on the EDT.
+     */
+    public void open(Path file) {
+        long openedGeneration;
+        long baseSequence;
+        CharSequence baseText = file == null ? textOf(document) : null;
+        synchronized (stateLock) {
+            this.file = file;
+            openedGeneration = ++generation;
+            baseSequence = editSequence.get();
+            savedSequence = baseSequence;
+        }
+        suspended = false;
+        executor.execute(() -> switchJournal(openedGeneration, baseSequence, file, baseText));
+        fireStateChanged();
+    }
+
+    /**
+     * Writes the document to its file in the background, even if it is not dirty. Does nothing for an
+     * untitled document.
+     */
+    public void saveNow() {
+        executor.execute(() -> saveInBackground(true));
+    }
+
+    /**
+     * Makes {@code target} the file of the document and writes the document to it in the background.
+     */
+    public void saveAs(Path target) {
+        file = target;
+        saveNow();
+        fireStateChanged();
+    }
+
+    /**
+     * Returns the number of edits made so far, to be passed to {@link #markSaved(long)} later.
+     */
+    public long getEditSequence() {
+        return editSequence.get();
+    }
+
+    /**
+     * Marks the edits up to {@code sequence} as saved somewhere other than the file, e.g. in the
+     * database. Must be called on the EDT.
+     */
+    public void markSaved(long sequence) {
+        synchronized (stateLock) {
+            savedSequence = Math.max(savedSequence, Math.min(sequence, editSequence.get()));
+        }
+        fireStateChanged();
+    }
+
+    /**
+     * Writes a dirty document to its file and waits for it, then removes the journal unless it still
+     * holds the edits of an untitled document. Called when the editor shuts down.
+     *
+     * <p>If it gives up on the timeout before the journal is closed, the manager keeps running and recording
+     * edits, so a caller can keep the document. A caller that drops it anyway calls {@link #shutdown()}.
+     *
+     * @param discard drop the unsaved edits instead of saving or keeping them
+     * @return {@code false} if saving failed or did not finish in time
+     */
+    public boolean close(boolean discard, long timeoutMillis) {
+        boolean wasSuspended = suspended;
+        suspended = true;
+        // Claimed by whichever comes first, the close task closing the journal or this thread giving up
+        AtomicBoolean closing = new AtomicBoolean(true);
+        Future<Boolean> closed = executor.submit(() -> {
+            if (!discard) {
+                drainJournal();
+                saveInBackground(false);
+            }
+            if (!closing.compareAndSet(true, false)) {
+                return false;
+            }
+            closeJournal(discard || !isDirty());
+            return discard || file == null || !isDirty();
+        });
+        boolean result;
+        try {
+            result = closed.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            result = false;
+        } catch (ExecutionException | TimeoutException ex) {
+            result = false;
+        }
+        if (!result && closing.compareAndSet(true, false)) {
+            // Gave up before the journal was closed, the late close task leaves it to the resumed manager
+            suspended = wasSuspended;
+            return false;
+        }
+        if (!result) {
+            result = awaitClosed(closed);
+        }
+        executor.shutdown();
+        return result;
+    }
+
+    /**
+     * Waits for a close task that has already started closing the journal.
+     */
+    private static boolean awaitClosed(Future<Boolean> closed) {
+        try {
+            return closed.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Stops the autosave thread after a failed {@link #close(boolean, long)} when the document is dropped
+     * anyway. Work that is already queued still runs.
+     */
+    public void shutdown() {
+        suspended = true;
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the journals in {@code directory} that hold edits, newest first. Journals without edits are deleted.
+     *
+     * @param problems called with a message for every journal that is skipped
+     */
+    public static List<Recovery> findRecoveries(Path directory, Consumer<String> problems) {
+        List<Recovery> recoveries = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return recoveries;
+        }
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory, "*" + JOURNAL_SUFFIX)) {
+            for (Path journal : journals) {
+                try {
+                    AutosaveJournal.Contents contents = AutosaveJournal.read(journal);
+                    if (contents.edits().isEmpty()) {
+                        Files.deleteIfExists(journal);
+                    } else {
+                        String file = contents.header().file();
+                        recoveries.add(new Recovery(journal, file.isEmpty() ? null : Path.of(file), contents));
+                    }
+                } catch (IOException ex) {
+                    problems.accept("Skipping unreadable autosave journal " + journal + ": " + ex.getMessage());
+                }
+            }
+        } catch (IOException ex) {
+            problems.accept("Failed to list autosave journals in " + directory + ": " + ex.getMessage());
+        }
+        recoveries.sort(Comparator.comparing((Recovery recovery) -> lastModified(recovery.journal())).reversed());
+        return recoveries;
+    }
+
+    /**
+     * Returns the text of the recovered document.
+     *
+     * @throws IOException if the edits no longer apply to the file
+     */
+    public static String recover(Recovery recovery) throws IOException {
+        return AutosaveJournal.replay(recovery.contents());
+    }
+
+    /**
+     * Called on the EDT under the document's write lock, so the sequence numbers follow the document revisions.
+     */
+    private void record(int offset, int length, String text) {
+        boolean wasDirty = isDirty();
+        AutosaveJournal.Edit edit = new AutosaveJournal.Edit(editSequence.incrementAndGet(), offset, length, text);
+        pendingEdits.add(new PendingEdit(generation, edit));
+        if (drainScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::drainJournal, journalDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        if (!wasDirty) {
+            fireStateChanged();
+        }
+    }
+
+    /**
+     * Writes the queued edits of the current document to its journal as one batch, merging runs of typing
+     * and deleting into single edits.
+     */
+    private void drainJournal() {
+        drainScheduled.set(false);
+        List<AutosaveJournal.Edit> batch = new ArrayList<>();
+        PendingEdit pending;
+        while ((pending = pendingEdits.peek()) != null && pending.generation() <= journalGeneration) {
+            pendingEdits.poll();
+            AutosaveJournal.Edit edit = pending.edit();
+            if (pending.generation() < journalGeneration || edit.sequence() <= journalBaseSequence) {
+                // Belongs to a closed document, or is already in the saved file
+                continue;
+            }
+            AutosaveJournal.Edit last = batch.isEmpty() ? null : batch.get(batch.size() - 1);
+            AutosaveJournal.Edit merged = last == null ? null : merge(last, edit);
+            if (merged != null) {
+                batch.set(batch.size() - 1, merged);
+            } else {
+                batch.add(edit);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            if (journal == null) {
+                Files.createDirectories(directory);
+                journal = AutosaveJournal.create(journalPath, journalHeader);
+                if (journalBaseText != null && !journalBaseText.isEmpty()) {
+                    String text = journalBaseText.toString();
+                    journal.append(List.of(new AutosaveJournal.Edit(journalBaseSequence, 0, text.length(), text)));
+                }
+            }
+            journal.append(batch);
+            journalHasEdits = true;
+        } catch (IOException ex) {
+            reportError(ex);
+        }
+    }
+
+    private static AutosaveJournal.Edit merge(AutosaveJournal.Edit last, AutosaveJournal.Edit edit) {
+        if (last.isInsert() && edit.isInsert() && edit.offset() == last.offset() + last.length()) {
+            String text = last.text() + edit.text();
+            return new AutosaveJournal.Edit(edit.sequence(), last.offset(), text.length(), text);
+        }
+        if (!last.isInsert() && !edit.isInsert()) {
+            if (edit.offset() + edit.length() == last.offset()) {
+                // Backspace
+                return new AutosaveJournal.Edit(edit.sequence(), edit.offset(), last.length() + edit.length(), null);
+            }
+            if (edit.offset() == last.offset()) {
+                // Delete
+                return new AutosaveJournal.Edit(edit.sequence(), last.offset(), last.length() + edit.length(), null);
+            }
+        }
+        return null;
+    }
+
+    private void switchJournal(long openedGeneration, long baseSequence, Path openedFile, CharSequence baseText) {
+        drainJournal();
+        // Keeps the edits of the previous document if they could not be saved, e.g. an untitled one
+        closeJournal(!journalHasEdits);
+        journalGeneration = openedGeneration;
+        journalBaseSequence = baseSequence;
+        journalPath = newJournalPath();
+        journalHeader = header(openedFile);
+        journalBaseText = baseText;
+        if (!pendingEdits.isEmpty()) {
+            drainJournal();
+        }
+    }
+
+    /**
+     * Writes the document to its file if it is dirty or {@code force} is set, then starts a new journal.
+     */
+    private void saveInBackground(boolean force) {
+        Path target;
+        CharSequence text;
+        long sequence;
+        long savedGeneration;
+        synchronized (stateLock) {
+            target = file;
+            savedGeneration = generation;
+        }
+        if (target == null || savedGeneration != journalGeneration || (!force && !isDirty())) {
+            return;
+        }
+        CharSequence[] snapshot = new CharSequence[1];
+        long[] snapshotSequence = new long[1];
+        // Reading the text and the sequence under the read lock makes them describe the same revision
+        document.render(() -> {
+            snapshot[0] = textOf(document);
+            snapshotSequence[0] = editSequence.get();
+        });
+        text = snapshot[0];
+        sequence = snapshotSequence[0];
+        try (PerformanceMetrics.Sample sample = PerformanceMetrics.start(PerformanceMetrics.Stage.SAVE)) {
+            writeAtomically(target, text);
+        } catch (IOException | RuntimeException ex) {
+            reportError(ex);
+            return;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(target, BasicFileAttributes.class);
+            lastWritten = new WrittenFile(target.toAbsolutePath().normalize(), attributes.lastModifiedTime(),
+                    attributes.size());
+        } catch (IOException ex) {
+            lastWritten = null;
+        }
+        synchronized (stateLock) {
+            if (generation == savedGeneration && target.equals(file)) {
+                savedSequence = Math.max(savedSequence, sequence);
+            }
+        }
+        // Everything journaled so far is in the file now
+        closeJournal(true);
+        journalBaseSequence = sequence;
+        journalPath = newJournalPath();
+        journalHeader = header(target);
+        journalBaseText = null;
+        fireStateChanged();
+    }
+
+    /**
+     * Writes to a temporary file next to the target, forces it to disk and moves it over the target, so
+     * the target is always either the old or the new content, never a truncated mix.
+     */
+    static void writeAtomically(Path target, CharSequence text) throws IOException {
+        Path temp = target.resolveSibling("." + target.getFileName() + ".autosave.tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(),
+                    WRITE_BUFFER_SIZE), WRITE_BUFFER_SIZE);
+            if (text instanceof PieceTableContent.Snapshot snapshot) {
+                snapshot.writeTo(writer);
+            } else {
+                writer.append(text);
+            }
+            writer.flush();
+            channel.force(true);
+        } catch (IOException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Makes the rename durable. Not every platform can open a directory, so this is best effort.
+     */
+    private static void forceDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UnsupportedOperationException ignored) {
+            // The data itself is already on disk
+        }
+    }
+
+    private static CharSequence textOf(Document document) {
+        if (document instanceof PieceTableDocument pieceTable) {
+            return pieceTable.snapshot();
+        }
+        try {
+            return document.getText(0, document.getLength());
+        } catch (BadLocationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void closeJournal(boolean delete) {
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+            if (delete) {
+                Files.deleteIfExists(journalPath);
+            }
+        } catch (IOException ex) {
+            reportError(ex);
+        }
+        journalHasEdits = false;
+    }
+
+    private AutosaveJournal.Header header(Path file) {
+        if (file == null) {
+            return new AutosaveJournal.Header("", 0, 0);
+        }
+        try {
+            Path absolute = file.toAbsolutePath();
+            return new AutosaveJournal.Header(absolute.toString(), Files.size(absolute),
+                    Files.getLastModifiedTime(absolute).toMillis());
+        } catch (IOException ex) {
+            // A file that does not exist yet never matches, so its edits cannot be replayed on a wrong base
+            return new AutosaveJournal.Header(file.toAbsolutePath().toString(), -1, -1);
+        }
+    }
+
+    private Path newJournalPath() {
+        return directory.resolve("journal-" + session + "-" + generation + "-" + editSequence.get() + JOURNAL_SUFFIX);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private void reportError(Exception ex) {
+        SwingUtilities.invokeLater(() -> errorHandler.accept(ex));
+    }
+
+    private void fireStateChanged() {
+        SwingUtilities.invokeLater(() -> stateListeners.forEach(Runnable::run));
+    }
+}
@@ -0,0 +1,361 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 18:05
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exports every Markdown file below a directory to HTML, in parallel on a work-stealing
+ * {@link ForkJoinPool}. Each directory is a task that forks its subdirectories and files, so idle
+ * workers steal whole subtrees. Files whose source and render options hash to the value recorded in
+ * the manifest of the previous run are skipped.
+ */
+@SuppressWarnings("unused")
+public final class BatchExporter {
+
+    /**
+     * Records {@code <sha-256> <relative path>} for every exported file in the output directory.
+     */
+    static final String MANIFEST_FILE = ".markdown-export-manifest";
+
+    public record Report(int exported, int unchanged, int failed, long sourceBytes, long elapsedNanos,
+                         long[] latenciesNanos) {
+
+        public double filesPerSecond() {
+            return elapsedNanos == 0 ? 0 : exported * 1e9 / elapsedNanos;
+        }
+
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : sourceBytes / (1024.0 * 1024.0) * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Per-file render and write latency of the exported (not the unchanged) files.
+         */
+        public double percentileMillis(double percentile) {
+            if (latenciesNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(0, Math.min(latenciesNanos.length - 1, index))] / 1e6;
+        }
+
+        public String format() {
+            return String.format(Locale.ROOT,
+                    "Exported %d files (%d unchanged, %d failed) in %.2f s%n"
+                            + "Throughput: %.1f files/s, %.2f MB/s%n"
+                            + "Latency per file: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    exported, unchanged, failed, elapsedNanos / 1e9,
+                    filesPerSecond(), megabytesPerSecond(),
+                    percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(100));
+        }
+    }
+
+    private final MarkdownRenderService renderService;
+    private final RenderOptions options;
+    private final int parallelism;
+    private final boolean force;
+
+    /**
+     * @param parallelism number of worker threads, {@code 0} for one per available core
+     * @param force       export every file even if the manifest says it is unchanged
+     */
+    public BatchExporter(MarkdownRenderService renderService, RenderOptions options, int parallelism, boolean force) {
+        this.renderService = renderService;
+        this.options = options;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.force = force;
+    }
+
+    public static boolean isMarkdownFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".md") || name.endsWith(".markdown");
+    }
+
+    public static String htmlFileName(Path markdownFile) {
+        String name = markdownFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + ".html";
+    }
+
+    public Report export(Path sourceRoot, Path outputRoot) throws IOException {
+        if (!Files.isDirectory(sourceRoot)) {
+            throw new IOException(sourceRoot + " is not a directory");
+        }
+        Files.createDirectories(outputRoot);
+        Run run = new Run(sourceRoot.toAbsolutePath().normalize(), outputRoot.toAbsolutePath().normalize(),
+                readManifest(outputRoot.resolve(MANIFEST_FILE)));
+        return run.execute(List.of(run.new DirectoryTask(run.sourceRoot)));
+    }
+
+    /**
+     * Exports only the given files and directories below {@code sourceRoot}, e.g. the ones a
+     * {@link FileWatcher} reported, and keeps the manifest entries of all others. The HTML of a
+     * Markdown file that no longer exists is deleted. Paths outside of the source, in the output or in
+     * a hidden directory are ignored.
+     */
+    public Report exportChanged(Path sourceRoot, Path outputRoot, Collection<Path> paths) throws IOException {
+        Files.createDirectories(outputRoot);
+        Run run = new Run(sourceRoot.toAbsolutePath().normalize(), outputRoot.toAbsolutePath().normalize(),
+                readManifest(outputRoot.resolve(MANIFEST_FILE)));
+        run.manifest.putAll(run.previousManifest);
+        Set<Path> sources = new LinkedHashSet<>();
+        for (Path path : paths) {
+            Path source = path.toAbsolutePath().normalize();
+            if (run.isExported(source)) {
+                sources.add(source);
+            }
+        }
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (Path source : sources) {
+            if (isBelowAny(source, sources)) {
+                // A new directory comes in the same batch as its files, exporting both would write them twice
+                continue;
+            }
+            if (Files.isDirectory(source, LinkOption.NOFOLLOW_LINKS)) {
+                tasks.add(run.new DirectoryTask(source));
+            } else if (Files.isRegularFile(source)) {
+                if (isMarkdownFile(source)) {
+                    tasks.add(run.new FileTask(source));
+                }
+            } else {
+                run.removed(source);
+            }
+        }
+        return run.execute(tasks);
+    }
+
+    private static boolean isBelowAny(Path path, Set<Path> directories) {
+        for (Path parent = path.getParent(); parent != null; parent = parent.getParent()) {
+            if (directories.contains(parent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * State of one {@link #export} or {@link #exportChanged} call, shared by all of its tasks.
+     */
+    private final class Run {
+
+        private final Path sourceRoot;
+        private final Path outputRoot;
+        private final Map<String, String> previousManifest;
+        private final Map<String, String> manifest = new ConcurrentHashMap<>();
+        // The CSS is part of it, so a changed user theme exports its files again
+        private final String optionsFingerprint = MarkdownRenderService.OPTIONS_KEY + ";" + options + ";"
+                + renderService.exportStyles(options);
+
+        private final AtomicInteger exported = new AtomicInteger();
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicLong sourceBytes = new AtomicLong();
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+        private Run(Path sourceRoot, Path outputRoot, Map<String, String> previousManifest) {
+            this.sourceRoot = sourceRoot;
+            this.outputRoot = outputRoot;
+            this.previousManifest = previousManifest;
+        }
+
+        private Report execute(List<RecursiveAction> tasks) throws IOException {
+            long start = System.nanoTime();
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(tasks);
+                    }
+                });
+            } finally {
+                pool.shutdown();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            writeManifest(outputRoot.resolve(MANIFEST_FILE), manifest);
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return new Report(exported.get(), unchanged.get(), failed.get(), sourceBytes.get(), elapsed, sorted);
+        }
+
+        /**
+         * Whether the path is below the source, not in the output and not in a hidden directory.
+         */
+        private boolean isExported(Path path) {
+            if (path.equals(sourceRoot)) {
+                return true;
+            }
+            if (!path.startsWith(sourceRoot) || path.startsWith(outputRoot)) {
+                return false;
+            }
+            for (Path name : sourceRoot.relativize(path)) {
+                if (name.toString().startsWith(".")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Forgets a deleted file or directory and deletes the HTML that was exported from it.
+         */
+        private void removed(Path source) {
+            String prefix = sourceRoot.relativize(source).toString().replace('\\', '/');
+            for (String key : List.copyOf(manifest.keySet())) {
+                if (key.equals(prefix) || key.startsWith(prefix + "/")) {
+                    manifest.remove(key);
+                    Path markdown = sourceRoot.resolve(key);
+                    try {
+                        Files.deleteIfExists(outputRoot.resolve(key).resolveSibling(htmlFileName(markdown)));
+                    } catch (IOException ex) {
+                        System.err.println("Failed to delete the export of " + markdown + ": " + ex.getMessage());
+                    }
+                }
+            }
+        }
+
+        private final class DirectoryTask extends RecursiveAction {
+
+            private final Path directory;
+
+            private DirectoryTask(Path directory) {
+                this.directory = directory;
+            }
+
+            @Override
+            protected void compute() {
+                List<RecursiveAction> tasks = new ArrayList<>();
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                    for (Path entry : entries) {
+                        if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                            // Skips .git and friends, and never exports the output back into itself
+                            if (!entry.getFileName().toString().startsWith(".") && !entry.equals(outputRoot)) {
+                                tasks.add(new DirectoryTask(entry));
+                            }
+                        } else if (isMarkdownFile(entry) && Files.isRegularFile(entry)) {
+                            tasks.add(new FileTask(entry));
+                        }
+                    }
+                } catch (IOException ex) {
+                    failed.incrementAndGet();
+                    System.err.println("Failed to list " + directory + ": " + ex.getMessage());
+                }
+                invokeAll(tasks);
+            }
+        }
+
+        private final class FileTask extends RecursiveAction {
+
+            private final Path source;
+
+            private FileTask(Path source) {
+                this.source = source;
+            }
+
+            @Override
+            protected void compute() {
+                long start = System.nanoTime();
+                Path relative = sourceRoot.relativize(source);
+                String manifestKey = relative.toString().replace('\\', '/');
+                Path target = outputRoot.resolve(relative).resolveSibling(htmlFileName(source));
+                try {
+                    byte[] bytes = Files.readAllBytes(source);
+                    String hash = hash(bytes);
+                    if (!force && hash.equals(previousManifest.get(manifestKey)) && Files.exists(target)) {
+                        manifest.put(manifestKey, hash);
+                        unchanged.incrementAndGet();
+                        return;
+                    }
+                    String markdown = new String(bytes, StandardCharsets.UTF_8);
+                    Files.createDirectories(target.getParent());
+                    // Whole documents rarely share blocks, so skip the fragment cache and its lock
+                    renderService.exportToFile(target, markdown, options, false);
+                    manifest.put(manifestKey, hash);
+                    sourceBytes.addAndGet(bytes.length);
+                    exported.incrementAndGet();
+                    latencies.add(System.nanoTime() - start);
+                } catch (IOException | RuntimeException ex) {
+                    failed.incrementAndGet();
+                    System.err.println("Failed to export " + source + ": " + ex.getMessage());
+                }
+            }
+
+            private String hash(byte[] bytes) {
+                try {
+                    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                    digest.update(optionsFingerprint.getBytes(StandardCharsets.UTF_8));
+                    digest.update(bytes);
+                    return HexFormat.of().formatHex(digest.digest());
+                } catch (NoSuchAlgorithmException ex) {
+                    throw new IllegalStateException("SHA-256 is not available", ex);
+                }
+            }
+        }
+    }
+
+    private static Map<String, String> readManifest(Path file) throws IOException {
+        Map<String, String> manifest = new ConcurrentHashMap<>();
+        if (!Files.exists(file)) {
+            return manifest;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int space = line.indexOf(' ');
+            if (space > 0) {
+                manifest.put(line.substring(space + 1), line.substring(0, space));
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Writes the manifest through a temporary file, so an interrupted run never leaves a truncated one.
+     */
+    private static void writeManifest(Path file, Map<String, String> manifest) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : new TreeMap<>(manifest).entrySet()) {
+                writer.write(entry.getValue());
+                writer.write(' ');
+                writer.write(entry.getKey());
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,87 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 15:10
+ */
+
+import com.vladsch.flexmark.ast.FencedCodeBlock;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html.HtmlWriter;
+import com.vladsch.flexmark.html.renderer.NodeRenderer;
+import com.vladsch.flexmark.html.renderer.NodeRendererContext;
+import com.vladsch.flexmark.html.renderer.NodeRenderingHandler;
+import com.vladsch.flexmark.util.data.MutableDataHolder;
+
+import java.util.Set;
+
+/**
+ * flexmark extension that renders {@link FencedCodeBlock}s of supported languages through the
+ * {@link SyntaxHighlighter}. Blocks of other languages are left to the default renderer.
+ */
+public class CodeHighlightExtension implements HtmlRenderer.HtmlRendererExtension {
+
+    private final SyntaxHighlighter highlighter;
+
+    private CodeHighlightExtension(SyntaxHighlighter highlighter) {
+        this.highlighter = highlighter;
+    }
+
+    public static CodeHighlightExtension create(SyntaxHighlighter highlighter) {
+        return new CodeHighlightExtension(highlighter);
+    }
+
+    @Override
+    public void rendererOptions(MutableDataHolder options) {
+    }
+
+    @Override
+    public void extend(HtmlRenderer.Builder builder, String rendererType) {
+        if ("HTML".equals(rendererType)) {
+            builder.nodeRendererFactory(options -> new CodeBlockRenderer());
+        }
+    }
+
+    private class CodeBlockRenderer implements NodeRenderer {
+
+        @Override
+        public Set<NodeRenderingHandler<?>> getNodeRenderingHandlers() {
+            return Set.of(new NodeRenderingHandler<>(FencedCodeBlock.class, this::render));
+        }
+
+        private void render(FencedCodeBlock node, NodeRendererContext context, HtmlWriter html) {
+            String language = language(node);
+            String code = node.getContentChars().toString().replace("\r\n", "\n");
+            String highlighted = highlighter.highlight(language, code);
+            if (highlighted == null) {
+                context.delegateRender();
+                return;
+            }
+            html.line();
+            // Carries the source position for the preview, like the default renderer does
+            html.srcPos(node.getChars()).withAttr().tag("pre");
+            html.raw("<code class=\"language-" + language + "\">");
+            html.openPre();
+            html.raw(highlighted);
+            html.closePre();
+            html.raw("</code>");
+            html.tag("/pre");
+            html.line();
+        }
+
+        private String language(FencedCodeBlock node) {
+            String info = node.getInfo().toString().trim();
+            int space = 0;
+            while (space < info.length() && !Character.isWhitespace(info.charAt(space))) {
+                space++;
+            }
+            return info.substring(0, space);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 21:20
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A small fixed-size JDBC connection pool. Connections are opened on demand up to {@code maxSize} and
+ * handed out as {@link Lease}s; closing a lease returns the connection. Every pooled connection keeps the
+ * prepared statements it was asked for, so a statement is only prepared once per connection. A
+ * connection that was idle for a while is validated before it is handed out again, and one whose lease
+ * was {@linkplain Lease#discard() discarded} after a connection error is closed instead of being returned.
+ */
+@SuppressWarnings("unused")
+public final class ConnectionPool implements AutoCloseable {
+
+    private static final long VALIDATE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private static final class PooledConnection {
+        final Connection connection;
+        final Map<String, PreparedStatement> statements = new HashMap<>();
+        long returnedNanos = System.nanoTime();
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        void close() {
+            for (PreparedStatement statement : statements.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // The connection is closed next
+                }
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    /**
+     * A connection borrowed from the pool. Not thread-safe, a lease belongs to the thread that borrowed it.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final PooledConnection pooled;
+        private boolean broken;
+        private boolean closed;
+
+        private Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        public Connection connection() {
+            return pooled.connection;
+        }
+
+        /**
+         * Returns the prepared statement for {@code sql}, preparing it on the first call for this connection.
+         * The parameters of a reused statement are cleared.
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = pooled.statements.get(sql);
+            if (statement == null || statement.isClosed()) {
+                statement = pooled.connection.prepareStatement(sql);
+                pooled.statements.put(sql, statement);
+            } else {
+                statement.clearParameters();
+                statement.clearBatch();
+            }
+            return statement;
+        }
+
+        /**
+         * Closes the connection instead of returning it to the pool.
+         */
+        public void discard() {
+            broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            release(pooled, broken);
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long timeoutMillis;
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final List<PooledConnection> all = new ArrayList<>();
+    private int opening;
+    private boolean closed;
+
+    /**
+     * @param maxSize       the maximum number of open connections
+     * @param timeoutMillis how long {@link #borrow()} waits for a free connection
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long timeoutMillis) {
+        this.factory = factory;
+        this.maxSize = Math.max(1, maxSize);
+        this.timeoutMillis = Math.max(0, timeoutMillis);
+    }
+
+    /**
+     * Borrows a connection, opening a new one if none is idle and the pool is not full.
+     *
+     * @throws SQLException if no connection became free in time or a new one could not be opened
+     */
+    public Lease borrow() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            PooledConnection pooled;
+            synchronized (this) {
+                while (!closed && idle.isEmpty() && all.size() + opening >= maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new SQLException("No database connection became free within " + timeoutMillis + " ms");
+                    }
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", ex);
+                    }
+                }
+                if (closed) {
+                    throw new SQLException("The connection pool is closed");
+                }
+                pooled = idle.pollFirst();
+                if (pooled == null) {
+                    opening++;
+                }
+            }
+            if (pooled == null) {
+                return new Lease(open());
+            }
+            if (System.nanoTime() - pooled.returnedNanos < VALIDATE_AFTER_NANOS || isValid(pooled)) {
+                return new Lease(pooled);
+            }
+            // Dropped by the server, e.g. after its idle timeout
+            remove(pooled);
+        }
+    }
+
+    public synchronized int getSize() {
+        return all.size();
+    }
+
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Closes the idle connections now and every borrowed one when its lease is closed.
+     */
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            all.removeAll(idle);
+            idle.clear();
+            notifyAll();
+        }
+        toClose.forEach(PooledConnection::close);
+    }
+
+    private PooledConnection open() throws SQLException {
+        try {
+            PooledConnection pooled = new PooledConnection(factory.open());
+            synchronized (this) {
+                all.add(pooled);
+            }
+            return pooled;
+        } finally {
+            synchronized (this) {
+                opening--;
+                notifyAll();
+            }
+        }
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled, boolean broken) {
+        if (!broken) {
+            try {
+                // A lease must not hand an open transaction to the next borrower
+                if (!pooled.connection.getAutoCommit()) {
+                    pooled.connection.rollback();
+                    pooled.connection.setAutoCommit(true);
+                }
+            } catch (SQLException ex) {
+                broken = true;
+            }
+        }
+        synchronized (this) {
+            if (!broken && !closed) {
+                pooled.returnedNanos = System.nanoTime();
+                idle.addFirst(pooled);
+                notifyAll();
+                return;
+            }
+        }
+        remove(pooled);
+    }
+
+    private void remove(PooledConnection pooled) {
+        synchronized (this) {
+            all.remove(pooled);
+            notifyAll();
+        }
+        pooled.close();
+    }
+}
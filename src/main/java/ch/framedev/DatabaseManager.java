@@ -10,6 +10,12 @@ package ch.framedev;
  * =============================================
  * This Class was created at 23.05.2025 23:58
  */
+
+/**
+ * Creates the document store selected by {@code database.type} in the config. The store is opened on
+ * the first call of {@link #getIDatabase()}, which must not happen on the Event Dispatch Thread
+ * because the SQLite backend creates its directory.
+ */
 @SuppressWarnings("unused")
 public class DatabaseManager {
 
@@ -25,7 +31,18 @@ public class DatabaseManager {
         this.databaseType = databaseType;
     }
 
-    public IDatabase getIDatabase() {
+    /**
+     * Returns the manager for the configured {@code database.type}, SQLite unless it is {@code mysql}.
+     */
+    public static DatabaseManager fromConfig() {
+        String type = Main.config.getString("database.type", "sqlite");
+        return new DatabaseManager("mysql".equalsIgnoreCase(type) ? DatabaseType.MYSQL : DatabaseType.SQLITE);
+    }
+
+    public synchronized IDatabase getIDatabase() {
+        if (iDatabase == null) {
+            iDatabase = databaseType == DatabaseType.MYSQL ? new MySQLManager() : new SQLiteManager();
+        }
         return iDatabase;
     }
 
@@ -34,6 +51,16 @@ public class DatabaseManager {
     }
 
     public boolean isDatabaseSupported() {
-        return Main.config.getBoolean("useDatabase", false);
+        return Main.config.getBoolean("database.useDatabase", false);
+    }
+
+    /**
+     * Closes the store if it was opened.
+     */
+    public synchronized void close() {
+        if (iDatabase != null) {
+            iDatabase.close();
+            iDatabase = null;
+        }
     }
 }
@@ -0,0 +1,268 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 22:45
+ */
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.awt.*;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One open document of the editor: its text, its {@link AutosaveManager} and its own
+ * {@link IncrementalMarkdownRenderer}. All tabs are shown in the same editor and preview, so only the
+ * selected tab is ever rendered. A tab that was not shown for a while drops the HTML of its blocks,
+ * and a saved tab with a file can also drop its text, which is read from the file again when the tab
+ * is shown. Must only be used on the EDT.
+ */
+@SuppressWarnings("unused")
+public class EditorTab {
+
+    private final CompletableFuture<IncrementalMarkdownRenderer> renderer;
+    private Document document;
+    private AutosaveManager autosave;
+    // The name of the document in the database, once it was opened from or saved to it
+    private String databaseDocument;
+    private LargeFileLoader fileLoader;
+    // While a file is loading the preview is not rendered for every appended chunk
+    private boolean previewSuspended;
+
+    // Where the tab was left, restored when it is shown again
+    private int caretPosition;
+    private Point editorScroll = new Point();
+    private Point previewScroll = new Point();
+    private long lastShownMillis = System.currentTimeMillis();
+    private boolean cachesReleased;
+    // The file the text is read from again, while the text is released
+    private Path releasedFile;
+
+    public EditorTab(CompletableFuture<IncrementalMarkdownRenderer> renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Makes {@code document} the text of this tab. Edits are passed to the tab's renderer and then to
+     * {@code onEdit}, unless a file is being loaded into the document.
+     */
+    public void attach(Document document, AutosaveManager autosave, Runnable onEdit) {
+        this.document = document;
+        this.autosave = autosave;
+        this.releasedFile = null;
+        document.addDocumentListener(new DocumentListener() {
+            // Edits before the renderer exists need no tracking, its first render covers the whole document
+            public void insertUpdate(DocumentEvent e) {
+                IncrementalMarkdownRenderer incremental = renderer.getNow(null);
+                if (incremental != null) {
+                    incremental.insertUpdate(e.getOffset(), e.getLength());
+                }
+                if (!previewSuspended) {
+                    onEdit.run();
+                }
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                IncrementalMarkdownRenderer incremental = renderer.getNow(null);
+                if (incremental != null) {
+                    incremental.removeUpdate(e.getOffset(), e.getLength());
+                }
+                if (!previewSuspended) {
+                    onEdit.run();
+                }
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+                if (!previewSuspended) {
+                    onEdit.run();
+                }
+            }
+        });
+    }
+
+    public CompletableFuture<IncrementalMarkdownRenderer> getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Returns the text, or {@code null} while it is released.
+     */
+    public Document getDocument() {
+        return document;
+    }
+
+    /**
+     * Returns the autosave of the text, or {@code null} while it is released.
+     */
+    public AutosaveManager getAutosave() {
+        return autosave;
+    }
+
+    /**
+     * The text without copying it when the piece table is used. Safe to read off the EDT.
+     */
+    public CharSequence getText() {
+        return getText(document);
+    }
+
+    static CharSequence getText(Document document) {
+        if (document instanceof PieceTableDocument pieceTable) {
+            return pieceTable.snapshot();
+        }
+        try {
+            return document.getText(0, document.getLength());
+        } catch (BadLocationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Replaces the whole text, as an ordinary edit unless the autosave is suspended.
+     */
+    public void setText(String text) {
+        try {
+            document.remove(0, document.getLength());
+            document.insertString(0, text, null);
+        } catch (BadLocationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Returns the file of the tab, also while its text is released, or {@code null} if it is untitled.
+     */
+    public Path getFile() {
+        return autosave != null ? autosave.getFile() : releasedFile;
+    }
+
+    public boolean isDirty() {
+        return autosave != null && autosave.isDirty();
+    }
+
+    public String getDatabaseDocument() {
+        return databaseDocument;
+    }
+
+    public void setDatabaseDocument(String databaseDocument) {
+        this.databaseDocument = databaseDocument;
+    }
+
+    public LargeFileLoader getFileLoader() {
+        return fileLoader;
+    }
+
+    public void setFileLoader(LargeFileLoader fileLoader) {
+        this.fileLoader = fileLoader;
+    }
+
+    public boolean isPreviewSuspended() {
+        return previewSuspended;
+    }
+
+    public void setPreviewSuspended(boolean previewSuspended) {
+        this.previewSuspended = previewSuspended;
+    }
+
+    /**
+     * Whether nothing was typed or opened in the tab yet, so it can be reused for the next document.
+     */
+    public boolean isPristine() {
+        return autosave != null && autosave.getFile() == null && databaseDocument == null && !autosave.isDirty()
+                && fileLoader == null && autosave.getEditSequence() == 0;
+    }
+
+    public String getName() {
+        Path file = getFile();
+        return file != null ? file.getFileName().toString()
+                : databaseDocument != null ? databaseDocument + " (database)" : "Untitled";
+    }
+
+    public String getTitle() {
+        return getName() + (isDirty() ? " *" : "");
+    }
+
+    /**
+     * Remembers the caret and the scroll positions when another tab is shown.
+     */
+    public void hidden(int caretPosition, Point editorScroll, Point previewScroll) {
+        this.caretPosition = caretPosition;
+        this.editorScroll = editorScroll;
+        this.previewScroll = previewScroll;
+        lastShownMillis = System.currentTimeMillis();
+    }
+
+    public int getCaretPosition() {
+        return caretPosition;
+    }
+
+    public Point getEditorScroll() {
+        return editorScroll;
+    }
+
+    public Point getPreviewScroll() {
+        return previewScroll;
+    }
+
+    /**
+     * Returns how long the tab has been in the background.
+     */
+    public long getHiddenMillis(long now) {
+        return now - lastShownMillis;
+    }
+
+    /**
+     * Drops the HTML of the rendered blocks; the next render of the tab starts from scratch.
+     */
+    public void releaseCaches() {
+        if (!cachesReleased) {
+            cachesReleased = true;
+            renderer.thenAccept(IncrementalMarkdownRenderer::release);
+        }
+    }
+
+    /**
+     * Called when the tab is shown again.
+     */
+    public void shown() {
+        cachesReleased = false;
+    }
+
+    /**
+     * Whether the text can be dropped and read from the file again later, which is only the case
+     * for a saved tab with a file that is not loading.
+     */
+    public boolean canReleaseText() {
+        return autosave != null && autosave.getFile() != null && !autosave.isDirty() && fileLoader == null;
+    }
+
+    /**
+     * Closes the autosave and drops the text, see {@link #canReleaseText()}.
+     *
+     * @return {@code false} if the autosave did not finish, the text is kept then
+     */
+    public boolean releaseText() {
+        Path file = autosave.getFile();
+        if (!autosave.close(false, 5000)) {
+            // The autosave keeps recording the kept text
+            return false;
+        }
+        releaseCaches();
+        releasedFile = file;
+        document = null;
+        autosave = null;
+        return true;
+    }
+
+    public boolean isTextReleased() {
+        return document == null;
+    }
+}
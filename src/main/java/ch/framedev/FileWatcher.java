@@ -0,0 +1,243 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 23:45
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Watches directories with a {@link WatchService} and reports the changed paths in batches. Events are
+ * collected until nothing changed for {@code quietMillis}, but at most for {@code maxDelayMillis}, so a
+ * {@code git checkout} of thousands of files arrives as one or a few batches instead of one per file.
+ * A batch contains created, modified and deleted paths alike; the listener checks what is still there.
+ * The listener is called on the watcher thread.
+ */
+@SuppressWarnings("unused")
+public final class FileWatcher implements Closeable {
+
+    /**
+     * @param overflow the operating system dropped events, the listener should look at everything it watches
+     */
+    public record Changes(Set<Path> paths, boolean overflow) {
+    }
+
+    private final WatchService watchService;
+    private final int quietMillis;
+    private final int maxDelayMillis;
+    private final Consumer<Changes> listener;
+    private final Consumer<String> errorHandler;
+    private final Thread thread;
+
+    // Guarded by this
+    private final Map<Path, WatchKey> keys = new HashMap<>();
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    // Directories below these are registered as they are created, unless excluded
+    private final Map<Path, Predicate<Path>> trees = new HashMap<>();
+
+    private volatile boolean closed;
+
+    /**
+     * @param errorHandler called with a message when a directory cannot be watched or the listener fails,
+     *                     on the watcher thread or the thread that changed the watched directories
+     */
+    public FileWatcher(int quietMillis, int maxDelayMillis, Consumer<Changes> listener,
+                       Consumer<String> errorHandler) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.quietMillis = quietMillis;
+        this.maxDelayMillis = Math.max(quietMillis, maxDelayMillis);
+        this.listener = listener;
+        this.errorHandler = errorHandler;
+        this.thread = new Thread(this::run, "file-watch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static FileWatcher fromConfig(Consumer<Changes> listener, Consumer<String> errorHandler) throws IOException {
+        return new FileWatcher(Main.config.getInt("watch.quietMillis", 300),
+                Main.config.getInt("watch.maxDelayMillis", 2000), listener, errorHandler);
+    }
+
+    /**
+     * Watches {@code root} and all directories below it that are not {@code excluded}, including the
+     * ones created later.
+     */
+    public synchronized void watchTree(Path root, Predicate<Path> excluded) throws IOException {
+        Path normalized = root.toAbsolutePath().normalize();
+        trees.put(normalized, excluded);
+        registerTree(normalized, excluded);
+    }
+
+    /**
+     * Watches exactly these directories, without the directories below them, and stops watching all
+     * others, so it is not meant to be combined with {@link #watchTree}. Directories that do not exist
+     * are skipped.
+     */
+    public synchronized void setDirectories(Set<Path> watched) {
+        Set<Path> normalized = new LinkedHashSet<>();
+        for (Path directory : watched) {
+            normalized.add(directory.toAbsolutePath().normalize());
+        }
+        for (Path directory : Set.copyOf(keys.keySet())) {
+            if (!normalized.contains(directory)) {
+                WatchKey key = keys.remove(directory);
+                directories.remove(key);
+                key.cancel();
+            }
+        }
+        for (Path directory : normalized) {
+            if (!keys.containsKey(directory) && Files.isDirectory(directory)) {
+                try {
+                    register(directory);
+                } catch (IOException ex) {
+                    errorHandler.accept("Failed to watch " + directory + ": " + ex.getMessage());
+                }
+            }
+        }
+    }
+
+    public synchronized int getWatchedDirectoryCount() {
+        return keys.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            errorHandler.accept("Failed to close the file watcher: " + ex.getMessage());
+        }
+    }
+
+    private void registerTree(Path directory, Predicate<Path> excluded) throws IOException {
+        if (excluded.test(directory)) {
+            return;
+        }
+        register(directory);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                    registerTree(entry, excluded);
+                }
+            }
+        }
+    }
+
+    private void register(Path directory) throws IOException {
+        if (keys.containsKey(directory)) {
+            return;
+        }
+        WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        keys.put(directory, key);
+        directories.put(key, directory);
+    }
+
+    private void run() {
+        Set<Path> pending = new LinkedHashSet<>();
+        boolean overflow = false;
+        long firstEvent = 0;
+        long lastEvent = 0;
+        while (!closed) {
+            WatchKey key;
+            try {
+                if (pending.isEmpty() && !overflow) {
+                    key = watchService.take();
+                } else {
+                    long now = System.nanoTime();
+                    long deadline = Math.min(lastEvent + TimeUnit.MILLISECONDS.toNanos(quietMillis),
+                            firstEvent + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis));
+                    key = deadline > now ? watchService.poll(deadline - now, TimeUnit.NANOSECONDS) : null;
+                }
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                return;
+            }
+            if (key != null) {
+                if (pending.isEmpty() && !overflow) {
+                    firstEvent = System.nanoTime();
+                }
+                lastEvent = System.nanoTime();
+                overflow |= collect(key, pending);
+                continue;
+            }
+            Changes changes = new Changes(Set.copyOf(pending), overflow);
+            pending.clear();
+            overflow = false;
+            try {
+                listener.accept(changes);
+            } catch (RuntimeException ex) {
+                errorHandler.accept("Failed to handle file changes: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Adds the paths of the key's events to {@code pending} and returns whether events were lost.
+     */
+    private synchronized boolean collect(WatchKey key, Set<Path> pending) {
+        Path directory = directories.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            if (directory == null) {
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            pending.add(path);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                Predicate<Path> excluded = treeOf(directory);
+                if (excluded != null) {
+                    try {
+                        // Files created before the directory was registered are covered by the directory itself
+                        registerTree(path, excluded);
+                    } catch (IOException ex) {
+                        errorHandler.accept("Failed to watch " + path + ": " + ex.getMessage());
+                    }
+                }
+            }
+        }
+        if (!key.reset() && directory != null) {
+            keys.remove(directory);
+            directories.remove(key);
+        }
+        return overflow;
+    }
+
+    private Predicate<Path> treeOf(Path directory) {
+        for (Map.Entry<Path, Predicate<Path>> tree : trees.entrySet()) {
+            if (directory.startsWith(tree.getKey())) {
+                return tree.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,377 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 23:25
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ATX ({@code # Title}) and setext ({@code Title} over {@code ===} or {@code ---}) headings of a
+ * document, kept up to date from the offsets of its edits. An edit only rescans the lines it touched
+ * plus one line before and after, which decides about setext headings, and moves the headings behind
+ * it. Fence lines of code blocks are indexed as well, so headings inside code are skipped; an edit that
+ * adds or removes a fence line rescans the whole text. Not thread-safe.
+ */
+@SuppressWarnings("unused")
+public final class HeadingIndex {
+
+    /**
+     * @param level  1 to 6
+     * @param offset the start of the heading's line
+     */
+    public record Heading(int level, String title, int offset) {
+    }
+
+    // A heading, or with level 0 a line that opens or closes a fenced code block
+    private static final class Entry {
+        int offset;
+        final int level;
+        final String title;
+
+        Entry(int offset, int level, String title) {
+            this.offset = offset;
+            this.level = level;
+            this.title = title;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private boolean valid;
+    private int version;
+    private int fullScans;
+
+    /**
+     * Indexes the whole text, needed once before the first edit and after {@link #invalidate()}.
+     */
+    public void rescan(CharSequence text) {
+        entries.clear();
+        int length = text.length();
+        int pos = 0;
+        char fenceChar = 0;
+        int fenceLength = 0;
+        while (true) {
+            int lineEnd = MarkdownBlockSplitter.lineEnd(text, pos);
+            if (fenceChar != 0) {
+                int contentStart = indentEnd(text, pos, lineEnd);
+                if (contentStart >= 0 && fenceRun(text, contentStart, lineEnd) >= fenceLength
+                        && text.charAt(contentStart) == fenceChar
+                        && isBlank(text, contentStart + fenceRun(text, contentStart, lineEnd), lineEnd)) {
+                    entries.add(new Entry(pos, 0, null));
+                    fenceChar = 0;
+                }
+            } else if (isFence(text, pos, lineEnd)) {
+                int contentStart = indentEnd(text, pos, lineEnd);
+                entries.add(new Entry(pos, 0, null));
+                fenceChar = text.charAt(contentStart);
+                fenceLength = fenceRun(text, contentStart, lineEnd);
+            } else {
+                Entry heading = headingAt(text, pos, lineEnd);
+                if (heading != null) {
+                    entries.add(heading);
+                }
+            }
+            if (lineEnd >= length) {
+                break;
+            }
+            pos = lineEnd + 1;
+        }
+        valid = true;
+        version++;
+        fullScans++;
+    }
+
+    /**
+     * Forgets the headings, e.g. while nobody looks at them. Edits are ignored until the next {@link #rescan}.
+     */
+    public void invalidate() {
+        entries.clear();
+        valid = false;
+        version++;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Called after {@code length} characters were inserted at {@code offset}.
+     *
+     * @param text the text after the edit
+     */
+    public void insertUpdate(CharSequence text, int offset, int length) {
+        update(text, offset, length, 0);
+    }
+
+    /**
+     * Called after {@code length} characters were removed at {@code offset}.
+     *
+     * @param text the text after the edit
+     */
+    public void removeUpdate(CharSequence text, int offset, int length) {
+        update(text, offset, 0, length);
+    }
+
+    private void update(CharSequence text, int offset, int inserted, int removed) {
+        if (!valid) {
+            return;
+        }
+        int delta = inserted - removed;
+        int length = text.length();
+        int scanStart = lineStart(text, offset);
+        if (scanStart > 0) {
+            scanStart = lineStart(text, scanStart - 1);
+        }
+        int scanEnd = MarkdownBlockSplitter.lineEnd(text, Math.min(offset + inserted, length));
+        if (scanEnd < length) {
+            scanEnd = MarkdownBlockSplitter.lineEnd(text, scanEnd + 1);
+        }
+
+        // The lines from scanStart to scanEnd were between scanStart and scanEnd - delta before the edit
+        int first = firstEntryAt(scanStart);
+        int last = first;
+        while (last < entries.size() && entries.get(last).offset <= scanEnd - delta) {
+            if (entries.get(last).level == 0) {
+                rescan(text);
+                return;
+            }
+            last++;
+        }
+        List<Entry> removedEntries = new ArrayList<>(entries.subList(first, last));
+        entries.subList(first, last).clear();
+        for (int i = first; i < entries.size(); i++) {
+            entries.get(i).offset += delta;
+        }
+
+        int fencesBefore = 0;
+        for (int i = 0; i < first; i++) {
+            if (entries.get(i).level == 0) {
+                fencesBefore++;
+            }
+        }
+        boolean inCode = fencesBefore % 2 == 1;
+        List<Entry> added = new ArrayList<>();
+        int pos = scanStart;
+        while (pos <= scanEnd) {
+            int lineEnd = MarkdownBlockSplitter.lineEnd(text, pos);
+            if (isFence(text, pos, lineEnd)) {
+                rescan(text);
+                return;
+            }
+            if (!inCode) {
+                Entry heading = headingAt(text, pos, lineEnd);
+                if (heading != null) {
+                    added.add(heading);
+                }
+            }
+            if (lineEnd >= length) {
+                break;
+            }
+            pos = lineEnd + 1;
+        }
+        entries.addAll(first, added);
+        if (!sameHeadings(removedEntries, added)) {
+            version++;
+        }
+    }
+
+    /**
+     * Increases whenever a heading is added, removed or changed, but not when headings only move.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * How often the whole text was scanned, by {@link #rescan} or by an edit of a fence line.
+     */
+    public int getFullScans() {
+        return fullScans;
+    }
+
+    public List<Heading> getHeadings() {
+        List<Heading> headings = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.level > 0) {
+                headings.add(new Heading(entry.level, entry.title, entry.offset));
+            }
+        }
+        return headings;
+    }
+
+    /**
+     * Returns the current offset of the {@code ordinal}-th heading, or {@code -1} if there is none.
+     */
+    public int getHeadingOffset(int ordinal) {
+        int seen = 0;
+        for (Entry entry : entries) {
+            if (entry.level > 0 && seen++ == ordinal) {
+                return entry.offset;
+            }
+        }
+        return -1;
+    }
+
+    private int firstEntryAt(int offset) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries.get(mid).offset < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean sameHeadings(List<Entry> a, List<Entry> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i).level != b.get(i).level || !a.get(i).title.equals(b.get(i).title)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Entry headingAt(CharSequence text, int pos, int lineEnd) {
+        int contentStart = indentEnd(text, pos, lineEnd);
+        if (contentStart < 0 || contentStart >= lineEnd) {
+            return null;
+        }
+        if (text.charAt(contentStart) == '#') {
+            int level = 0;
+            while (contentStart + level < lineEnd && text.charAt(contentStart + level) == '#') {
+                level++;
+            }
+            int titleStart = contentStart + level;
+            if (level > 6 || titleStart < lineEnd && text.charAt(titleStart) != ' ' && text.charAt(titleStart) != '\t') {
+                return null;
+            }
+            return new Entry(pos, level, atxTitle(text, titleStart, lineEnd));
+        }
+        // Setext: a paragraph line followed by an underline
+        int length = text.length();
+        if (lineEnd >= length || isSetextUnderline(text, pos, lineEnd) != 0) {
+            return null;
+        }
+        char first = text.charAt(contentStart);
+        if (first == '>' || first == '<' || first == '|' || isListMarker(text, contentStart, lineEnd)) {
+            return null;
+        }
+        int nextStart = lineEnd + 1;
+        int level = isSetextUnderline(text, nextStart, MarkdownBlockSplitter.lineEnd(text, nextStart));
+        return level == 0 ? null : new Entry(pos, level, text.subSequence(contentStart, lineEnd).toString().strip());
+    }
+
+    private static String atxTitle(CharSequence text, int from, int lineEnd) {
+        String title = text.subSequence(from, lineEnd).toString().strip();
+        // An optional closing sequence of #, which must follow a space
+        int end = title.length();
+        while (end > 0 && title.charAt(end - 1) == '#') {
+            end--;
+        }
+        if (end == 0) {
+            return "";
+        }
+        if (end < title.length() && (title.charAt(end - 1) == ' ' || title.charAt(end - 1) == '\t')) {
+            title = title.substring(0, end).strip();
+        }
+        return title;
+    }
+
+    /**
+     * Returns 1 for a {@code ===} and 2 for a {@code ---} underline, otherwise 0.
+     */
+    private static int isSetextUnderline(CharSequence text, int pos, int lineEnd) {
+        int contentStart = indentEnd(text, pos, lineEnd);
+        if (contentStart < 0 || contentStart >= lineEnd) {
+            return 0;
+        }
+        char c = text.charAt(contentStart);
+        if (c != '=' && c != '-') {
+            return 0;
+        }
+        int i = contentStart;
+        while (i < lineEnd && text.charAt(i) == c) {
+            i++;
+        }
+        if (!isBlank(text, i, lineEnd)) {
+            return 0;
+        }
+        return c == '=' ? 1 : 2;
+    }
+
+    private static boolean isFence(CharSequence text, int pos, int lineEnd) {
+        int contentStart = indentEnd(text, pos, lineEnd);
+        return contentStart >= 0 && fenceRun(text, contentStart, lineEnd) >= 3;
+    }
+
+    private static int fenceRun(CharSequence text, int pos, int lineEnd) {
+        if (pos >= lineEnd) {
+            return 0;
+        }
+        char c = text.charAt(pos);
+        if (c != '`' && c != '~') {
+            return 0;
+        }
+        int i = pos;
+        while (i < lineEnd && text.charAt(i) == c) {
+            i++;
+        }
+        return i - pos;
+    }
+
+    private static boolean isListMarker(CharSequence text, int pos, int lineEnd) {
+        char c = text.charAt(pos);
+        if (c == '-' || c == '*' || c == '+') {
+            return pos + 1 >= lineEnd || Character.isWhitespace(text.charAt(pos + 1));
+        }
+        int i = pos;
+        while (i < lineEnd && i - pos < 9 && Character.isDigit(text.charAt(i))) {
+            i++;
+        }
+        return i > pos && i < lineEnd && (text.charAt(i) == '.' || text.charAt(i) == ')');
+    }
+
+    /**
+     * Returns where the content of the line starts, or {@code -1} if it is indented by four or more
+     * spaces and so cannot be a heading or fence.
+     */
+    private static int indentEnd(CharSequence text, int pos, int lineEnd) {
+        int i = pos;
+        while (i < lineEnd && text.charAt(i) == ' ') {
+            i++;
+        }
+        return i - pos > 3 || i < lineEnd && text.charAt(i) == '\t' ? -1 : i;
+    }
+
+    private static boolean isBlank(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lineStart(CharSequence text, int pos) {
+        int i = Math.min(pos, text.length());
+        while (i > 0 && text.charAt(i - 1) != '\n') {
+            i--;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,135 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 11:37
+ */
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache from a Markdown block (content hash plus renderer options) to its rendered HTML fragment.
+ * The cache is bounded both by entry count and by the approximate heap size of the cached fragments.
+ */
+@SuppressWarnings("unused")
+public class HtmlFragmentCache {
+
+    public record Key(String options, long hash, int length) {
+    }
+
+    public record Stats(long hits, long misses, long evictions, int entries, long weightBytes,
+                        int maxEntries, long maxWeightBytes) {
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    /**
+     * Rough per-entry overhead of the map node, key record and String header.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final LinkedHashMap<Key, String> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final int maxEntries;
+    private final long maxWeightBytes;
+
+    private long weightBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public HtmlFragmentCache(int maxEntries, long maxWeightBytes) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.maxWeightBytes = Math.max(0, maxWeightBytes);
+    }
+
+    public static HtmlFragmentCache fromConfig() {
+        return new HtmlFragmentCache(
+                Main.config.getInt("cache.maxEntries", 20000),
+                Main.config.getInt("cache.maxMegabytes", 32) * 1024L * 1024L);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of {@code text[start, end)}, computed without copying the range.
+     */
+    public static long contentHash(CharSequence text, int start, int end) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public static Key key(String options, CharSequence text, int start, int end) {
+        return new Key(options, contentHash(text, start, end), end - start);
+    }
+
+    /**
+     * Returns the cached fragment, or renders, caches and returns it. Rendering happens outside the lock.
+     */
+    public String get(Key key, Supplier<String> render) {
+        synchronized (this) {
+            String cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        String html = render.get();
+        put(key, html);
+        return html;
+    }
+
+    public synchronized void put(Key key, String html) {
+        long weight = weigh(html);
+        if (maxEntries == 0 || weight > maxWeightBytes) {
+            return;
+        }
+        String previous = entries.put(key, html);
+        if (previous != null) {
+            weightBytes -= weigh(previous);
+        }
+        weightBytes += weight;
+        evict();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weightBytes = 0;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, entries.size(), weightBytes, maxEntries, maxWeightBytes);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, String>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weightBytes > maxWeightBytes) && iterator.hasNext()) {
+            Map.Entry<Key, String> eldest = iterator.next();
+            weightBytes -= weigh(eldest.getValue());
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private static long weigh(String html) {
+        return ENTRY_OVERHEAD_BYTES + 2L * html.length();
+    }
+}
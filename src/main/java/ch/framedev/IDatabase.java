@@ -11,5 +11,81 @@ package ch.framedev;
  * This Class was created at 23.05.2025 23:59
  */
 
-public interface IDatabase {
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A store for Markdown documents addressed by name. Every save adds a revision, older revisions stay
+ * readable until the document is deleted. Implementations are thread-safe and must not be used on the
+ * Event Dispatch Thread.
+ */
+public interface IDatabase extends AutoCloseable {
+
+    /**
+     * A revision of a document together with its content.
+     */
+    record StoredDocument(String name, int revision, long modifiedMillis, String content) {
+    }
+
+    /**
+     * The latest revision of a document, without its content.
+     *
+     * @param size the length of the content in characters
+     */
+    record DocumentInfo(String name, int revision, long modifiedMillis, int size) {
+    }
+
+    /**
+     * @param size        the length of the content in characters
+     * @param snapshot    whether the revision is stored in full rather than as a delta to the previous one
+     * @param storedBytes how many bytes the revision takes in the store
+     */
+    record Revision(int revision, long modifiedMillis, int size, boolean snapshot, int storedBytes) {
+    }
+
+    /**
+     * Stores the content as a new revision of the document, creating the document if needed.
+     *
+     * @return the number of the new revision, starting at 1
+     */
+    int save(String name, String content) throws SQLException;
+
+    /**
+     * Stores several documents in one transaction and one batch per statement.
+     *
+     * @return the number of the new revision of every document
+     */
+    Map<String, Integer> saveAll(Map<String, String> documents) throws SQLException;
+
+    /**
+     * Returns the latest revision of the document.
+     */
+    Optional<StoredDocument> load(String name) throws SQLException;
+
+    Optional<StoredDocument> loadRevision(String name, int revision) throws SQLException;
+
+    /**
+     * Returns every document, ordered by name.
+     */
+    List<DocumentInfo> list() throws SQLException;
+
+    /**
+     * Returns the revisions of the document, oldest first, or an empty list if it does not exist.
+     */
+    List<Revision> revisions(String name) throws SQLException;
+
+    /**
+     * Deletes the document with all its revisions.
+     *
+     * @return {@code false} if there was no such document
+     */
+    boolean delete(String name) throws SQLException;
+
+    /**
+     * Closes the connections of the store.
+     */
+    @Override
+    void close();
 }
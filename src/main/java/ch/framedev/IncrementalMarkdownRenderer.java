@@ -0,0 +1,418 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 10:41
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Re-renders only the Markdown blocks touched by an edit and reuses the HTML of all other blocks.
+ * <p>
+ * Edits are recorded from {@link javax.swing.event.DocumentEvent} offsets on the EDT and collapsed
+ * into a single dirty region. {@link #render(CharSequence, DirtyRegion)} then re-splits the text from the
+ * block before the dirty region until the split lines up with an old block boundary again, so the
+ * resulting blocks are always identical to a fresh {@link MarkdownBlockSplitter#split(CharSequence)}.
+ * <p>
+ * With a {@link Window} only the blocks inside it are rendered, every other block is shown as an empty
+ * placeholder of roughly its rendered height until it scrolls into the window, so the cost of a render
+ * depends on the size of the viewport rather than on the size of the document.
+ */
+@SuppressWarnings("unused")
+public class IncrementalMarkdownRenderer {
+
+    /**
+     * The edited range in current document coordinates, plus the total length change since the last render.
+     */
+    public record DirtyRegion(int start, int end, int delta, boolean full) {
+
+        static final DirtyRegion NONE = new DirtyRegion(0, 0, 0, false);
+        static final DirtyRegion FULL = new DirtyRegion(0, 0, 0, true);
+
+        public boolean isEmpty() {
+            return !full && start == end && delta == 0;
+        }
+    }
+
+    /**
+     * The blocks to render in lazy mode, as block indices, and the line height in pixels used to estimate
+     * the height of the placeholders shown for all other blocks.
+     */
+    public record Window(int firstBlock, int lastBlock, int lineHeight) {
+
+        boolean contains(int index) {
+            return index >= firstBlock && index <= lastBlock;
+        }
+    }
+
+    static final String PLACEHOLDER_PREFIX = "<div class=\"lazy\" style=\"height: ";
+
+    /**
+     * Assumed width of the preview in characters, for estimating how often a long source line wraps.
+     */
+    private static final int ESTIMATED_LINE_CHARACTERS = 100;
+
+    private static final class Block {
+        final int start;
+        final int end;
+        /** {@code null} while the block is outside the window and has never been rendered. */
+        final String html;
+        final boolean definesReferences;
+        final int estimatedLines;
+
+        Block(int start, int end, String html, boolean definesReferences, int estimatedLines) {
+            this.start = start;
+            this.end = end;
+            this.html = html;
+            this.definesReferences = definesReferences;
+            this.estimatedLines = estimatedLines;
+        }
+
+        Block shift(int delta) {
+            return delta == 0 ? this : new Block(start + delta, end + delta, html, definesReferences, estimatedLines);
+        }
+
+        Block withHtml(String html) {
+            return new Block(start, end, html, definesReferences, estimatedLines);
+        }
+    }
+
+    private final MarkdownRenderService renderService;
+    private final boolean verify;
+
+    private final Object editLock = new Object();
+    private int dirtyStart;
+    private int dirtyEnd;
+    private int dirtyDelta;
+    private boolean dirty;
+    private boolean fullInvalidate = true;
+
+    private List<Block> blocks = new ArrayList<>();
+    private int renderedLength;
+    private int lastRenderedBlocks;
+    private Window window;
+    private int[] blockStarts = new int[0];
+    // Equal placeholders share one instance, so comparing the fragments of two renders stays cheap
+    private final Map<Integer, String> placeholders = new HashMap<>();
+
+    public IncrementalMarkdownRenderer(MarkdownRenderService renderService, boolean verify) {
+        this.renderService = renderService;
+        this.verify = verify;
+    }
+
+    public void insertUpdate(int offset, int length) {
+        synchronized (editLock) {
+            if (!dirty) {
+                dirtyStart = offset;
+                dirtyEnd = offset + length;
+                dirty = true;
+            } else {
+                if (offset <= dirtyEnd) {
+                    dirtyEnd += length;
+                }
+                dirtyStart = Math.min(dirtyStart, offset);
+                dirtyEnd = Math.max(dirtyEnd, offset + length);
+            }
+            dirtyDelta += length;
+        }
+    }
+
+    public void removeUpdate(int offset, int length) {
+        synchronized (editLock) {
+            if (!dirty) {
+                dirtyStart = offset;
+                dirtyEnd = offset;
+                dirty = true;
+            } else {
+                if (dirtyEnd >= offset + length) {
+                    dirtyEnd -= length;
+                } else if (dirtyEnd > offset) {
+                    dirtyEnd = offset;
+                }
+                dirtyStart = Math.min(dirtyStart, offset);
+                dirtyEnd = Math.max(dirtyEnd, offset);
+            }
+            dirtyDelta -= length;
+        }
+    }
+
+    /**
+     * Forces the next render to start from scratch, e.g. after the renderer options changed.
+     */
+    public void invalidate() {
+        synchronized (editLock) {
+            fullInvalidate = true;
+        }
+    }
+
+    /**
+     * Drops the HTML of all blocks to free memory, e.g. for a tab that was not shown for a while. The
+     * next render starts from scratch.
+     */
+    public synchronized void release() {
+        invalidate();
+        blocks = new ArrayList<>();
+        blockStarts = new int[0];
+        placeholders.clear();
+        renderedLength = 0;
+    }
+
+    /**
+     * Returns and resets the edits recorded since the last call. Must be called together with reading
+     * the document text, under the document's read lock, so both describe the same revision.
+     */
+    public DirtyRegion takeDirtyRegion() {
+        synchronized (editLock) {
+            DirtyRegion region;
+            if (fullInvalidate) {
+                region = DirtyRegion.FULL;
+            } else if (!dirty) {
+                region = DirtyRegion.NONE;
+            } else {
+                region = new DirtyRegion(dirtyStart, dirtyEnd, dirtyDelta, false);
+            }
+            fullInvalidate = false;
+            dirty = false;
+            dirtyDelta = 0;
+            return region;
+        }
+    }
+
+    /**
+     * Renders the given text, reusing the HTML of every block outside the dirty region.
+     *
+     * @return one HTML fragment per block, or a single fragment when the document had to be rendered as a whole
+     */
+    public List<String> render(CharSequence markdown, DirtyRegion region) {
+        return render(markdown, region, null);
+    }
+
+    /**
+     * Renders the given text like {@link #render(CharSequence, DirtyRegion)}, but only the blocks inside
+     * the window. Blocks outside of it keep their HTML if they were rendered before and are shown as
+     * placeholders otherwise.
+     *
+     * @param window the blocks to render, or {@code null} to render all of them
+     */
+    public synchronized List<String> render(CharSequence markdown, DirtyRegion region, Window window) {
+        // Comparing against a full render needs the HTML of every block
+        this.window = verify ? null : window;
+        lastRenderedBlocks = 0;
+        if (region.full() || blocks.isEmpty() || renderedLength + region.delta() != markdown.length()) {
+            blocks = renderAll(markdown);
+        } else if (!region.isEmpty()) {
+            blocks = renderIncremental(markdown, region);
+        }
+        renderedLength = markdown.length();
+        lastRenderedBlocks += renderWindow(markdown);
+
+        for (Block block : blocks) {
+            if (block.definesReferences) {
+                // Reference definitions are document-wide, isolated blocks cannot resolve them
+                blockStarts = new int[]{0};
+                return List.of(renderService.renderPreviewFull(markdown));
+            }
+        }
+
+        List<String> fragments = new ArrayList<>(blocks.size());
+        blockStarts = new int[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            fragments.add(block.html != null ? block.html : placeholder(block));
+            blockStarts[i] = block.start;
+        }
+        if (verify) {
+            // The source positions of the preview are relative to each block, so compare without them
+            String full = renderService.renderFull(markdown);
+            String stitched = stitch(markdown, blocks);
+            if (!full.equals(stitched)) {
+                System.err.println("Incremental preview differs from a full render at offset "
+                        + firstDifference(full, stitched) + ", using the full render");
+                blockStarts = new int[]{0};
+                return List.of(renderService.renderPreviewFull(markdown));
+            }
+        }
+        return fragments;
+    }
+
+    /**
+     * Number of blocks that had to be re-rendered by the last call to {@link #render(CharSequence, DirtyRegion)}.
+     */
+    public synchronized int getLastRenderedBlocks() {
+        return lastRenderedBlocks;
+    }
+
+    public synchronized int getBlockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * Returns the source offset of every fragment returned by the last render.
+     */
+    public synchronized int[] getBlockStarts() {
+        return blockStarts;
+    }
+
+    public static boolean isPlaceholder(String fragment) {
+        return fragment.startsWith(PLACEHOLDER_PREFIX);
+    }
+
+    private List<Block> renderAll(CharSequence markdown) {
+        List<Block> result = new ArrayList<>();
+        int pos = 0;
+        int rendered = 0;
+        while (pos < markdown.length()) {
+            int end = MarkdownBlockSplitter.blockEnd(markdown, pos);
+            Block block = createBlock(markdown, pos, end, result.size());
+            if (block.html != null) {
+                rendered++;
+            }
+            result.add(block);
+            pos = end;
+        }
+        lastRenderedBlocks = rendered;
+        return result;
+    }
+
+    private List<Block> renderIncremental(CharSequence markdown, DirtyRegion region) {
+        int delta = region.delta();
+        int first = Math.max(0, blockIndexAt(region.start()) - 1);
+        int oldDirtyEnd = region.end() - delta;
+
+        List<Block> result = new ArrayList<>(blocks.size() + 4);
+        for (int i = 0; i < first; i++) {
+            result.add(blocks.get(i));
+        }
+
+        int rendered = 0;
+        int pos = blocks.get(first).start;
+        int oldIndex = first;
+        while (pos < markdown.length()) {
+            int end = MarkdownBlockSplitter.blockEnd(markdown, pos);
+            Block old = oldIndex < blocks.size() ? blocks.get(oldIndex) : null;
+            if (old != null && old.start == pos && old.end == end && end <= region.start()) {
+                // Untouched block in front of the edit
+                result.add(old);
+            } else {
+                Block block = createBlock(markdown, pos, end, result.size());
+                if (block.html != null) {
+                    rendered++;
+                }
+                result.add(block);
+            }
+            pos = end;
+            if (pos >= region.end() && pos - delta >= oldDirtyEnd) {
+                int resume = blockIndexStartingAt(pos - delta, oldIndex);
+                if (resume >= 0) {
+                    for (int i = resume; i < blocks.size(); i++) {
+                        result.add(blocks.get(i).shift(delta));
+                    }
+                    break;
+                }
+            }
+            while (oldIndex < blocks.size() && blocks.get(oldIndex).end <= pos) {
+                oldIndex++;
+            }
+        }
+        lastRenderedBlocks = rendered;
+        return result;
+    }
+
+    private Block createBlock(CharSequence markdown, int start, int end, int index) {
+        String html = window == null || window.contains(index) ? renderService.renderPreviewBlock(markdown, start, end) : null;
+        int lines = estimateLines(markdown, start, end);
+        // A large table is shown as a table of a fixed height with its own scroll bar
+        if (renderService.getLargeTableRows() > 0 && lines > renderService.getLargeTableRows()
+                && MarkdownBlockSplitter.startsTable(markdown, start, end)) {
+            lines = Math.min(lines, LargeTablePane.VISIBLE_ROWS + 4);
+        }
+        return new Block(start, end, html, MarkdownBlockSplitter.definesReferences(markdown, start, end), lines);
+    }
+
+    /**
+     * Renders the blocks inside the window that are still placeholders, e.g. because they just scrolled into it.
+     */
+    private int renderWindow(CharSequence markdown) {
+        int from = window == null ? 0 : Math.max(0, window.firstBlock());
+        int to = window == null ? blocks.size() - 1 : Math.min(blocks.size() - 1, window.lastBlock());
+        int rendered = 0;
+        for (int i = from; i <= to; i++) {
+            Block block = blocks.get(i);
+            if (block.html == null) {
+                blocks.set(i, block.withHtml(renderService.renderPreviewBlock(markdown, block.start, block.end)));
+                rendered++;
+            }
+        }
+        return rendered;
+    }
+
+    private String placeholder(Block block) {
+        int height = Math.max(1, block.estimatedLines) * window.lineHeight();
+        if (placeholders.size() > 4096) {
+            placeholders.clear();
+        }
+        return placeholders.computeIfAbsent(height, h -> PLACEHOLDER_PREFIX + h + "px\">&nbsp;</div>");
+    }
+
+    /**
+     * Estimates the rendered lines of a block from its source lines, counting long lines as wrapped.
+     */
+    private static int estimateLines(CharSequence markdown, int start, int end) {
+        int lines = 1;
+        int column = 0;
+        for (int i = start; i < end; i++) {
+            if (markdown.charAt(i) == '\n' || ++column == ESTIMATED_LINE_CHARACTERS) {
+                lines++;
+                column = 0;
+            }
+        }
+        return lines;
+    }
+
+    private int blockIndexAt(int offset) {
+        int low = 0;
+        int high = blocks.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (blocks.get(mid).start <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private int blockIndexStartingAt(int offset, int from) {
+        int index = blockIndexAt(offset);
+        return index >= from && blocks.get(index).start == offset ? index : -1;
+    }
+
+    private String stitch(CharSequence markdown, List<Block> blocks) {
+        StringBuilder html = new StringBuilder(markdown.length() + (markdown.length() >> 2));
+        for (Block block : blocks) {
+            html.append(renderService.renderBlock(markdown, block.start, block.end));
+        }
+        return html.toString();
+    }
+
+    private static int firstDifference(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return i;
+            }
+        }
+        return length;
+    }
+}
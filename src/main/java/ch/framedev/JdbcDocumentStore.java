@@ -0,0 +1,386 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 21:25
+ */
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * The {@link IDatabase} document store on top of a {@link ConnectionPool}, shared by the MySQL and the
+ * SQLite backend, which only supply the SQL that differs between them. {@code md_documents} points to
+ * the latest revision of every document and {@code md_revisions} holds the revisions. A save inserts
+ * the revision and moves the pointer in one transaction. Transactions left open by an error are rolled
+ * back when the connection returns to the pool.
+ * <p>
+ * A revision is stored as a compressed snapshot or as a {@link RevisionDelta} against the previous
+ * revision. Every row names the snapshot its chain starts from, and a new snapshot is taken after
+ * {@code snapshotInterval} revisions or once the deltas of the chain are larger than its snapshot, so
+ * rebuilding any revision reads at most {@code snapshotInterval} rows and twice the snapshot size.
+ */
+@SuppressWarnings("unused")
+public abstract class JdbcDocumentStore implements IDatabase {
+
+    private static final String SELECT_HEAD = "SELECT r.revision, r.base, r.chain_bytes, LENGTH(s.data) FROM md_documents d "
+            + "JOIN md_revisions r ON r.name = d.name AND r.revision = d.revision "
+            + "JOIN md_revisions s ON s.name = r.name AND s.revision = r.base WHERE d.name = ?";
+    private static final String INSERT_REVISION = "INSERT INTO md_revisions "
+            + "(name, revision, modified, size, base, chain_bytes, data) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_LATEST_REVISION = "SELECT revision FROM md_documents WHERE name = ?";
+    private static final String SELECT_CHAIN = "SELECT revision, modified, base, data FROM md_revisions "
+            + "WHERE name = ? AND revision <= ? AND revision >= (SELECT base FROM md_revisions WHERE name = ? AND revision = ?) "
+            + "ORDER BY revision";
+    private static final String SELECT_DOCUMENTS = "SELECT d.name, d.revision, d.modified, r.size FROM md_documents d "
+            + "JOIN md_revisions r ON r.name = d.name AND r.revision = d.revision ORDER BY d.name";
+    private static final String SELECT_REVISIONS =
+            "SELECT revision, modified, size, base, LENGTH(data) FROM md_revisions WHERE name = ? ORDER BY revision";
+    private static final String DELETE_REVISIONS = "DELETE FROM md_revisions WHERE name = ?";
+    private static final String DELETE_DOCUMENT = "DELETE FROM md_documents WHERE name = ?";
+
+    /**
+     * The latest revisions that were saved or loaded, so the next save does not have to rebuild the
+     * revision it makes its delta against. Revisions never change, so an entry is valid as long as its
+     * revision number matches.
+     */
+    private static final int RECENT_DOCUMENTS = 4;
+
+    private final ConnectionPool pool;
+    private final int snapshotInterval;
+    private final Map<String, StoredDocument> recent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StoredDocument> eldest) {
+            return size() > RECENT_DOCUMENTS;
+        }
+    };
+    private volatile boolean schemaCreated;
+
+    /**
+     * @param snapshotInterval the maximum number of revisions from one snapshot to the next, {@code 1}
+     *                         stores every revision as a snapshot
+     */
+    protected JdbcDocumentStore(ConnectionPool pool, int snapshotInterval) {
+        this.pool = pool;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+    }
+
+    /**
+     * The column type for the compressed data of a revision, large enough for any document.
+     */
+    protected abstract String blobType();
+
+    /**
+     * Appended to the {@code CREATE TABLE} statements.
+     */
+    protected abstract String tableOptions();
+
+    /**
+     * Inserts or updates the row of {@code md_documents} with the parameters name, revision and modified.
+     */
+    protected abstract String upsertDocument();
+
+    /**
+     * Appended to the query for the latest revision when saving, to lock the rows until the transaction ends.
+     */
+    protected abstract String lockForUpdate();
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    public int getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    @Override
+    public int save(String name, String content) throws SQLException {
+        return saveAll(Map.of(name, content)).get(name);
+    }
+
+    @Override
+    public Map<String, Integer> saveAll(Map<String, String> documents) throws SQLException {
+        Map<String, Integer> revisions = new LinkedHashMap<>();
+        if (documents.isEmpty()) {
+            return revisions;
+        }
+        try (ConnectionPool.Lease lease = borrow()) {
+            Connection connection = lease.connection();
+            connection.setAutoCommit(false);
+            try {
+                long modified = System.currentTimeMillis();
+                List<StoredDocument> saved = new ArrayList<>();
+                PreparedStatement insert = lease.prepare(INSERT_REVISION);
+                PreparedStatement upsert = lease.prepare(upsertDocument());
+                for (Map.Entry<String, String> document : documents.entrySet()) {
+                    String name = document.getKey();
+                    String content = document.getValue();
+                    int revision = 1;
+                    int base = 1;
+                    int chainBytes = 0;
+                    byte[] data = null;
+                    PreparedStatement head = lease.prepare(SELECT_HEAD + lockForUpdate());
+                    head.setString(1, name);
+                    try (ResultSet result = head.executeQuery()) {
+                        if (result.next()) {
+                            revision = result.getInt(1) + 1;
+                            base = result.getInt(2);
+                            chainBytes = result.getInt(3);
+                            int snapshotBytes = result.getInt(4);
+                            if (revision - base < snapshotInterval) {
+                                int previousRevision = revision - 1;
+                                String previous = rebuild(lease, name, previousRevision)
+                                        .orElseThrow(() -> new SQLDataException("Revision " + previousRevision + " of " + name + " is missing"))
+                                        .content();
+                                data = RevisionDelta.encode(previous, content);
+                                chainBytes += data.length;
+                                if (chainBytes > snapshotBytes) {
+                                    data = null;
+                                }
+                            }
+                        }
+                    }
+                    if (data == null) {
+                        data = RevisionDelta.snapshot(content);
+                        base = revision;
+                        chainBytes = 0;
+                    }
+                    insert.setString(1, name);
+                    insert.setInt(2, revision);
+                    insert.setLong(3, modified);
+                    insert.setInt(4, content.length());
+                    insert.setInt(5, base);
+                    insert.setInt(6, chainBytes);
+                    insert.setBytes(7, data);
+                    insert.addBatch();
+                    upsert.setString(1, name);
+                    upsert.setInt(2, revision);
+                    upsert.setLong(3, modified);
+                    upsert.addBatch();
+                    revisions.put(name, revision);
+                    saved.add(new StoredDocument(name, revision, modified, content));
+                }
+                insert.executeBatch();
+                upsert.executeBatch();
+                connection.commit();
+                saved.forEach(this::remember);
+                return revisions;
+            } catch (SQLException ex) {
+                rollback(lease, ex);
+                throw ex;
+            }
+        }
+    }
+
+    @Override
+    public Optional<StoredDocument> load(String name) throws SQLException {
+        try (ConnectionPool.Lease lease = borrow()) {
+            try {
+                PreparedStatement select = lease.prepare(SELECT_LATEST_REVISION);
+                select.setString(1, name);
+                int revision;
+                try (ResultSet result = select.executeQuery()) {
+                    if (!result.next()) {
+                        return Optional.empty();
+                    }
+                    revision = result.getInt(1);
+                }
+                return rebuild(lease, name, revision);
+            } catch (SQLException ex) {
+                discardIfBroken(lease, ex);
+                throw ex;
+            }
+        }
+    }
+
+    @Override
+    public Optional<StoredDocument> loadRevision(String name, int revision) throws SQLException {
+        try (ConnectionPool.Lease lease = borrow()) {
+            try {
+                return rebuild(lease, name, revision);
+            } catch (SQLException ex) {
+                discardIfBroken(lease, ex);
+                throw ex;
+            }
+        }
+    }
+
+    @Override
+    public List<DocumentInfo> list() throws SQLException {
+        try (ConnectionPool.Lease lease = borrow()) {
+            List<DocumentInfo> documents = new ArrayList<>();
+            try (ResultSet result = lease.prepare(SELECT_DOCUMENTS).executeQuery()) {
+                while (result.next()) {
+                    documents.add(new DocumentInfo(result.getString(1), result.getInt(2), result.getLong(3), result.getInt(4)));
+                }
+            } catch (SQLException ex) {
+                discardIfBroken(lease, ex);
+                throw ex;
+            }
+            return documents;
+        }
+    }
+
+    @Override
+    public List<Revision> revisions(String name) throws SQLException {
+        try (ConnectionPool.Lease lease = borrow()) {
+            List<Revision> revisions = new ArrayList<>();
+            try {
+                PreparedStatement select = lease.prepare(SELECT_REVISIONS);
+                select.setString(1, name);
+                try (ResultSet result = select.executeQuery()) {
+                    while (result.next()) {
+                        int revision = result.getInt(1);
+                        revisions.add(new Revision(revision, result.getLong(2), result.getInt(3),
+                                result.getInt(4) == revision, result.getInt(5)));
+                    }
+                }
+            } catch (SQLException ex) {
+                discardIfBroken(lease, ex);
+                throw ex;
+            }
+            return revisions;
+        }
+    }
+
+    @Override
+    public boolean delete(String name) throws SQLException {
+        try (ConnectionPool.Lease lease = borrow()) {
+            Connection connection = lease.connection();
+            connection.setAutoCommit(false);
+            try {
+                PreparedStatement deleteRevisions = lease.prepare(DELETE_REVISIONS);
+                deleteRevisions.setString(1, name);
+                deleteRevisions.executeUpdate();
+                PreparedStatement deleteDocument = lease.prepare(DELETE_DOCUMENT);
+                deleteDocument.setString(1, name);
+                boolean deleted = deleteDocument.executeUpdate() > 0;
+                connection.commit();
+                synchronized (recent) {
+                    recent.remove(name);
+                }
+                return deleted;
+            } catch (SQLException ex) {
+                rollback(lease, ex);
+                throw ex;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    /**
+     * Rebuilds a revision from the snapshot its chain starts with and the deltas up to it.
+     */
+    private Optional<StoredDocument> rebuild(ConnectionPool.Lease lease, String name, int revision) throws SQLException {
+        synchronized (recent) {
+            StoredDocument cached = recent.get(name);
+            if (cached != null && cached.revision() == revision) {
+                return Optional.of(cached);
+            }
+        }
+        PreparedStatement select = lease.prepare(SELECT_CHAIN);
+        select.setString(1, name);
+        select.setInt(2, revision);
+        select.setString(3, name);
+        select.setInt(4, revision);
+        String text = null;
+        long modified = 0;
+        int last = 0;
+        try (ResultSet result = select.executeQuery()) {
+            while (result.next()) {
+                last = result.getInt(1);
+                modified = result.getLong(2);
+                byte[] data = result.getBytes(4);
+                if (text == null && result.getInt(3) != last) {
+                    throw new SQLDataException("The snapshot of revision " + revision + " of " + name + " is missing");
+                }
+                text = text == null ? RevisionDelta.readSnapshot(data) : RevisionDelta.apply(text, data);
+            }
+        } catch (IOException ex) {
+            throw new SQLDataException("Revision " + revision + " of " + name + " is corrupt", ex);
+        }
+        if (text == null) {
+            return Optional.empty();
+        }
+        if (last != revision) {
+            throw new SQLDataException("Revision " + revision + " of " + name + " is incomplete");
+        }
+        StoredDocument document = new StoredDocument(name, revision, modified, text);
+        remember(document);
+        return Optional.of(document);
+    }
+
+    /**
+     * Keeps the newest revision of the document seen so far.
+     */
+    private void remember(StoredDocument document) {
+        synchronized (recent) {
+            StoredDocument cached = recent.get(document.name());
+            if (cached == null || cached.revision() <= document.revision()) {
+                recent.put(document.name(), document);
+            }
+        }
+    }
+
+    /**
+     * Borrows a connection and creates the tables if this is the first one.
+     */
+    private ConnectionPool.Lease borrow() throws SQLException {
+        ConnectionPool.Lease lease = pool.borrow();
+        if (!schemaCreated) {
+            try {
+                createSchema(lease);
+            } catch (SQLException ex) {
+                discardIfBroken(lease, ex);
+                lease.close();
+                throw ex;
+            }
+        }
+        return lease;
+    }
+
+    private synchronized void createSchema(ConnectionPool.Lease lease) throws SQLException {
+        if (schemaCreated) {
+            return;
+        }
+        try (Statement statement = lease.connection().createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS md_documents (name VARCHAR(255) NOT NULL PRIMARY KEY, "
+                    + "revision INTEGER NOT NULL, modified BIGINT NOT NULL)" + tableOptions());
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS md_revisions (name VARCHAR(255) NOT NULL, "
+                    + "revision INTEGER NOT NULL, modified BIGINT NOT NULL, size INTEGER NOT NULL, base INTEGER NOT NULL, "
+                    + "chain_bytes INTEGER NOT NULL, data " + blobType() + " NOT NULL, PRIMARY KEY (name, revision))"
+                    + tableOptions());
+        }
+        schemaCreated = true;
+    }
+
+    private static void rollback(ConnectionPool.Lease lease, SQLException cause) {
+        discardIfBroken(lease, cause);
+        try {
+            lease.connection().rollback();
+        } catch (SQLException ex) {
+            cause.addSuppressed(ex);
+            lease.discard();
+        }
+    }
+
+    /**
+     * Connection errors have the SQL state class {@code 08}, the connection is not returned to the pool after them.
+     */
+    private static void discardIfBroken(ConnectionPool.Lease lease, SQLException ex) {
+        if (ex instanceof SQLNonTransientConnectionException || (ex.getSQLState() != null && ex.getSQLState().startsWith("08"))) {
+            lease.discard();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 14:02
+ */
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A precompiled tokenizer grammar for one language. All token rules are combined into a single
+ * alternation, so a code block is tokenized in one left-to-right pass. Identifiers are classified
+ * afterwards with set lookups instead of keyword regexes.
+ */
+@SuppressWarnings("unused")
+public final class LanguageGrammar {
+
+    public enum TokenType {
+        COMMENT("comment"),
+        STRING("string"),
+        NUMBER("number"),
+        KEYWORD("keyword"),
+        LITERAL("literal"),
+        TYPE("type"),
+        PROPERTY("property"),
+        VARIABLE("variable"),
+        IDENTIFIER(null);
+
+        private final String cssClass;
+
+        TokenType(String cssClass) {
+            this.cssClass = cssClass;
+        }
+
+        public String getCssClass() {
+            return cssClass;
+        }
+    }
+
+    public interface TokenSink {
+        void token(TokenType type, int start, int end);
+    }
+
+    private final String name;
+    private final Pattern pattern;
+    private final TokenType[] groupTypes;
+    private final Set<String> keywords;
+    private final Set<String> literals;
+    private final boolean caseInsensitiveKeywords;
+    private final boolean capitalizedTypes;
+
+    private LanguageGrammar(Builder builder) {
+        this.name = builder.name;
+        StringBuilder combined = new StringBuilder();
+        for (int i = 0; i < builder.rules.size(); i++) {
+            if (i > 0) {
+                combined.append('|');
+            }
+            combined.append('(').append(builder.rules.get(i)).append(')');
+        }
+        this.pattern = Pattern.compile(combined.toString(), Pattern.MULTILINE);
+        this.groupTypes = builder.types.toArray(new TokenType[0]);
+        this.keywords = Set.copyOf(builder.keywords);
+        this.literals = Set.copyOf(builder.literals);
+        this.caseInsensitiveKeywords = builder.caseInsensitiveKeywords;
+        this.capitalizedTypes = builder.capitalizedTypes;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Reports every token of {@code code} in order. Text between tokens is not reported.
+     */
+    public void tokenize(CharSequence code, TokenSink sink) {
+        Matcher matcher = pattern.matcher(code);
+        while (matcher.find()) {
+            if (matcher.end() == matcher.start()) {
+                continue;
+            }
+            TokenType type = matchedType(matcher);
+            if (type == TokenType.IDENTIFIER) {
+                type = classify(code.subSequence(matcher.start(), matcher.end()).toString());
+                if (type == null) {
+                    continue;
+                }
+            }
+            sink.token(type, matcher.start(), matcher.end());
+        }
+    }
+
+    private TokenType matchedType(Matcher matcher) {
+        for (int group = 1; group <= groupTypes.length; group++) {
+            if (matcher.start(group) >= 0) {
+                return groupTypes[group - 1];
+            }
+        }
+        return TokenType.IDENTIFIER;
+    }
+
+    private TokenType classify(String word) {
+        String lookup = caseInsensitiveKeywords ? word.toLowerCase(Locale.ROOT) : word;
+        if (keywords.contains(lookup)) {
+            return TokenType.KEYWORD;
+        }
+        if (literals.contains(lookup)) {
+            return TokenType.LITERAL;
+        }
+        if (capitalizedTypes && Character.isUpperCase(word.charAt(0))) {
+            return TokenType.TYPE;
+        }
+        return null;
+    }
+
+    public static final class Builder {
+        private final String name;
+        private final List<String> rules = new ArrayList<>();
+        private final List<TokenType> types = new ArrayList<>();
+        private final Set<String> keywords = new HashSet<>();
+        private final Set<String> literals = new HashSet<>();
+        private boolean caseInsensitiveKeywords;
+        private boolean capitalizedTypes;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Adds a token rule. Rules are tried in the order they were added and must only use non-capturing groups.
+         */
+        public Builder rule(TokenType type, String regex) {
+            rules.add(regex);
+            types.add(type);
+            return this;
+        }
+
+        public Builder keywords(String... words) {
+            keywords.addAll(Arrays.asList(words));
+            return this;
+        }
+
+        public Builder literals(String... words) {
+            literals.addAll(Arrays.asList(words));
+            return this;
+        }
+
+        public Builder caseInsensitiveKeywords() {
+            this.caseInsensitiveKeywords = true;
+            return this;
+        }
+
+        public Builder capitalizedTypes() {
+            this.capitalizedTypes = true;
+            return this;
+        }
+
+        public LanguageGrammar build() {
+            return new LanguageGrammar(this);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 18:40
+ */
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Loads a file into a {@link Document} without blocking the EDT. The file is memory-mapped window by
+ * window, decoded incrementally as UTF-8 on the worker thread, and appended to the document in chunks,
+ * so the text appears progressively and only one chunk is on the heap besides the document itself.
+ * Progress is reported through {@link #getProgress()} in percent of the file size.
+ */
+@SuppressWarnings("unused")
+public class LargeFileLoader extends SwingWorker<Long, Void> {
+
+    /**
+     * Bytes mapped at once. A window is unmapped by the GC once the next one is in use.
+     */
+    private static final long MAP_WINDOW_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Upper bound for the growing chunk size, which bounds how long a single insert blocks the EDT.
+     */
+    private static final int MAX_CHUNK_CHARACTERS = 2 * 1024 * 1024;
+
+    private final Path file;
+    private final Document document;
+    private final int chunkCharacters;
+    private final Runnable onLoaded;
+    private final Consumer<Exception> onFailed;
+
+    /**
+     * @param onLoaded called on the EDT once the whole file is in the document
+     * @param onFailed called on the EDT if reading fails, or with a {@link CancellationException} if
+     *                 the load was cancelled
+     */
+    public LargeFileLoader(Path file, Document document, int chunkCharacters, Runnable onLoaded,
+                           Consumer<Exception> onFailed) {
+        this.file = file;
+        this.document = document;
+        this.chunkCharacters = Math.max(1024, chunkCharacters);
+        this.onLoaded = onLoaded;
+        this.onFailed = onFailed;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of characters appended to the document
+     */
+    @Override
+    protected Long doInBackground() throws IOException, InterruptedException {
+        try (PerformanceMetrics.Sample sample = PerformanceMetrics.start(PerformanceMetrics.Stage.FILE_LOAD)) {
+            return load();
+        }
+    }
+
+    private long load() throws IOException, InterruptedException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(chunkCharacters);
+        long appended = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size && !isCancelled()) {
+                long length = Math.min(MAP_WINDOW_BYTES, size - position);
+                boolean lastWindow = position + length == size;
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (position == 0) {
+                    skipByteOrderMark(bytes);
+                }
+                // A multi-byte sequence cut by the window end stays in the buffer and is mapped again
+                CoderResult result;
+                while ((result = decoder.decode(bytes, chars, lastWindow)).isOverflow() && !isCancelled()) {
+                    appended += append(chars);
+                    setProgress((int) ((position + bytes.position()) * 100 / size));
+                    // Every insert updates the document's line elements, so fewer, larger chunks are much
+                    // cheaper. The first chunks stay small so the text shows up right away.
+                    int capacity = (int) Math.min(MAX_CHUNK_CHARACTERS, Math.max(chunkCharacters, appended / 4));
+                    if (capacity > chars.capacity()) {
+                        chars = CharBuffer.allocate(capacity);
+                    }
+                }
+                if (result.isError()) {
+                    result.throwException();
+                }
+                position += bytes.position();
+                setProgress((int) (position * 100 / size));
+            }
+            if (!isCancelled()) {
+                while (decoder.flush(chars).isOverflow()) {
+                    appended += append(chars);
+                }
+                appended += append(chars);
+            }
+        }
+        return appended;
+    }
+
+    @Override
+    protected void done() {
+        try {
+            get();
+            onLoaded.run();
+        } catch (CancellationException ex) {
+            onFailed.accept(ex);
+        } catch (ExecutionException ex) {
+            onFailed.accept(ex.getCause() instanceof Exception cause ? cause : ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Appends the decoded characters on the EDT and waits for it, so at most one chunk is in flight and
+     * {@link #done()} only runs after the last chunk is in the document.
+     */
+    private int append(CharBuffer chars) throws InterruptedException {
+        chars.flip();
+        int length = chars.length();
+        if (length > 0) {
+            String chunk = chars.toString();
+            try {
+                SwingUtilities.invokeAndWait(() -> {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    try {
+                        document.insertString(document.getLength(), chunk, null);
+                    } catch (BadLocationException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                });
+            } catch (InvocationTargetException ex) {
+                throw new IllegalStateException("Failed to append to the document", ex.getCause());
+            }
+        }
+        chars.clear();
+        return length;
+    }
+
+    private static void skipByteOrderMark(MappedByteBuffer bytes) {
+        if (bytes.remaining() >= 3 && (bytes.get(0) & 0xff) == 0xEF && (bytes.get(1) & 0xff) == 0xBB
+                && (bytes.get(2) & 0xff) == 0xBF) {
+            bytes.position(3);
+        }
+    }
+}
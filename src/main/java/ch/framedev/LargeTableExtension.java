@@ -0,0 +1,104 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 18.10.2026 00:35
+ */
+
+import com.vladsch.flexmark.ext.tables.TableBlock;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html.HtmlWriter;
+import com.vladsch.flexmark.html.renderer.NodeRenderer;
+import com.vladsch.flexmark.html.renderer.NodeRendererContext;
+import com.vladsch.flexmark.html.renderer.NodeRenderingHandler;
+import com.vladsch.flexmark.util.data.MutableDataHolder;
+
+import java.util.Set;
+
+/**
+ * flexmark extension for the preview that renders a {@link TableBlock} with at least {@code minRows}
+ * body rows as a {@link LargeTablePane} instead of an HTML table, which the preview would lay out
+ * cell by cell. The table is copied into a {@link LargeTableModel}, registered under an id made of
+ * its content hash, so rendering the same table again gives the same HTML. Smaller tables are left to
+ * the default renderer, and the export does not use this extension at all.
+ */
+public class LargeTableExtension implements HtmlRenderer.HtmlRendererExtension {
+
+    /**
+     * Attribute of the {@code <div>} around a large table, holding the id of its model.
+     */
+    static final String TABLE_ID_ATTRIBUTE = "data-table";
+
+    private final int minRows;
+
+    private LargeTableExtension(int minRows) {
+        this.minRows = minRows;
+    }
+
+    public static LargeTableExtension create(int minRows) {
+        return new LargeTableExtension(minRows);
+    }
+
+    /**
+     * Whether the HTML shows a large table whose model is not registered anymore, so it has to be
+     * rendered again instead of being taken from a cache.
+     */
+    static boolean hasMissingTable(String html) {
+        String prefix = TABLE_ID_ATTRIBUTE + "=\"";
+        for (int i = html.indexOf(prefix); i >= 0; i = html.indexOf(prefix, i + 1)) {
+            int start = i + prefix.length();
+            int end = html.indexOf('"', start);
+            if (end > start && !LargeTableModel.isRegistered(html.substring(start, end))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void rendererOptions(MutableDataHolder options) {
+    }
+
+    @Override
+    public void extend(HtmlRenderer.Builder builder, String rendererType) {
+        if ("HTML".equals(rendererType)) {
+            builder.nodeRendererFactory(options -> new TableRenderer());
+        }
+    }
+
+    private class TableRenderer implements NodeRenderer {
+
+        @Override
+        public Set<NodeRenderingHandler<?>> getNodeRenderingHandlers() {
+            return Set.of(new NodeRenderingHandler<>(TableBlock.class, this::render));
+        }
+
+        private void render(TableBlock node, NodeRendererContext context, HtmlWriter html) {
+            int rows = LargeTableModel.countRows(node);
+            if (rows < minRows) {
+                context.delegateRender();
+                return;
+            }
+            CharSequence source = node.getChars();
+            String id = Long.toHexString(HtmlFragmentCache.contentHash(source, 0, source.length()))
+                    + "-" + Integer.toHexString(source.length());
+            if (LargeTableModel.lookup(id) == null) {
+                LargeTableModel.register(id, LargeTableModel.fromTableBlock(node));
+            }
+            html.line();
+            // Carries the source position for the preview, like the default renderer does
+            html.attr("class", "large-table").attr(TABLE_ID_ATTRIBUTE, id).srcPos(node.getChars()).withAttr().tag("div");
+            html.raw("<p class=\"large-table-info\">" + String.format("%,d", rows) + " rows</p>");
+            html.raw("<object classid=\"" + LargeTablePane.class.getName() + "\"><param name=\"tableId\" value=\""
+                    + id + "\"></object>");
+            html.tag("/div");
+            html.line();
+        }
+    }
+}
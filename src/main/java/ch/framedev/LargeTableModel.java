@@ -0,0 +1,229 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 18.10.2026 00:15
+ */
+
+import com.vladsch.flexmark.ext.tables.TableBlock;
+import com.vladsch.flexmark.ext.tables.TableBody;
+import com.vladsch.flexmark.ext.tables.TableCell;
+import com.vladsch.flexmark.ext.tables.TableHead;
+import com.vladsch.flexmark.ext.tables.TableRow;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.ast.TextCollectingVisitor;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A read-only table stored by column: the text of all cells of a column is one string, and an
+ * {@code int} per cell marks where it ends, so a table of 50,000 rows costs about its plain text plus
+ * four bytes per cell instead of one object per cell. Cells are the plain text of their inline Markdown.
+ * <p>
+ * The preview refers to tables by an id in its HTML, see {@link LargeTableExtension}, and finds them
+ * with {@link #lookup(String)}. Registered tables are kept up to {@link #setMaxRegisteredBytes(long)},
+ * {@code preview.largeTableCacheMegabytes} in the editor, the least recently used are dropped first.
+ */
+@SuppressWarnings("unused")
+public final class LargeTableModel extends AbstractTableModel {
+
+    private static final LinkedHashMap<String, LargeTableModel> registry = new LinkedHashMap<>(16, 0.75f, true);
+    private static long registeredBytes;
+    private static long maxRegisteredBytes = 64L * 1024 * 1024;
+
+    private final String[] headers;
+    // SwingConstants.LEFT, CENTER or RIGHT
+    private final int[] alignments;
+    private final String[] columnText;
+    private final int[][] cellEnds;
+    private final int rowCount;
+
+    private LargeTableModel(String[] headers, int[] alignments, String[] columnText, int[][] cellEnds, int rowCount) {
+        this.headers = headers;
+        this.alignments = alignments;
+        this.columnText = columnText;
+        this.cellEnds = cellEnds;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Counts the body rows of the table without looking at their cells.
+     */
+    public static int countRows(TableBlock table) {
+        int rows = 0;
+        for (Node section = table.getFirstChild(); section != null; section = section.getNext()) {
+            if (section instanceof TableBody) {
+                for (Node row = section.getFirstChild(); row != null; row = row.getNext()) {
+                    if (row instanceof TableRow) {
+                        rows++;
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Copies the table out of the flexmark AST. The columns are those of the header row, like GFM
+     * ignores the cells of longer rows and fills shorter rows with empty cells.
+     */
+    public static LargeTableModel fromTableBlock(TableBlock table) {
+        TextCollectingVisitor text = new TextCollectingVisitor();
+        TableRow headerRow = null;
+        for (Node section = table.getFirstChild(); section != null && headerRow == null; section = section.getNext()) {
+            if (section instanceof TableHead && section.getFirstChild() instanceof TableRow row) {
+                headerRow = row;
+            }
+        }
+        int columns = 0;
+        for (Node cell = headerRow == null ? null : headerRow.getFirstChild(); cell != null; cell = cell.getNext()) {
+            if (cell instanceof TableCell) {
+                columns++;
+            }
+        }
+        String[] headers = new String[columns];
+        int[] alignments = new int[columns];
+        int column = 0;
+        for (Node cell = headerRow == null ? null : headerRow.getFirstChild(); cell != null; cell = cell.getNext()) {
+            if (cell instanceof TableCell tableCell) {
+                headers[column] = text.collectAndGetText(tableCell);
+                alignments[column] = alignment(tableCell);
+                column++;
+            }
+        }
+
+        int rows = countRows(table);
+        StringBuilder[] columnText = new StringBuilder[columns];
+        int[][] cellEnds = new int[columns][rows];
+        for (int i = 0; i < columns; i++) {
+            columnText[i] = new StringBuilder();
+        }
+        int row = 0;
+        for (Node section = table.getFirstChild(); section != null; section = section.getNext()) {
+            if (!(section instanceof TableBody)) {
+                continue;
+            }
+            for (Node tableRow = section.getFirstChild(); tableRow != null; tableRow = tableRow.getNext()) {
+                if (!(tableRow instanceof TableRow)) {
+                    continue;
+                }
+                column = 0;
+                for (Node cell = tableRow.getFirstChild(); cell != null && column < columns; cell = cell.getNext()) {
+                    if (cell instanceof TableCell tableCell) {
+                        columnText[column].append(text.collectAndGetText(tableCell));
+                        cellEnds[column][row] = columnText[column].length();
+                        column++;
+                    }
+                }
+                for (; column < columns; column++) {
+                    cellEnds[column][row] = columnText[column].length();
+                }
+                row++;
+            }
+        }
+        String[] texts = new String[columns];
+        for (int i = 0; i < columns; i++) {
+            texts[i] = columnText[i].toString();
+        }
+        return new LargeTableModel(headers, alignments, texts, cellEnds, rows);
+    }
+
+    private static int alignment(TableCell cell) {
+        if (cell.getAlignment() == null) {
+            return SwingConstants.LEFT;
+        }
+        return switch (cell.getAlignment().name()) {
+            case "CENTER" -> SwingConstants.CENTER;
+            case "RIGHT" -> SwingConstants.RIGHT;
+            default -> SwingConstants.LEFT;
+        };
+    }
+
+    /**
+     * Makes the table available to {@link #lookup(String)} under {@code id}, which should identify its content.
+     */
+    public static void register(String id, LargeTableModel model) {
+        synchronized (registry) {
+            LargeTableModel previous = registry.put(id, model);
+            if (previous != null) {
+                registeredBytes -= previous.getWeightBytes();
+            }
+            registeredBytes += model.getWeightBytes();
+            Iterator<LargeTableModel> eldest = registry.values().iterator();
+            // The table just registered stays, even if it is larger than the limit on its own
+            while (registeredBytes > maxRegisteredBytes && registry.size() > 1) {
+                registeredBytes -= eldest.next().getWeightBytes();
+                eldest.remove();
+            }
+        }
+    }
+
+    public static void setMaxRegisteredBytes(long maxBytes) {
+        synchronized (registry) {
+            maxRegisteredBytes = maxBytes;
+        }
+    }
+
+    /**
+     * Returns the registered table, or {@code null} if it was never registered or dropped since.
+     */
+    public static LargeTableModel lookup(String id) {
+        synchronized (registry) {
+            return registry.get(id);
+        }
+    }
+
+    public static boolean isRegistered(String id) {
+        synchronized (registry) {
+            return registry.containsKey(id);
+        }
+    }
+
+    /**
+     * The approximate heap size of the table, assuming one byte per character.
+     */
+    public long getWeightBytes() {
+        long bytes = 0;
+        for (int column = 0; column < headers.length; column++) {
+            bytes += columnText[column].length() + 4L * rowCount + headers[column].length();
+        }
+        return bytes;
+    }
+
+    /**
+     * One of {@link SwingConstants#LEFT}, {@link SwingConstants#CENTER} or {@link SwingConstants#RIGHT}.
+     */
+    public int getAlignment(int column) {
+        return alignments[column];
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return headers.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return headers[column];
+    }
+
+    @Override
+    public String getValueAt(int row, int column) {
+        int start = row == 0 ? 0 : cellEnds[column][row - 1];
+        return columnText[column].substring(start, cellEnds[column][row]);
+    }
+}
@@ -0,0 +1,176 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 18.10.2026 00:25
+ */
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.Document;
+import javax.swing.text.html.HTMLDocument;
+import javax.swing.text.html.StyleSheet;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.HierarchyEvent;
+
+/**
+ * Shows a {@link LargeTableModel} inside the preview as a {@link JTable} with its own scroll bar, so
+ * only the rows in sight are laid out and painted. The preview's {@code <object>} element creates it
+ * through {@link javax.swing.text.html.ObjectView} and sets {@link #setTableId(String)} from its
+ * {@code <param>}. It is as wide as the preview and {@link #VISIBLE_ROWS} rows high, and takes its
+ * colors and font from the theme of the preview.
+ */
+@SuppressWarnings("unused")
+public class LargeTablePane extends JScrollPane {
+
+    public static final int VISIBLE_ROWS = 20;
+
+    private final JTable table = new JTable();
+    private String tableId;
+    private JEditorPane host;
+    private Document hostDocument;
+
+    private final ComponentAdapter hostResized = new ComponentAdapter() {
+        @Override
+        public void componentResized(ComponentEvent e) {
+            // The view of the <object> asks for the preferred size again
+            invalidate();
+            revalidate();
+        }
+    };
+
+    // The theme changes by an attribute change over the whole preview, see PreviewPatcher#setStyleSheet
+    private final DocumentListener themeListener = new DocumentListener() {
+        public void insertUpdate(DocumentEvent e) {
+        }
+
+        public void removeUpdate(DocumentEvent e) {
+        }
+
+        public void changedUpdate(DocumentEvent e) {
+            applyTheme();
+        }
+    };
+
+    public LargeTablePane() {
+        super(VERTICAL_SCROLLBAR_AS_NEEDED, HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        table.setFillsViewportHeight(true);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_ALL_COLUMNS);
+        table.getTableHeader().setReorderingAllowed(false);
+        setViewportView(table);
+        addHierarchyListener(this::hierarchyChanged);
+    }
+
+    /**
+     * Shows the table registered under {@code tableId}, see {@link LargeTableModel#lookup(String)}.
+     */
+    public void setTableId(String tableId) {
+        this.tableId = tableId;
+        LargeTableModel model = LargeTableModel.lookup(tableId);
+        if (model == null) {
+            // Dropped to stay within preview.largeTableCacheMegabytes, editing the table renders it again
+            table.setModel(new DefaultTableModel(new Object[][]{{"The table is no longer cached, edit it to show it again"}},
+                    new Object[]{""}));
+            return;
+        }
+        table.setModel(model);
+        for (int column = 0; column < model.getColumnCount(); column++) {
+            DefaultTableCellRenderer renderer = new DefaultTableCellRenderer();
+            renderer.setHorizontalAlignment(model.getAlignment(column));
+            table.getColumnModel().getColumn(column).setCellRenderer(renderer);
+        }
+    }
+
+    public String getTableId() {
+        return tableId;
+    }
+
+    public JTable getTable() {
+        return table;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int width = host != null && host.getParent() instanceof JViewport viewport
+                ? viewport.getExtentSize().width - 40 : 600;
+        Insets insets = getInsets();
+        int rows = Math.max(1, Math.min(VISIBLE_ROWS, table.getRowCount()));
+        int height = table.getTableHeader().getPreferredSize().height + rows * table.getRowHeight()
+                + insets.top + insets.bottom + getHorizontalScrollBar().getPreferredSize().height;
+        return new Dimension(Math.max(200, width), height);
+    }
+
+    @Override
+    public Dimension getMaximumSize() {
+        return getPreferredSize();
+    }
+
+    /**
+     * Follows the preview the view of the {@code <object>} adds this table to, or removes it from.
+     */
+    private void hierarchyChanged(HierarchyEvent e) {
+        if ((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) == 0) {
+            return;
+        }
+        JEditorPane newHost = (JEditorPane) SwingUtilities.getAncestorOfClass(JEditorPane.class, this);
+        if (newHost == host) {
+            return;
+        }
+        if (host != null) {
+            host.removeComponentListener(hostResized);
+            hostDocument.removeDocumentListener(themeListener);
+        }
+        host = newHost;
+        hostDocument = newHost == null ? null : newHost.getDocument();
+        if (host != null) {
+            host.addComponentListener(hostResized);
+            hostDocument.addDocumentListener(themeListener);
+            applyTheme();
+        }
+    }
+
+    private void applyTheme() {
+        if (!(hostDocument instanceof HTMLDocument document)) {
+            return;
+        }
+        StyleSheet styles = document.getStyleSheet();
+        AttributeSet body = styles.getRule("body");
+        AttributeSet header = styles.getRule("th");
+        Color background = styles.getBackground(body);
+        Color foreground = styles.getForeground(body);
+        if (background != null) {
+            table.setBackground(background);
+            getViewport().setBackground(background);
+        }
+        if (foreground != null) {
+            table.setForeground(foreground);
+        }
+        Color headerBackground = styles.getBackground(header);
+        if (headerBackground != null) {
+            table.getTableHeader().setBackground(headerBackground);
+        }
+        if (foreground != null) {
+            table.getTableHeader().setForeground(foreground);
+        }
+        Font font = styles.getFont(body);
+        if (font != null && !font.equals(table.getFont())) {
+            table.setFont(font);
+            table.getTableHeader().setFont(font.deriveFont(Font.BOLD));
+            table.setRowHeight(table.getFontMetrics(font).getHeight() + 4);
+            invalidate();
+            revalidate();
+        }
+    }
+}
@@ -15,7 +15,19 @@ import ch.framedev.simplejavautils.SimpleJavaUtils;
 import ch.framedev.yamlutils.FileConfiguration;
 
 import javax.swing.*;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 //TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
 // click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
@@ -24,7 +36,20 @@ public class Main {
     public static FileConfiguration config;
 
     public static void main(String[] args) {
+        StartupTimer.mark("main");
+        // Opens the editor, types one character after the first preview and exits, printing the startup
+        // phases. The appcds profile runs it to record the classes a startup needs
+        boolean startupProbe = args.length == 1 && args[0].equals("--startup-probe");
+        if (args.length > 0 && !startupProbe) {
+            // Command line mode must never initialize AWT, so it runs on CI machines without a display
+            System.setProperty("java.awt.headless", "true");
+            createConfig();
+            PerformanceMetrics.configure();
+            System.exit(runCommandLine(args));
+        }
         createConfig();
+        StartupTimer.mark("config loaded");
+        PerformanceMetrics.configure();
         UIManager.put("FileChooser.useSystemExtensionHiding", Boolean.FALSE);
         UIManager.put("FileChooser.useShellFolder", Boolean.FALSE); // force Swing dialog
         if(System.getProperty("os.name").toLowerCase().contains("mac") || System.getProperty("os.name").toLowerCase().contains("darwin")) {
@@ -38,7 +63,7 @@ public class Main {
         }
         System.setProperty("swing.crossPlatformLAF", "true");
         System.setProperty("jdk.swing.usePlatformFileDialog", "false");
-        SwingUtilities.invokeLater(() -> new MarkdownEditorSwing().createAndShowGUI());
+        SwingUtilities.invokeLater(() -> new MarkdownEditorSwing(startupProbe).createAndShowGUI());
     }
 
     public static void createConfig() {
@@ -46,4 +71,208 @@ public class Main {
         config = new FileConfiguration(utils.getFromResourceFile("config.yml", Main.class),
                 new File(utils.getFilePath(Main.class), "config.yml"));
     }
+
+    /**
+     * Renders Markdown files to standalone HTML pages without starting the GUI.
+     *
+     * @return the process exit code
+     */
+    static int runCommandLine(String[] args) {
+        List<Path> inputs = new ArrayList<>();
+        Path output = null;
+        Path exportDirectory = null;
+        int threads = 0;
+        boolean force = false;
+        boolean watch = false;
+        Path serveDirectory = null;
+        int port = config.getInt("server.port", 8080);
+        RenderOptions options = new RenderOptions(config.getString("theme.name", ThemeEngine.LIGHT),
+                config.getInt("previewFontSize", 14));
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--render" -> {
+                        // The input files follow
+                    }
+                    case "--output", "-o" -> output = Path.of(argumentValue(args, ++i, "--output"));
+                    case "--export-dir" -> exportDirectory = Path.of(argumentValue(args, ++i, "--export-dir"));
+                    case "--threads" -> threads = Integer.parseInt(argumentValue(args, ++i, "--threads"));
+                    case "--force" -> force = true;
+                    case "--watch" -> watch = true;
+                    case "--serve" -> serveDirectory = Path.of(argumentValue(args, ++i, "--serve"));
+                    case "--port" -> port = Integer.parseInt(argumentValue(args, ++i, "--port"));
+                    case "--dark" -> options = options.withTheme(ThemeEngine.DARK);
+                    case "--theme" -> options = options.withTheme(argumentValue(args, ++i, "--theme"));
+                    case "--font-size" -> options = options.withFontSize(Integer.parseInt(argumentValue(args, ++i, "--font-size")));
+                    case "--help", "-h" -> {
+                        printUsage(System.out);
+                        return 0;
+                    }
+                    default -> {
+                        if (args[i].startsWith("-")) {
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        }
+                        inputs.add(Path.of(args[i]));
+                    }
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            printUsage(System.err);
+            return 2;
+        }
+        ThemeEngine themeEngine = ThemeEngine.fromConfig();
+        if (!themeEngine.hasTheme(options.theme())) {
+            System.err.println("Unknown theme " + options.theme() + ", available: "
+                    + String.join(", ", themeEngine.getThemeNames()));
+            return 2;
+        }
+        if (serveDirectory != null) {
+            return serveDirectory(MarkdownRenderService.fromConfig(themeEngine), serveDirectory, options, port);
+        }
+        if (watch && exportDirectory == null) {
+            System.err.println("--watch requires --export-dir <dir>");
+            return 2;
+        }
+        if (exportDirectory != null) {
+            if (output == null) {
+                System.err.println("--export-dir requires --output <dir>");
+                return 2;
+            }
+            MarkdownRenderService renderService = MarkdownRenderService.fromConfig(themeEngine);
+            if (watch) {
+                return watchDirectory(renderService, exportDirectory, output, options, threads, force);
+            }
+            return exportDirectory(renderService, exportDirectory, output, options, threads, force);
+        }
+        if (inputs.isEmpty()) {
+            printUsage(System.err);
+            return 2;
+        }
+
+        MarkdownRenderService renderService = MarkdownRenderService.fromConfig(themeEngine);
+        boolean outputIsDirectory = output != null && (inputs.size() > 1 || Files.isDirectory(output));
+        int failures = 0;
+        for (Path input : inputs) {
+            try {
+                String markdown = Files.readString(input, StandardCharsets.UTF_8);
+                if (output == null && inputs.size() == 1) {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                    renderService.writeExportDocument(BatchExporter.htmlFileName(input), markdown, options, writer, true);
+                    writer.flush();
+                    continue;
+                }
+                Path target;
+                if (output == null) {
+                    target = input.resolveSibling(BatchExporter.htmlFileName(input));
+                } else if (outputIsDirectory) {
+                    Files.createDirectories(output);
+                    target = output.resolve(BatchExporter.htmlFileName(input));
+                } else {
+                    target = output;
+                }
+                renderService.exportToFile(target, markdown, options, true);
+            } catch (IOException ex) {
+                System.err.println("Failed to render " + input + ": " + ex.getMessage());
+                failures++;
+            }
+        }
+        return failures == 0 ? 0 : 1;
+    }
+
+    private static String argumentValue(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " requires a value");
+        }
+        return args[index];
+    }
+
+    private static int exportDirectory(MarkdownRenderService renderService, Path source, Path output,
+                                       RenderOptions options, int threads, boolean force) {
+        BatchExporter exporter = new BatchExporter(renderService, options, threads, force);
+        try {
+            BatchExporter.Report report = exporter.export(source, output);
+            System.out.println(report.format());
+            return report.failed() == 0 ? 0 : 1;
+        } catch (IOException ex) {
+            System.err.println("Failed to export " + source + ": " + ex.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Exports the directory once and then again whenever files below it change, until the process is
+     * stopped. Changes are coalesced by the {@link FileWatcher}, and only the changed files are looked
+     * at, of which the unchanged ones are skipped by their hash.
+     */
+    private static int watchDirectory(MarkdownRenderService renderService, Path source, Path output,
+                                      RenderOptions options, int threads, boolean force) {
+        int result = exportDirectory(renderService, source, output, options, threads, force);
+        BatchExporter exporter = new BatchExporter(renderService, options, threads, false);
+        Path sourceRoot = source.toAbsolutePath().normalize();
+        Path outputRoot = output.toAbsolutePath().normalize();
+        // The listener runs on the single watcher thread, so the exports never overlap
+        try (FileWatcher watcher = FileWatcher.fromConfig(changes -> {
+            try {
+                BatchExporter.Report report = changes.overflow() ? exporter.export(source, output)
+                        : exporter.exportChanged(source, output, changes.paths());
+                if (report.exported() > 0 || report.failed() > 0) {
+                    System.out.println(changes.paths().size() + " changed paths");
+                    System.out.println(report.format());
+                }
+            } catch (IOException ex) {
+                System.err.println("Failed to export " + source + ": " + ex.getMessage());
+            }
+        }, System.err::println)) {
+            watcher.watchTree(sourceRoot, directory -> directory.startsWith(outputRoot)
+                    || !directory.equals(sourceRoot) && directory.getFileName().toString().startsWith("."));
+            System.out.println("Watching " + source + " for changes, press Ctrl+C to stop");
+            new CountDownLatch(1).await();
+        } catch (IOException ex) {
+            System.err.println("Failed to watch " + source + ": " + ex.getMessage());
+            return 1;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    /**
+     * Serves the directory with the {@link PreviewServer} until the process is stopped.
+     */
+    private static int serveDirectory(MarkdownRenderService renderService, Path directory, RenderOptions options,
+                                      int port) {
+        if (!Files.isDirectory(directory)) {
+            System.err.println(directory + " is not a directory");
+            return 2;
+        }
+        try (PreviewServer server = new PreviewServer(renderService, options,
+                new InetSocketAddress(config.getString("server.bindAddress", "127.0.0.1"), port), directory,
+                config.getInt("server.cacheMegabytes", 32) * 1024L * 1024L)) {
+            server.start();
+            System.out.println("Serving " + directory + " on http://" + server.getAddress().getHostString() + ":"
+                    + server.getAddress().getPort() + "/, press Ctrl+C to stop");
+            new CountDownLatch(1).await();
+        } catch (IOException ex) {
+            System.err.println("Failed to start the preview server: " + ex.getMessage());
+            return 1;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    private static void printUsage(PrintStream out) {
+        out.println("Usage: java -jar markdown-editor-swing.jar [--render] <file.md>... [options]");
+        out.println("       java -jar markdown-editor-swing.jar --export-dir <dir> --output <dir> [options]");
+        out.println("       java -jar markdown-editor-swing.jar --serve <dir> [--port <n>] [options]");
+        out.println("  --output, -o <file|dir>  target file or directory (default: stdout for one file, else next to each input)");
+        out.println("  --dark                   use the dark theme");
+        out.println("  --theme <name>           use a built-in or configured theme (default: theme.name)");
+        out.println("  --font-size <px>         font size of the exported page");
+        out.println("  --threads <n>            worker threads of --export-dir (default: one per core)");
+        out.println("  --force                  export every file, even if unchanged since the last run");
+        out.println("  --watch                  keep exporting the changed files of --export-dir until stopped");
+        out.println("  --port <n>               port of --serve (default: server.port)");
+    }
 }
\ No newline at end of file
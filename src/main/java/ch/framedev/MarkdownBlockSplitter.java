@@ -0,0 +1,286 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 10:04
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits Markdown into top-level blocks that can be parsed and rendered independently.
+ * A block boundary is only placed at a non-indented line that follows a blank line and is
+ * outside of fenced code and raw HTML blocks. List items never start a new block, so loose
+ * lists stay together. When in doubt the splitter keeps lines together, which is always safe.
+ */
+public final class MarkdownBlockSplitter {
+
+    private static final Pattern REFERENCE_DEFINITION = Pattern.compile("^ {0,3}\\[[^\\]]+]:");
+
+    private static final String[] HTML_RAW_TAGS = {"script", "pre", "style", "textarea"};
+
+    private MarkdownBlockSplitter() {
+    }
+
+    /**
+     * Splits the whole text and returns the start offset of every block. The first block always starts at 0.
+     */
+    public static List<Integer> split(CharSequence text) {
+        List<Integer> starts = new ArrayList<>();
+        int pos = 0;
+        int length = text.length();
+        while (pos < length) {
+            starts.add(pos);
+            pos = blockEnd(text, pos);
+        }
+        return starts;
+    }
+
+    /**
+     * Returns the exclusive end offset of the block starting at {@code start}, which must be a block boundary.
+     */
+    public static int blockEnd(CharSequence text, int start) {
+        int length = text.length();
+        int pos = start;
+        char fenceChar = 0;
+        int fenceLength = 0;
+        String htmlEnd = null;
+        boolean previousBlank = false;
+        boolean first = true;
+
+        while (pos < length) {
+            int lineEnd = lineEnd(text, pos);
+            int next = lineEnd < length ? lineEnd + 1 : length;
+
+            if (!first && fenceChar == 0 && htmlEnd == null && previousBlank && startsBlock(text, pos, lineEnd)) {
+                return pos;
+            }
+            first = false;
+
+            if (fenceChar != 0) {
+                if (closesFence(text, pos, lineEnd, fenceChar, fenceLength)) {
+                    fenceChar = 0;
+                }
+                previousBlank = false;
+            } else if (htmlEnd != null) {
+                if (indexOf(text, pos, lineEnd, htmlEnd) >= 0) {
+                    htmlEnd = null;
+                }
+                previousBlank = false;
+            } else {
+                int contentStart = skipIndentation(text, pos, lineEnd);
+                boolean blank = isBlank(text, contentStart, lineEnd);
+                if (!blank) {
+                    int indent = column(text, pos, contentStart);
+                    // Indented four columns or more it is code, not a fence
+                    int run = indent <= 3 ? fenceRun(text, contentStart, lineEnd) : 0;
+                    if (run >= 3) {
+                        fenceChar = text.charAt(contentStart);
+                        fenceLength = run;
+                    } else if (indent <= 3) {
+                        String end = htmlBlockEnd(text, contentStart, lineEnd);
+                        if (end != null && indexOf(text, contentStart + 1, lineEnd, end) < 0) {
+                            htmlEnd = end;
+                        }
+                    }
+                }
+                previousBlank = blank;
+            }
+            pos = next;
+        }
+        return length;
+    }
+
+    /**
+     * Link reference definitions resolve across the whole document, so blocks that define one
+     * cannot be rendered in isolation.
+     */
+    public static boolean definesReferences(CharSequence text, int start, int end) {
+        int pos = start;
+        while (pos < end) {
+            int lineEnd = Math.min(lineEnd(text, pos), end);
+            int contentStart = skipIndentation(text, pos, lineEnd);
+            if (column(text, pos, contentStart) <= 3 && contentStart < lineEnd && text.charAt(contentStart) == '['
+                    && REFERENCE_DEFINITION.matcher(text.subSequence(pos, lineEnd)).find()) {
+                return true;
+            }
+            pos = lineEnd + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Whether the block starts with a GFM table, i.e. its second line is a delimiter row like
+     * {@code |---|:--:|}. Only looks at the first two lines.
+     */
+    public static boolean startsTable(CharSequence text, int start, int end) {
+        int headerEnd = Math.min(lineEnd(text, start), end);
+        if (headerEnd >= end) {
+            return false;
+        }
+        int delimiterEnd = Math.min(lineEnd(text, headerEnd + 1), end);
+        boolean dash = false;
+        boolean pipe = false;
+        for (int i = headerEnd + 1; i < delimiterEnd; i++) {
+            char c = text.charAt(i);
+            if (c == '-') {
+                dash = true;
+            } else if (c == '|') {
+                pipe = true;
+            } else if (c != ':' && c != ' ' && c != '\t' && c != '\r') {
+                return false;
+            }
+        }
+        return dash && (pipe || indexOf(text, start, headerEnd, "|") >= 0);
+    }
+
+    private static boolean startsBlock(CharSequence text, int pos, int lineEnd) {
+        if (pos >= lineEnd) {
+            return false;
+        }
+        char c = text.charAt(pos);
+        if (Character.isWhitespace(c)) {
+            return false;
+        }
+        return !isListMarker(text, pos, lineEnd);
+    }
+
+    private static boolean isListMarker(CharSequence text, int pos, int lineEnd) {
+        char c = text.charAt(pos);
+        if (c == '-' || c == '*' || c == '+') {
+            return pos + 1 >= lineEnd || Character.isWhitespace(text.charAt(pos + 1));
+        }
+        int i = pos;
+        while (i < lineEnd && i - pos < 9 && Character.isDigit(text.charAt(i))) {
+            i++;
+        }
+        if (i == pos || i >= lineEnd) {
+            return false;
+        }
+        char delimiter = text.charAt(i);
+        return (delimiter == '.' || delimiter == ')')
+                && (i + 1 >= lineEnd || Character.isWhitespace(text.charAt(i + 1)));
+    }
+
+    private static boolean closesFence(CharSequence text, int pos, int lineEnd, char fenceChar, int fenceLength) {
+        int contentStart = skipIndentation(text, pos, lineEnd);
+        if (column(text, pos, contentStart) > 3) {
+            return false;
+        }
+        int run = fenceRun(text, contentStart, lineEnd);
+        return run >= fenceLength && text.charAt(contentStart) == fenceChar
+                && isBlank(text, contentStart + run, lineEnd);
+    }
+
+    private static int fenceRun(CharSequence text, int pos, int lineEnd) {
+        if (pos >= lineEnd) {
+            return 0;
+        }
+        char c = text.charAt(pos);
+        if (c != '`' && c != '~') {
+            return 0;
+        }
+        int i = pos;
+        while (i < lineEnd && text.charAt(i) == c) {
+            i++;
+        }
+        return i - pos;
+    }
+
+    private static String htmlBlockEnd(CharSequence text, int pos, int lineEnd) {
+        if (text.charAt(pos) != '<' || pos + 1 >= lineEnd) {
+            return null;
+        }
+        if (startsWith(text, pos, lineEnd, "<!--")) {
+            return "-->";
+        }
+        if (startsWith(text, pos, lineEnd, "<![CDATA[")) {
+            return "]]>";
+        }
+        if (startsWith(text, pos, lineEnd, "<?")) {
+            return "?>";
+        }
+        if (startsWith(text, pos, lineEnd, "<!") && pos + 2 < lineEnd && Character.isLetter(text.charAt(pos + 2))) {
+            return ">";
+        }
+        for (String tag : HTML_RAW_TAGS) {
+            int nameEnd = pos + 1 + tag.length();
+            if (nameEnd <= lineEnd
+                    && text.subSequence(pos + 1, nameEnd).toString().toLowerCase(Locale.ROOT).equals(tag)
+                    && (nameEnd == lineEnd || !Character.isLetterOrDigit(text.charAt(nameEnd)))) {
+                return "</" + tag + ">";
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWith(CharSequence text, int pos, int lineEnd, String prefix) {
+        if (pos + prefix.length() > lineEnd) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(pos + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence text, int from, int to, String needle) {
+        int last = to - needle.length();
+        for (int i = from; i <= last; i++) {
+            int j = 0;
+            while (j < needle.length() && Character.toLowerCase(text.charAt(i + j)) == needle.charAt(j)) {
+                j++;
+            }
+            if (j == needle.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipIndentation(CharSequence text, int pos, int lineEnd) {
+        int i = pos;
+        while (i < lineEnd && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int column(CharSequence text, int lineStart, int pos) {
+        int column = 0;
+        for (int i = lineStart; i < pos; i++) {
+            column = text.charAt(i) == '\t' ? column + 4 - (column % 4) : column + 1;
+        }
+        return column;
+    }
+
+    private static boolean isBlank(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int lineEnd(CharSequence text, int pos) {
+        int length = text.length();
+        for (int i = pos; i < length; i++) {
+            if (text.charAt(i) == '\n') {
+                return i;
+            }
+        }
+        return length;
+    }
+}
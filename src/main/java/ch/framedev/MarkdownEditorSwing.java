@@ -1,15 +1,7 @@
 package ch.framedev;
 
 import ch.framedev.simplejavautils.SimpleJavaUtils;
-import com.vladsch.flexmark.ext.autolink.AutolinkExtension;
-import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughExtension;
-import com.vladsch.flexmark.ext.tables.TablesExtension;
-import com.vladsch.flexmark.html.HtmlRenderer;
-import com.vladsch.flexmark.parser.Parser;
-import com.vladsch.flexmark.util.ast.Node;
 import javax.swing.*;
-import javax.swing.event.DocumentEvent;
-import javax.swing.event.DocumentListener;
 import javax.swing.event.HyperlinkEvent;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
@@ -17,44 +9,113 @@ import java.awt.dnd.*;
 import java.awt.datatransfer.*;
 import java.awt.event.*;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
 
 public class MarkdownEditorSwing {
 
-    private final Parser parser = Parser.builder()
-            .extensions(List.of(
-                TablesExtension.create(),
-                AutolinkExtension.create(),
-                StrikethroughExtension.create()
-            ))
-            .build();
-
-    private final HtmlRenderer renderer = HtmlRenderer.builder()
-            .extensions(List.of(
-                TablesExtension.create(),
-                AutolinkExtension.create(),
-                StrikethroughExtension.create()
-            ))
-            .build();
+    // flexmark is set up in the background while the window opens
+    // Created before the render service, the editor needs the theme colors before that is ready
+    private final ThemeEngine themeEngine = ThemeEngine.fromConfig();
+    private final CompletableFuture<MarkdownRenderService> renderService = MarkdownRenderService.fromConfigAsync(themeEngine);
 
+    private JFrame frame;
     private JTextArea editor;
     private JEditorPane preview;
+    private PreviewPatcher previewPatcher;
 
-    private boolean darkMode = false;
+    private String theme = Main.config.getString("theme.name", ThemeEngine.LIGHT);
+    // Reported once the frame is shown
+    private String unknownTheme;
+    private final ButtonGroup themeGroup = new ButtonGroup();
 
     int fontSize = Main.config.getInt("fontSize", 14);
     int previewFontSize = Main.config.getInt("previewFontSize", 14);
 
+    private final PreviewRenderScheduler renderScheduler = new PreviewRenderScheduler(
+            Main.config.getInt("preview.debounceMillis", 150),
+            Main.config.getInt("preview.maxDelayMillis", 1000));
+
+    private final boolean incrementalPreview = Main.config.getBoolean("preview.incremental", true);
+    private final boolean verifyIncremental = Main.config.getBoolean("preview.verifyIncremental", false);
+
+    // Large documents only render the blocks around the preview viewport
+    private final boolean lazyPreview = Main.config.getBoolean("preview.lazy", true);
+    private final int lazyMinCharacters = Main.config.getInt("preview.lazyMinCharacters", 200000);
+    private final int lookAheadBlocks = Main.config.getInt("preview.lookAheadBlocks", 60);
+    private final int lookBehindBlocks = Main.config.getInt("preview.lookBehindBlocks", 20);
+    private JScrollPane editorScrollPane;
+    private JScrollPane previewScrollPane;
+    private OutlinePanel outlinePanel;
+    private JCheckBoxMenuItem outlineToggle;
+    private ScrollSynchronizer scrollSynchronizer;
+
+    // Every open document has a tab, all of them share the editor and the preview
+    private JTabbedPane tabbedPane;
+    private final List<EditorTab> tabs = new ArrayList<>();
+    private EditorTab activeTab;
+    // Set when a tab is shown, applied once its preview is rendered
+    private Point restorePreviewScroll;
+    private final long releaseCachesMillis = Main.config.getInt("tabs.releaseCachesMinutes", 5) * 60000L;
+    private final long releaseTextMillis = Main.config.getInt("tabs.releaseTextMinutes", 15) * 60000L;
+
+    private final DatabaseManager databaseManager = DatabaseManager.fromConfig();
+
+    private SearchIndexer searchIndexer;
+
+    private final int loadChunkCharacters = Main.config.getInt("loading.chunkCharacters", 262144);
+
     private static final String RECENT_FILES_PATH = new SimpleJavaUtils().getFilePath(Main.class) + "recent_files.txt";
     private List<File> recentFiles = new ArrayList<>();
     private JMenu recentMenu;
+    // Reads and checks the recent files after the window is shown, null once they are merged
+    private SwingWorker<List<File>, Void> recentFilesLoader;
+
+    // Watches the directories of the open and recent files, null if the platform cannot watch
+    private FileWatcher fileWatcher;
+
+    // Started with server.enabled once the render service is ready, null until then
+    private PreviewServer previewServer;
+
+    // Started with --startup-probe: exits after the first preview and keystroke, see StartupTimer
+    private final boolean startupProbe;
+    private boolean previewShown;
+
+    public MarkdownEditorSwing() {
+        this(false);
+    }
+
+    public MarkdownEditorSwing(boolean startupProbe) {
+        this.startupProbe = startupProbe;
+        if (!themeEngine.hasTheme(theme)) {
+            unknownTheme = theme;
+            theme = ThemeEngine.LIGHT;
+        }
+        // The other themes are ready before they are chosen for the first time
+        renderService.thenRun(() -> themeEngine.precompile(previewFontSize));
+    }
+
+    /**
+     * The piece table keeps edits and preview refreshes free of full-buffer copies on huge files,
+     * {@code editor.pieceTable: false} falls back to Swing's gap buffer.
+     */
+    private javax.swing.text.Document createDocument() {
+        return Main.config.getBoolean("editor.pieceTable", true) ? new PieceTableDocument() : new javax.swing.text.PlainDocument();
+    }
+
+    /**
+     * The text of the selected tab without copying it when the piece table is used. Safe to read off the EDT.
+     */
+    private CharSequence getEditorText() {
+        return activeTab.getText();
+    }
 
     public void createAndShowGUI() {
-        loadRecentFiles();
-        JFrame frame = new JFrame("Markdown Editor");
+        frame = new JFrame("Markdown Editor");
         frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         frame.setSize(1000, 600);
 
@@ -67,17 +128,33 @@ public class MarkdownEditorSwing {
         preview.setEditable(false);
         preview.setContentType("text/html");
         preview.setFont(new Font("Arial", Font.PLAIN, previewFontSize));
+        // Keep the scroll position when the preview is patched
+        ((javax.swing.text.DefaultCaret) preview.getCaret()).setUpdatePolicy(javax.swing.text.DefaultCaret.NEVER_UPDATE);
+        previewPatcher = new PreviewPatcher(preview, Main.config.getBoolean("preview.patchDom", true));
+        updateTheme();
 
         // Add keyboard shortcuts
         KeyStroke ctrlS = KeyStroke.getKeyStroke("control S");
         KeyStroke ctrlO = KeyStroke.getKeyStroke("control O");
         KeyStroke ctrlE = KeyStroke.getKeyStroke("control E");
         KeyStroke ctrlD = KeyStroke.getKeyStroke("control D");
+        KeyStroke ctrlShiftF = KeyStroke.getKeyStroke("control shift F");
+        KeyStroke ctrlShiftO = KeyStroke.getKeyStroke("control shift O");
+        KeyStroke ctrlT = KeyStroke.getKeyStroke("control T");
+        KeyStroke ctrlW = KeyStroke.getKeyStroke("control W");
+        KeyStroke ctrlPageDown = KeyStroke.getKeyStroke("control PAGE_DOWN");
+        KeyStroke ctrlPageUp = KeyStroke.getKeyStroke("control PAGE_UP");
 
         editor.getInputMap().put(ctrlS, "save");
         editor.getInputMap().put(ctrlO, "open");
         editor.getInputMap().put(ctrlE, "export");
         editor.getInputMap().put(ctrlD, "darkMode");
+        editor.getInputMap().put(ctrlShiftF, "search");
+        editor.getInputMap().put(ctrlShiftO, "outline");
+        editor.getInputMap().put(ctrlT, "newTab");
+        editor.getInputMap().put(ctrlW, "closeTab");
+        editor.getInputMap().put(ctrlPageDown, "nextTab");
+        editor.getInputMap().put(ctrlPageUp, "previousTab");
 
         editor.getActionMap().put("save", new AbstractAction() {
             public void actionPerformed(ActionEvent e) {
@@ -94,11 +171,39 @@ public class MarkdownEditorSwing {
                 exportAsHtml();
             }
         });
+        editor.getActionMap().put("search", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                showSearch();
+            }
+        });
+        editor.getActionMap().put("outline", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                outlineToggle.doClick();
+            }
+        });
+        editor.getActionMap().put("newTab", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                newTab("");
+            }
+        });
+        editor.getActionMap().put("closeTab", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                closeTab(activeTab);
+            }
+        });
+        editor.getActionMap().put("nextTab", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                selectTab(tabs.get((tabs.indexOf(activeTab) + 1) % tabs.size()));
+            }
+        });
+        editor.getActionMap().put("previousTab", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                selectTab(tabs.get((tabs.indexOf(activeTab) + tabs.size() - 1) % tabs.size()));
+            }
+        });
         editor.getActionMap().put("darkMode", new AbstractAction() {
             public void actionPerformed(ActionEvent e) {
-                darkMode = !darkMode;
-                updateTheme();
-                updatePreview();
+                setTheme(themeEngine.getTheme(theme).dark() ? ThemeEngine.LIGHT : ThemeEngine.DARK);
             }
         });
 
@@ -112,21 +217,31 @@ public class MarkdownEditorSwing {
             }
         });
 
+        previewScrollPane = new JScrollPane(preview);
+        previewScrollPane.getViewport().addChangeListener(e -> renderScrolledBlocks());
+        editorScrollPane = new JScrollPane(editor);
+        scrollSynchronizer = new ScrollSynchronizer(editor, editorScrollPane, preview, previewScrollPane, previewPatcher,
+                Main.config.getBoolean("preview.syncScroll", true));
         JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
-                new JScrollPane(editor), new JScrollPane(preview));
+                editorScrollPane, previewScrollPane);
         splitPane.setDividerLocation(500);
+        outlinePanel = new OutlinePanel(editor);
+        outlinePanel.setVisible(Main.config.getBoolean("outline.visible", false));
 
-        editor.getDocument().addDocumentListener(new DocumentListener() {
-            public void insertUpdate(DocumentEvent e) {
-                updatePreview();
-            }
-
-            public void removeUpdate(DocumentEvent e) {
-                updatePreview();
+        tabbedPane = new JTabbedPane(JTabbedPane.TOP, JTabbedPane.SCROLL_TAB_LAYOUT);
+        tabbedPane.addChangeListener(e -> {
+            int index = tabbedPane.getSelectedIndex();
+            if (index >= 0) {
+                showTab(tabs.get(index));
             }
-
-            public void changedUpdate(DocumentEvent e) {
-                updatePreview();
+        });
+        tabbedPane.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = tabbedPane.indexAtLocation(e.getX(), e.getY());
+                if (index >= 0 && SwingUtilities.isMiddleMouseButton(e)) {
+                    closeTab(tabs.get(index));
+                }
             }
         });
 
@@ -136,7 +251,7 @@ public class MarkdownEditorSwing {
                     evt.acceptDrop(DnDConstants.ACTION_COPY);
                     @SuppressWarnings("unchecked")
                     List<File> droppedFiles = (List<File>) evt.getTransferable().getTransferData(DataFlavor.javaFileListFlavor);
-                    loadFile(droppedFiles.get(0));
+                    droppedFiles.forEach(MarkdownEditorSwing.this::loadFile);
                 } catch (Exception ex) {
                     showError("Failed to load dropped file: " + ex.getMessage());
                 }
@@ -160,40 +275,258 @@ public class MarkdownEditorSwing {
         menuBar.add(recentMenu);
         frame.setJMenuBar(menuBar);
 
-        frame.add(splitPane);
+        editor.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyTyped(KeyEvent e) {
+                editor.removeKeyListener(this);
+                StartupTimer.mark("first keystroke");
+                if (StartupTimer.isReportEnabled() && !startupProbe) {
+                    StartupTimer.report(System.out);
+                }
+            }
+        });
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(tabbedPane, BorderLayout.NORTH);
+        content.add(splitPane, BorderLayout.CENTER);
+        content.add(outlinePanel, BorderLayout.WEST);
+        frame.add(content);
         frame.setVisible(true);
+        StartupTimer.mark("frame visible");
+        if (unknownTheme != null) {
+            showError("Unknown theme " + unknownTheme + ", using " + ThemeEngine.LIGHT);
+        }
 
-        editor.setText("# Welcome\nThis is a *Markdown* editor.");
-        updatePreview();
+        searchIndexer = SearchIndexer.fromConfig(databaseManager, this::showErrorLater);
+        try {
+            fileWatcher = FileWatcher.fromConfig(changes -> SwingUtilities.invokeLater(() -> filesChanged(changes)),
+                    this::showErrorLater);
+        } catch (IOException ex) {
+            showError("Files changed by other programs are not reloaded: " + ex.getMessage());
+        }
+        loadRecentFilesInBackground();
+        if (Main.config.getBoolean("server.enabled", false)) {
+            renderService.thenAccept(service -> SwingUtilities.invokeLater(() -> startPreviewServer(service)));
+        }
+
+        newTab("# Welcome\nThis is a *Markdown* editor.");
+        recoverAutosave();
+        new javax.swing.Timer(30000, e -> releaseIdleTabs()).start();
 
         frame.addWindowListener(new WindowAdapter() {
 
             @Override
             public void windowClosing(WindowEvent e) {
-                // Prompt to save changes
-                int result = JOptionPane.showConfirmDialog(
-                        null,
-                        "Do you want to save changes before exiting?",
-                        "Confirm Exit",
-                        JOptionPane.YES_NO_CANCEL_OPTION
-                );
-
-                // Handle the user's choice
-                if (result == JOptionPane.CANCEL_OPTION || result == JOptionPane.CLOSED_OPTION) {
-                    return;
+                Map<EditorTab, Boolean> discard = new HashMap<>();
+                for (EditorTab tab : List.copyOf(tabs)) {
+                    Boolean discardTab = askToSave(tab, "Confirm Exit");
+                    if (discardTab == null) {
+                        return;
+                    }
+                    discard.put(tab, discardTab);
                 }
-
-                if (result == JOptionPane.YES_OPTION) {
-                    saveFile(); // save the file
+                for (EditorTab tab : tabs) {
+                    closeAutosave(tab, discard.get(tab));
+                }
+                searchIndexer.close();
+                databaseManager.close();
+                if (fileWatcher != null) {
+                    fileWatcher.close();
+                }
+                if (previewServer != null) {
+                    previewServer.close();
+                }
+                // Save recent files, with the stored ones if they were not read yet
+                if (recentFilesLoader != null) {
+                    recentFilesLoader.cancel(false);
+                    try {
+                        mergeRecentFiles(readRecentFiles());
+                    } catch (IOException ex) {
+                        // Replaced by the files opened in this session
+                    }
                 }
-                // Save recent files
                 saveRecentFiles();
+                renderScheduler.shutdown();
                 // Exit the application
                 System.exit(0);
             }
         });
     }
 
+    /**
+     * Adds an untitled tab with {@code text} and shows it.
+     */
+    private EditorTab newTab(String text) {
+        EditorTab tab = new EditorTab(renderService.thenApply(service -> service.createIncrementalRenderer(verifyIncremental)));
+        attachDocument(tab);
+        tab.setText(text);
+        tab.getAutosave().open(null);
+        tabs.add(tab);
+        tabbedPane.addTab(tab.getTitle(), null);
+        selectTab(tab);
+        return tab;
+    }
+
+    /**
+     * Gives the tab a new empty document with its own autosave, for a new tab or one whose text was released.
+     */
+    private void attachDocument(EditorTab tab) {
+        javax.swing.text.Document document = createDocument();
+        AutosaveManager autosave = AutosaveManager.fromConfig(document, ex -> showError("Autosave failed: " + ex.getMessage()));
+        tab.attach(document, autosave, () -> {
+            // Tabs in the background are rendered when they are shown again
+            if (tab == activeTab) {
+                updatePreview();
+            }
+        });
+        autosave.addStateListener(() -> tabChanged(tab));
+        // Saved files are indexed again, the indexer skips them if their modification time did not change
+        autosave.addStateListener(() -> {
+            if (!autosave.isDirty() && autosave.getFile() != null) {
+                searchIndexer.indexFile(autosave.getFile());
+            }
+        });
+    }
+
+    private void selectTab(EditorTab tab) {
+        tabbedPane.setSelectedIndex(tabs.indexOf(tab));
+    }
+
+    /**
+     * Shows the tab in the editor and the preview, called when the selected tab changes. A tab whose
+     * text was released reads its file again.
+     */
+    private void showTab(EditorTab tab) {
+        if (tab == activeTab) {
+            return;
+        }
+        if (activeTab != null) {
+            activeTab.hidden(editor.getCaretPosition(), editorScrollPane.getViewport().getViewPosition(),
+                    previewScrollPane.getViewport().getViewPosition());
+        }
+        activeTab = tab;
+        tab.shown();
+        restorePreviewScroll = null;
+        if (tab.isTextReleased()) {
+            Path file = tab.getFile();
+            attachDocument(tab);
+            editor.setDocument(tab.getDocument());
+            loadFileInto(tab, file.toFile());
+        } else {
+            editor.setDocument(tab.getDocument());
+            editor.setEditable(tab.getFileLoader() == null);
+            editor.setCaretPosition(Math.min(tab.getCaretPosition(), tab.getDocument().getLength()));
+            Point editorScroll = tab.getEditorScroll();
+            SwingUtilities.invokeLater(() -> {
+                if (activeTab == tab) {
+                    editorScrollPane.getViewport().setViewPosition(editorScroll);
+                }
+            });
+            restorePreviewScroll = tab.getPreviewScroll();
+        }
+        previewPatcher.reset();
+        updatePreviewNow();
+        updateTitle();
+        editor.requestFocusInWindow();
+    }
+
+    /**
+     * Updates the title of the tab and, if it is shown, of the window.
+     */
+    private void tabChanged(EditorTab tab) {
+        int index = tabs.indexOf(tab);
+        if (index >= 0) {
+            tabbedPane.setTitleAt(index, tab.getTitle());
+            tabbedPane.setToolTipTextAt(index, tab.getFile() != null ? tab.getFile().toString() : null);
+        }
+        if (tab == activeTab) {
+            updateTitle();
+        }
+        updateWatchedDirectories();
+    }
+
+    /**
+     * Closes the tab after asking whether to save untitled changes. The last tab is replaced by an empty one.
+     */
+    private void closeTab(EditorTab tab) {
+        Boolean discard = askToSave(tab, "Close Tab");
+        if (discard == null) {
+            return;
+        }
+        closeAutosave(tab, discard);
+        int index = tabs.indexOf(tab);
+        tabs.remove(index);
+        if (tab == activeTab) {
+            activeTab = null;
+        }
+        tabbedPane.removeTabAt(index);
+        if (tabs.isEmpty()) {
+            newTab("");
+        }
+        updateWatchedDirectories();
+    }
+
+    /**
+     * Asks whether to save the changes of an untitled tab. A tab with a file is saved without asking.
+     *
+     * @return whether the changes are to be discarded, or {@code null} if the user cancelled
+     */
+    private Boolean askToSave(EditorTab tab, String title) {
+        if (!tab.isDirty() || tab.getFile() != null) {
+            return false;
+        }
+        selectTab(tab);
+        int result = JOptionPane.showConfirmDialog(
+                null,
+                "Do you want to save the changes to " + tab.getName() + "?",
+                title,
+                JOptionPane.YES_NO_CANCEL_OPTION
+        );
+
+        // Handle the user's choice
+        if (result == JOptionPane.CANCEL_OPTION || result == JOptionPane.CLOSED_OPTION) {
+            return null;
+        }
+        if (result == JOptionPane.YES_OPTION
+                && !(tab.getDatabaseDocument() != null ? storeInDatabaseAndWait() : saveFileAs())) {
+            return null;
+        }
+        return result == JOptionPane.NO_OPTION;
+    }
+
+    /**
+     * Saves the tab to its file and closes its autosave, see {@link AutosaveManager#close(boolean, long)}.
+     */
+    private void closeAutosave(EditorTab tab, boolean discard) {
+        if (tab.getFileLoader() != null) {
+            tab.getFileLoader().cancel(true);
+            tab.setFileLoader(null);
+        }
+        if (!tab.isTextReleased() && !tab.getAutosave().close(discard, 10000)) {
+            tab.getAutosave().shutdown();
+            showError("Could not save " + tab.getFile() + ". The changes will be offered for recovery on the next start.");
+        }
+    }
+
+    /**
+     * Frees the memory of the tabs that were not shown for a while: their rendered HTML after
+     * {@code tabs.releaseCachesMinutes}, and the text of saved files after {@code tabs.releaseTextMinutes}.
+     */
+    private void releaseIdleTabs() {
+        long now = System.currentTimeMillis();
+        for (EditorTab tab : tabs) {
+            if (tab == activeTab) {
+                continue;
+            }
+            long hidden = tab.getHiddenMillis(now);
+            if (hidden >= releaseTextMillis && tab.canReleaseText()) {
+                tab.releaseText();
+            } else if (hidden >= releaseCachesMillis) {
+                tab.releaseCaches();
+            }
+        }
+    }
+
     private void openLink(String url) {
         try {
             // Open the link in the default browser
@@ -214,15 +547,17 @@ public class MarkdownEditorSwing {
         // View Menu
         JMenu viewMenu = new JMenu("View");
         
-        // Dark Mode Toggle
-        JCheckBoxMenuItem darkModeToggle = new JCheckBoxMenuItem("Dark Mode");
-        darkModeToggle.addActionListener(e -> {
-            darkMode = darkModeToggle.isSelected();
-            updateTheme();
-            updatePreview();
-        });
-        darkModeToggle.setSelected(darkMode);
-        viewMenu.add(darkModeToggle);
+        // Themes, Ctrl+D switches between light and dark
+        JMenu themeMenu = new JMenu("Theme");
+        for (String name : themeEngine.getThemeNames()) {
+            JRadioButtonMenuItem themeItem = new JRadioButtonMenuItem(name);
+            themeItem.setActionCommand(name);
+            themeItem.setSelected(name.equals(theme));
+            themeItem.addActionListener(e -> setTheme(name));
+            themeGroup.add(themeItem);
+            themeMenu.add(themeItem);
+        }
+        viewMenu.add(themeMenu);
         
         // Font Size Controls
         JMenu fontSizeMenu = new JMenu("Font Size");
@@ -233,29 +568,121 @@ public class MarkdownEditorSwing {
                 fontSize = Integer.parseInt(size);
                 previewFontSize = fontSize;
                 editor.setFont(new Font("Arial", Font.PLAIN, fontSize));
-                updatePreview();
+                preview.setFont(new Font("Arial", Font.PLAIN, previewFontSize));
+                updatePreviewStyles();
             });
             fontSizeMenu.add(sizeItem);
         }
         viewMenu.add(fontSizeMenu);
+
+        JMenuItem performanceItem = new JMenuItem("Performance");
+        performanceItem.addActionListener(e -> new PerformancePanel().setVisible(true));
+        viewMenu.add(performanceItem);
+
+        outlineToggle = new JCheckBoxMenuItem("Outline");
+        outlineToggle.addActionListener(e -> {
+            outlinePanel.setVisible(outlineToggle.isSelected());
+            outlinePanel.getParent().revalidate();
+        });
+        outlineToggle.setSelected(outlinePanel.isVisible());
+        viewMenu.add(outlineToggle);
+
+        JCheckBoxMenuItem syncScrollToggle = new JCheckBoxMenuItem("Synchronize Scrolling");
+        syncScrollToggle.addActionListener(e -> scrollSynchronizer.setEnabled(syncScrollToggle.isSelected()));
+        syncScrollToggle.setSelected(scrollSynchronizer.isEnabled());
+        viewMenu.add(syncScrollToggle);
+
+        JMenuItem cacheStatsItem = new JMenuItem("Render Cache Statistics");
+        cacheStatsItem.addActionListener(e -> showCacheStatistics());
+        viewMenu.add(cacheStatsItem);
         
         menuBar.add(viewMenu);
     }
 
+    private void showCacheStatistics() {
+        // The render service may still be starting, the dialog opens once it is there
+        renderService.thenAcceptAsync(service -> {
+            HtmlFragmentCache.Stats stats = service.getFragmentCache().getStats();
+            String message = String.format(
+                    "Entries: %d / %d%nSize: %.1f / %.1f MB%nHits: %d%nMisses: %d%nHit rate: %.1f %%%nEvictions: %d",
+                    stats.entries(), stats.maxEntries(),
+                    stats.weightBytes() / (1024.0 * 1024.0), stats.maxWeightBytes() / (1024.0 * 1024.0),
+                    stats.hits(), stats.misses(), stats.hitRate() * 100, stats.evictions());
+            JOptionPane.showMessageDialog(null, message, "Render Cache Statistics", JOptionPane.INFORMATION_MESSAGE);
+        }, SwingUtilities::invokeLater);
+    }
+
+    private void setTheme(String name) {
+        theme = name;
+        for (AbstractButton themeItem : Collections.list(themeGroup.getElements())) {
+            themeItem.setSelected(themeItem.getActionCommand().equals(name));
+        }
+        updateTheme();
+        updatePreviewStyles();
+    }
+
     private void updateTheme() {
-        if (darkMode) {
-            editor.setBackground(new Color(30, 30, 30));
-            editor.setForeground(new Color(221, 221, 221));
-            editor.setCaretColor(new Color(221, 221, 221));
-        } else {
-            editor.setBackground(Color.WHITE);
-            editor.setForeground(Color.BLACK);
-            editor.setCaretColor(Color.BLACK);
+        ThemeEngine.Theme colors = themeEngine.getTheme(theme);
+        editor.setBackground(colors.getBackgroundColor());
+        editor.setForeground(colors.getForegroundColor());
+        editor.setCaretColor(colors.getForegroundColor());
+    }
+
+    /**
+     * Swaps the style sheet of the preview for the current theme and font size, without rendering or
+     * parsing the blocks again. The following render only makes sure that a render started before the
+     * switch does not bring the old style sheet back.
+     */
+    private void updatePreviewStyles() {
+        previewPatcher.setStyleSheet(themeEngine.styleSheet(getRenderOptions()));
+        updatePreviewNow();
+        if (previewServer != null) {
+            previewServer.setOptions(getRenderOptions());
+        }
+    }
+
+    /**
+     * Serves the selected tab and the directory {@code server.root} over HTTP, see {@link PreviewServer}.
+     */
+    private void startPreviewServer(MarkdownRenderService service) {
+        String root = Main.config.getString("server.root", "");
+        try {
+            PreviewServer server = PreviewServer.fromConfig(service, getRenderOptions(),
+                    root.isBlank() ? null : Path.of(root));
+            // The tab is looked up on the EDT, its text is a snapshot that can be rendered on the request's thread
+            server.setBuffer(() -> {
+                try {
+                    return CompletableFuture.supplyAsync(() -> activeTab == null ? null
+                                    : new PreviewServer.Buffer(activeTab.getName(), activeTab.getText()),
+                            SwingUtilities::invokeLater).get(5, java.util.concurrent.TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                } catch (java.util.concurrent.ExecutionException | java.util.concurrent.TimeoutException ex) {
+                    return null;
+                }
+            });
+            server.start();
+            previewServer = server;
+            System.out.println("Preview server on http://" + server.getAddress().getHostString() + ":"
+                    + server.getAddress().getPort() + "/");
+        } catch (IOException | RuntimeException ex) {
+            showError("Could not start the preview server: " + ex.getMessage());
         }
     }
 
     private void createFileJMenu(JMenuBar menuBar) {
         JMenu fileMenu = new JMenu("File");
+        JMenuItem newTabItem = new JMenuItem(new AbstractAction("New Tab") {
+            public void actionPerformed(ActionEvent e) {
+                newTab("");
+            }
+        });
+        JMenuItem closeTabItem = new JMenuItem(new AbstractAction("Close Tab") {
+            public void actionPerformed(ActionEvent e) {
+                closeTab(activeTab);
+            }
+        });
         JMenuItem openItem = new JMenuItem(new AbstractAction("Open") {
             public void actionPerformed(ActionEvent e) {
                 openFile();
@@ -266,15 +693,50 @@ public class MarkdownEditorSwing {
                 saveFile();
             }
         });
+        JMenuItem saveAsItem = new JMenuItem(new AbstractAction("Save As") {
+            public void actionPerformed(ActionEvent e) {
+                saveFileAs();
+            }
+        });
         JMenuItem exportHtmlItem = new JMenuItem(new AbstractAction("Export as HTML") {
             public void actionPerformed(ActionEvent e) {
                 exportAsHtml();
             }
         });
+        JMenuItem searchItem = new JMenuItem(new AbstractAction("Search Notes") {
+            public void actionPerformed(ActionEvent e) {
+                showSearch();
+            }
+        });
 
+        fileMenu.add(newTabItem);
         fileMenu.add(openItem);
         fileMenu.add(saveItem);
+        fileMenu.add(saveAsItem);
         fileMenu.add(exportHtmlItem);
+        fileMenu.add(searchItem);
+        fileMenu.add(closeTabItem);
+        if (databaseManager.isDatabaseSupported()) {
+            JMenuItem openDatabaseItem = new JMenuItem(new AbstractAction("Open from Database") {
+                public void actionPerformed(ActionEvent e) {
+                    openFromDatabase();
+                }
+            });
+            JMenuItem saveDatabaseItem = new JMenuItem(new AbstractAction("Save to Database") {
+                public void actionPerformed(ActionEvent e) {
+                    saveToDatabase();
+                }
+            });
+            JMenuItem historyItem = new JMenuItem(new AbstractAction("Revision History") {
+                public void actionPerformed(ActionEvent e) {
+                    showRevisionHistory();
+                }
+            });
+            fileMenu.addSeparator();
+            fileMenu.add(openDatabaseItem);
+            fileMenu.add(saveDatabaseItem);
+            fileMenu.add(historyItem);
+        }
         menuBar.add(fileMenu);
     }
 
@@ -290,10 +752,120 @@ public class MarkdownEditorSwing {
         }
         JMenuItem clearRecentMenu = new JMenuItem("Clear Recent Files");
         clearRecentMenu.addActionListener(e -> {
+            if (recentFilesLoader != null) {
+                recentFilesLoader.cancel(false);
+                recentFilesLoader = null;
+                searchIndexer.start(List.of());
+            }
             recentFiles.clear();
             updateRecentMenu();
         });
         recentMenu.add(clearRecentMenu);
+        updateWatchedDirectories();
+    }
+
+    /**
+     * Watches the directories of the open tabs and the recent files, without their subdirectories.
+     */
+    private void updateWatchedDirectories() {
+        if (fileWatcher == null) {
+            return;
+        }
+        Set<Path> directories = new HashSet<>();
+        for (EditorTab tab : tabs) {
+            if (tab.getFile() != null && tab.getFile().toAbsolutePath().getParent() != null) {
+                directories.add(tab.getFile().toAbsolutePath().getParent());
+            }
+        }
+        for (File file : recentFiles) {
+            if (file.getAbsoluteFile().getParentFile() != null) {
+                directories.add(file.getAbsoluteFile().getParentFile().toPath());
+            }
+        }
+        fileWatcher.setDirectories(directories);
+    }
+
+    /**
+     * Called with a batch of the {@link FileWatcher}. Open files changed by another program are read
+     * again, deleted recent files leave the Recent Files menu and changed ones are indexed again.
+     */
+    private void filesChanged(FileWatcher.Changes changes) {
+        for (EditorTab tab : List.copyOf(tabs)) {
+            Path file = tab.getFile();
+            if (file != null && (changes.overflow() || changes.paths().contains(file.toAbsolutePath().normalize()))) {
+                reloadIfChanged(tab, file);
+            }
+        }
+        boolean removed = recentFiles.removeIf(file -> (changes.overflow()
+                || changes.paths().contains(file.toPath().toAbsolutePath().normalize())) && !file.exists());
+        for (File file : recentFiles) {
+            if (changes.paths().contains(file.toPath().toAbsolutePath().normalize())) {
+                searchIndexer.indexFile(file.toPath());
+            }
+        }
+        if (removed) {
+            updateRecentMenu();
+        }
+    }
+
+    /**
+     * Reads the tab's file in the background and replaces the text if it differs. A tab with unsaved
+     * changes is only reloaded if the user agrees, otherwise its next save overwrites the file.
+     */
+    private void reloadIfChanged(EditorTab tab, Path file) {
+        if (tab.getFileLoader() != null || tab.isTextReleased()) {
+            // Read from the file anyway when it is loaded or shown again
+            return;
+        }
+        AutosaveManager saving = tab.getAutosave();
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                if (!Files.isRegularFile(file)) {
+                    return null;
+                }
+                // Our own saves, also those of a text edited further since, are not changes by another program
+                AutosaveManager.WrittenFile written = saving.getLastWritten();
+                if (written != null && written.matches(file, Files.readAttributes(file, BasicFileAttributes.class))) {
+                    return null;
+                }
+                return Files.readString(file);
+            }
+
+            @Override
+            protected void done() {
+                String content;
+                try {
+                    content = get();
+                } catch (Exception ex) {
+                    showError("Failed to read " + file + ": " + ex.getMessage());
+                    return;
+                }
+                if (content == null || !tabs.contains(tab) || !file.equals(tab.getFile())
+                        || tab.getFileLoader() != null || tab.isTextReleased()
+                        || content.contentEquals(tab.getText())) {
+                    return;
+                }
+                if (tab.isDirty()) {
+                    selectTab(tab);
+                    int result = JOptionPane.showConfirmDialog(frame,
+                            file.getFileName() + " was changed by another program. Reload it and discard your changes?",
+                            "File Changed", JOptionPane.YES_NO_OPTION);
+                    if (result != JOptionPane.YES_OPTION || tab.getFileLoader() != null || !tabs.contains(tab)) {
+                        return;
+                    }
+                }
+                int caret = editor.getCaretPosition();
+                AutosaveManager autosave = tab.getAutosave();
+                autosave.suspend();
+                tab.setText(content);
+                autosave.open(file);
+                // A tab in the background keeps its caret, it is limited to the new text when it is shown
+                if (tab == activeTab) {
+                    editor.setCaretPosition(Math.min(caret, tab.getDocument().getLength()));
+                }
+            }
+        }.execute();
     }
 
     private void addToRecentFiles(File file) {
@@ -306,75 +878,121 @@ public class MarkdownEditorSwing {
     }
 
     private void updatePreview() {
-        String markdown = editor.getText();
-        Node document = parser.parse(markdown);
-        String html = renderer.render(document);
-
-        // Apply syntax highlighting to code blocks
-        // html = highlightCodeBlocks(html);
-
-        // Add styles for dark/light mode
-        String styles = darkMode ?
-                "<style>" +
-                "body { background-color: #1e1e1e; color: #d4d4d4; font-family: Arial; font-size: " + previewFontSize + "px; }" +
-                "a { color: #569cd6; }" +
-                "pre { background-color: #2d2d2d; padding: 1em; border-radius: 4px; }" +
-                "code { font-family: 'Arial', 'Monaco', monospace; }" +
-                "table { border-collapse: collapse; width: 100%; margin: 1em 0; }" +
-                "th, td { border: 1px solid #404040; padding: 8px; }" +
-                "th { background-color: #2d2d2d; }" +
-                "</style>" :
-                "<style>" +
-                "body { background-color: #ffffff; color: #000000; font-family: Arial; font-size: " + previewFontSize + "px; }" +
-                "a { color: #0000ff; }" +
-                "pre { background-color: #f5f5f5; padding: 1em; border-radius: 4px; }" +
-                "code { font-family: 'Arial', 'Monaco', monospace; }" +
-                "table { border-collapse: collapse; width: 100%; margin: 1em 0; }" +
-                "th, td { border: 1px solid #ddd; padding: 8px; }" +
-                "th { background-color: #f5f5f5; }" +
-                "</style>";
-
-        String fullHtml = "<html><head>" + styles + "</head><body>" + html + "</body></html>";
-        preview.setText(fullHtml);
-        preview.setFont(new Font("Arial", Font.PLAIN, previewFontSize));
+        EditorTab tab = activeTab;
+        javax.swing.text.Document document = tab.getDocument();
+        RenderOptions options = getRenderOptions();
+        IncrementalMarkdownRenderer.Window window = getPreviewWindow();
+        renderScheduler.schedule(() -> renderEditorPreview(tab, document, window, options),
+                content -> publishPreview(tab, content), this::showRenderError);
     }
 
-    private String highlightCodeBlocks(String html) {
-        Pattern pattern = Pattern.compile("<pre><code(?: class=\"language-(\\w+)\")?>(.*?)</code></pre>", Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(html);
-        StringBuilder result = new StringBuilder();
-        
-        while (matcher.find()) {
-            String language = matcher.group(1);
-            String code = matcher.group(2);
-            String highlightedCode = highlightSyntax(code, language);
-            matcher.appendReplacement(result, "<pre><code class=\"language-" + language + "\">" + highlightedCode + "</code></pre>");
+    private void updatePreviewNow() {
+        EditorTab tab = activeTab;
+        javax.swing.text.Document document = tab.getDocument();
+        RenderOptions options = getRenderOptions();
+        IncrementalMarkdownRenderer.Window window = getPreviewWindow();
+        renderScheduler.scheduleNow(() -> renderEditorPreview(tab, document, window, options),
+                content -> publishPreview(tab, content), this::showRenderError);
+    }
+
+    /**
+     * Returns the blocks a lazy preview should render: the visible ones plus the look-behind and look-ahead,
+     * or {@code null} if the document is small enough to render completely.
+     */
+    private IncrementalMarkdownRenderer.Window getPreviewWindow() {
+        if (!lazyPreview || !incrementalPreview || editor.getDocument().getLength() < lazyMinCharacters) {
+            return null;
         }
-        matcher.appendTail(result);
-        return result.toString();
+        Rectangle view = previewScrollPane.getViewport().getViewRect();
+        int first = Math.max(0, previewPatcher.blockIndexAt(view.y));
+        int last = Math.max(first, previewPatcher.blockIndexAt(view.y + view.height));
+        int lineHeight = preview.getFontMetrics(preview.getFont()).getHeight();
+        return new IncrementalMarkdownRenderer.Window(Math.max(0, first - lookBehindBlocks), last + lookAheadBlocks,
+                lineHeight);
     }
 
-    private String highlightSyntax(String code, String language) {
-        if (language == null) {
-            return code;
+    /**
+     * Renders the placeholders that scrolled into the window of a lazy preview.
+     */
+    private void renderScrolledBlocks() {
+        IncrementalMarkdownRenderer.Window window = activeTab == null || activeTab.isPreviewSuspended() ? null
+                : getPreviewWindow();
+        if (window == null) {
+            return;
+        }
+        int last = Math.min(window.lastBlock(), previewPatcher.getBlockCount() - 1);
+        for (int i = window.firstBlock(); i <= last; i++) {
+            if (IncrementalMarkdownRenderer.isPlaceholder(previewPatcher.getFragment(i))) {
+                updatePreview();
+                return;
+            }
         }
+    }
 
-        // Basic syntax highlighting patterns
-        Map<String, String> patterns = new HashMap<>();
-        patterns.put("comment", "//.*|/\\*[\\s\\S]*?\\*/");
-        patterns.put("string", "\".*?\"|'.*?'");
-        patterns.put("number", "\\b\\d+\\b");
-        patterns.put("keyword", "\\b(if|else|for|while|return|class|public|private|protected|static|void|int|String|boolean)\\b");
-        patterns.put("method", "\\b\\w+(?=\\()");
-        patterns.put("class", "\\b[A-Z]\\w*\\b");
+    /**
+     * Renders the document of a tab to HTML. The text and the edits recorded since the last render are read
+     * together under the document's read lock, so this is safe to call from the render thread.
+     */
+    private PreviewPatcher.Content renderEditorPreview(EditorTab tab, javax.swing.text.Document document,
+                                                       IncrementalMarkdownRenderer.Window window, RenderOptions options) {
+        CharSequence[] text = new CharSequence[1];
+        IncrementalMarkdownRenderer.DirtyRegion[] region = new IncrementalMarkdownRenderer.DirtyRegion[1];
+        MarkdownRenderService service = renderService.join();
+        IncrementalMarkdownRenderer renderer = tab.getRenderer().join();
+        document.render(() -> {
+            text[0] = EditorTab.getText(document);
+            region[0] = renderer.takeDirtyRegion();
+        });
+        if (!incrementalPreview) {
+            return service.previewContent(List.of(service.renderPreviewFull(text[0])), new int[]{0}, options);
+        }
+        List<String> fragments = renderer.render(text[0], region[0], window);
+        return service.previewContent(fragments, renderer.getBlockStarts(), options);
+    }
 
-        String result = code;
-        for (Map.Entry<String, String> entry : patterns.entrySet()) {
-            String type = entry.getKey();
-            String pattern = entry.getValue();
-            result = result.replaceAll(pattern, "<span class=\"" + type + "\">$0</span>");
+    private RenderOptions getRenderOptions() {
+        return new RenderOptions(theme, previewFontSize);
+    }
+
+    private void publishPreview(EditorTab tab, PreviewPatcher.Content content) {
+        if (tab != activeTab) {
+            return;
+        }
+        previewPatcher.update(content);
+        scrollSynchronizer.previewChanged();
+        if (restorePreviewScroll != null) {
+            Point position = restorePreviewScroll;
+            restorePreviewScroll = null;
+            SwingUtilities.invokeLater(() -> previewScrollPane.getViewport().setViewPosition(position));
         }
-        return result;
+        if (!previewShown) {
+            previewShown = true;
+            StartupTimer.mark("first preview");
+            if (startupProbe) {
+                SwingUtilities.invokeLater(this::finishStartupProbe);
+            }
+        }
+    }
+
+    /**
+     * Types a character like a user would, then prints the startup phases and exits without keeping the edit.
+     */
+    private void finishStartupProbe() {
+        editor.requestFocusInWindow();
+        editor.dispatchEvent(new KeyEvent(editor, KeyEvent.KEY_TYPED, System.currentTimeMillis(), 0,
+                KeyEvent.VK_UNDEFINED, ' '));
+        SwingUtilities.invokeLater(() -> {
+            StartupTimer.report(System.out);
+            tabs.forEach(tab -> closeAutosave(tab, true));
+            searchIndexer.close();
+            databaseManager.close();
+            renderScheduler.shutdown();
+            System.exit(0);
+        });
+    }
+
+    private void showRenderError(Exception ex) {
+        showError("Failed to render preview: " + ex.getMessage());
     }
 
     private void exportAsHtml() {
@@ -385,32 +1003,8 @@ public class MarkdownEditorSwing {
             if (!file.getName().toLowerCase().endsWith(".html")) {
                 file = new File(file.getAbsolutePath() + ".html");
             }
-            try (FileWriter writer = new FileWriter(file)) {
-                String css = darkMode ?
-                    "body { background: #1e1e1e; color: #ddd; font-family: Arial; font-size: " + previewFontSize + "px; }" +
-                    "pre { font-family: monospace; background:#2d2d2d; color:#ccc; padding:6px; border:1px solid #555; }" +
-                    "table { border-collapse:collapse; font-family: Arial; border:1px solid #555; color:#ddd; background:#2d2d2d; }" +
-                    "th, td { border: 1px solid #555; padding: 6px; }" +
-                    "a { color: #4a9eff; }" +
-                    "code { background: #2d2d2d; padding: 2px 4px; border-radius: 3px; }" :
-                    "body { font-family: Arial; font-size: " + previewFontSize + "px; }" +
-                    "pre { font-family: monospace; background:#f4f4f4; padding:6px; border:1px solid #ccc; }" +
-                    "table { border-collapse:collapse; font-family: Arial; }" +
-                    "th, td { border: 1px solid #ccc; padding: 6px; }" +
-                    "a { color: #0066cc; }" +
-                    "code { background: #f4f4f4; padding: 2px 4px; border-radius: 3px; }";
-
-                String html = "<!DOCTYPE html>\n" +
-                    "<html lang=\"en\">\n" +
-                    "<head>\n" +
-                    "    <meta charset=\"UTF-8\">\n" +
-                    "    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1.0\">\n" +
-                    "    <title>" + file.getName() + "</title>\n" +
-                    "    <style>\n" + css + "\n    </style>\n" +
-                    "</head>\n" +
-                    "<body>\n" + renderer.render(parser.parse(editor.getText())) + "\n</body>\n</html>";
-
-                writer.write(html);
+            try {
+                renderService.join().exportToFile(file.toPath(), getEditorText(), getRenderOptions(), true);
                 JOptionPane.showMessageDialog(null, "HTML file exported successfully!");
             } catch (IOException ex) {
                 showError("Failed to export HTML: " + ex.getMessage());
@@ -437,43 +1031,351 @@ public class MarkdownEditorSwing {
         }
     }
 
+    /**
+     * Opens the file in a tab, used by the Open dialog, drag and drop, the Recent Files menu and the
+     * search. A file that is already open is only shown, an untouched untitled tab is reused.
+     */
     private void loadFile(File file) {
-        try {
-            String content = new String(java.nio.file.Files.readAllBytes(file.toPath()));
-            editor.setText(content);
-            addToRecentFiles(file);
-        } catch (IOException e) {
-            showError("Could not read file: " + e.getMessage());
+        Path path = file.toPath().toAbsolutePath().normalize();
+        for (EditorTab tab : tabs) {
+            Path tabFile = tab.getFileLoader() != null ? tab.getFileLoader().getFile() : tab.getFile();
+            if (tabFile != null && tabFile.toAbsolutePath().normalize().equals(path)) {
+                selectTab(tab);
+                return;
+            }
+        }
+        loadFileInto(activeTab.isPristine() ? activeTab : newTab(""), file);
+    }
+
+    /**
+     * Reads the file into the tab through a {@link LargeFileLoader}. The tab is read-only and its
+     * preview suspended until the load finishes.
+     */
+    private void loadFileInto(EditorTab tab, File file) {
+        AutosaveManager autosave = tab.getAutosave();
+        autosave.suspend();
+        tab.setDatabaseDocument(null);
+        tab.setPreviewSuspended(true);
+        if (tab == activeTab) {
+            editor.setEditable(false);
+        }
+        tab.setText("");
+
+        ProgressMonitor monitor = new ProgressMonitor(editor, "Opening " + file.getName(), null, 0, 100);
+        LargeFileLoader[] loader = new LargeFileLoader[1];
+        loader[0] = new LargeFileLoader(file.toPath(), tab.getDocument(), loadChunkCharacters,
+                () -> {
+                    monitor.close();
+                    if (tab.getFileLoader() == loader[0]) {
+                        finishLoading(tab);
+                        autosave.open(file.toPath());
+                        if (tab == activeTab) {
+                            editor.setCaretPosition(0);
+                        }
+                        addToRecentFiles(file);
+                        searchIndexer.indexFile(file.toPath());
+                    }
+                },
+                ex -> {
+                    monitor.close();
+                    // A load replaced by a newer one or of a closed tab must not touch the document anymore
+                    if (tab.getFileLoader() == loader[0]) {
+                        tab.setText("");
+                        finishLoading(tab);
+                        autosave.open(null);
+                        if (!(ex instanceof java.util.concurrent.CancellationException)) {
+                            showError("Could not read file: " + ex.getMessage());
+                        }
+                    }
+                });
+        loader[0].addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                monitor.setProgress((Integer) e.getNewValue());
+            }
+            if (monitor.isCanceled()) {
+                loader[0].cancel(true);
+            }
+        });
+        tab.setFileLoader(loader[0]);
+        loader[0].execute();
+    }
+
+    private void finishLoading(EditorTab tab) {
+        tab.setFileLoader(null);
+        tab.setPreviewSuspended(false);
+        tab.getRenderer().thenAccept(IncrementalMarkdownRenderer::invalidate);
+        if (tab == activeTab) {
+            editor.setEditable(true);
+            updatePreviewNow();
         }
     }
 
+    /**
+     * Saves to the current file in the background, or to the database if the document came from there.
+     * Asks for a file if the document is untitled.
+     */
     private void saveFile() {
+        if (activeTab.getFile() != null) {
+            activeTab.getAutosave().saveNow();
+        } else if (activeTab.getDatabaseDocument() != null) {
+            storeInDatabase(activeTab.getDatabaseDocument());
+        } else {
+            saveFileAs();
+        }
+    }
+
+    /**
+     * Asks for a file and saves to it in the background.
+     *
+     * @return {@code false} if no file was chosen
+     */
+    private boolean saveFileAs() {
         JFileChooser chooser = new JFileChooser();
         FileNameExtensionFilter mdFilter = new FileNameExtensionFilter("Markdown files (*.md)", "md");
         chooser.setFileFilter(mdFilter);
         chooser.setAcceptAllFileFilterUsed(false);
-        chooser.setSelectedFile(new File("untitled.md"));
+        chooser.setSelectedFile(activeTab.getFile() != null ? activeTab.getFile().toFile() : new File("untitled.md"));
 
         int result = chooser.showSaveDialog(null);
-        if (result == JFileChooser.APPROVE_OPTION) {
-            File file = chooser.getSelectedFile();
-            if (!file.getName().toLowerCase().endsWith(".md")) {
-                file = new File(file.getAbsolutePath() + ".md");
+        if (result != JFileChooser.APPROVE_OPTION) {
+            return false;
+        }
+        File file = chooser.getSelectedFile();
+        if (!file.getName().toLowerCase().endsWith(".md")) {
+            file = new File(file.getAbsolutePath() + ".md");
+        }
+        activeTab.getAutosave().saveAs(file.toPath());
+        addToRecentFiles(file);
+        return true;
+    }
+
+    /**
+     * Offers to restore the changes a previous session could not save, each document in a tab of its own.
+     */
+    private void recoverAutosave() {
+        List<String> problems = new ArrayList<>();
+        for (AutosaveManager.Recovery recovery : AutosaveManager.findRecoveries(AutosaveManager.directoryFromConfig(),
+                problems::add)) {
+            recoverAutosave(recovery);
+        }
+        if (!problems.isEmpty()) {
+            showError(String.join("\n", problems));
+        }
+    }
+
+    private void recoverAutosave(AutosaveManager.Recovery recovery) {
+        String name = recovery.file() != null ? recovery.file().toString() : "an untitled document";
+        int result = JOptionPane.showConfirmDialog(
+                null,
+                "The editor was not closed properly. Recover the unsaved changes to " + name + "?",
+                "Recover Unsaved Changes",
+                JOptionPane.YES_NO_OPTION
+        );
+        try {
+            if (result == JOptionPane.YES_OPTION) {
+                String text = AutosaveManager.recover(recovery);
+                EditorTab tab = activeTab.isPristine() ? activeTab : newTab("");
+                AutosaveManager autosave = tab.getAutosave();
+                autosave.suspend();
+                if (recovery.file() != null) {
+                    // The file is still what the edits were made to, writing it now keeps them if the editor crashes again
+                    tab.setText(text);
+                    autosave.open(recovery.file());
+                    autosave.saveNow();
+                } else {
+                    // Journaled as an edit of an empty document, so it is kept until it is saved somewhere
+                    tab.setText("");
+                    autosave.open(null);
+                    tab.setText(text);
+                }
+                editor.setCaretPosition(0);
+            }
+            java.nio.file.Files.deleteIfExists(recovery.journal());
+        } catch (IOException e) {
+            showError("Could not recover the unsaved changes, they were kept in " + recovery.journal() + ".failed: "
+                    + e.getMessage());
+            try {
+                java.nio.file.Files.move(recovery.journal(), recovery.journal().resolveSibling(
+                        recovery.journal().getFileName() + ".failed"), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ignored) {
+                // Offered again on the next start
             }
+        }
+    }
 
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-                writer.write(editor.getText());
-                addToRecentFiles(file);
-            } catch (IOException e) {
-                showError("Could not save file: " + e.getMessage());
+    /**
+     * Lets the user pick one of the documents in the database and opens it as an untitled document
+     * that is saved back to the database.
+     */
+    private void openFromDatabase() {
+        runDatabaseTask("list the documents in the database", () -> databaseManager.getIDatabase().list(), documents -> {
+            if (documents.isEmpty()) {
+                JOptionPane.showMessageDialog(null, "The database holds no documents yet.", "Open from Database",
+                        JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            String[] names = documents.stream().map(IDatabase.DocumentInfo::name).toArray(String[]::new);
+            String name = (String) JOptionPane.showInputDialog(null, "Document:", "Open from Database",
+                    JOptionPane.QUESTION_MESSAGE, null, names, names[0]);
+            if (name == null) {
+                return;
             }
+            openDatabaseDocument(name);
+        });
+    }
+
+    /**
+     * Opens the document in a tab like {@link #loadFile(File)}, or shows the tab it is already open in.
+     */
+    private void openDatabaseDocument(String name) {
+        for (EditorTab tab : tabs) {
+            if (name.equals(tab.getDatabaseDocument())) {
+                selectTab(tab);
+                return;
+            }
+        }
+        runDatabaseTask("load " + name, () -> databaseManager.getIDatabase().load(name), document -> {
+            if (document.isEmpty()) {
+                showError(name + " is no longer in the database.");
+                return;
+            }
+            EditorTab tab = activeTab.isPristine() ? activeTab : newTab("");
+            tab.getAutosave().suspend();
+            tab.setText(document.get().content());
+            tab.setDatabaseDocument(name);
+            tab.getAutosave().open(null);
+            editor.setCaretPosition(0);
+        });
+    }
+
+    /**
+     * Opens the search dialog, which opens the chosen file or database document in the editor.
+     */
+    private void showSearch() {
+        new SearchDialog(searchIndexer, key -> {
+            if (SearchIndexer.isFile(key)) {
+                File file = SearchIndexer.toFile(key).toFile();
+                if (file.isFile()) {
+                    loadFile(file);
+                } else {
+                    showError(file + " no longer exists.");
+                    searchIndexer.indexFile(file.toPath());
+                }
+            } else if (SearchIndexer.isDatabaseDocument(key) && databaseManager.isDatabaseSupported()) {
+                openDatabaseDocument(SearchIndexer.toDatabaseDocument(key));
+            }
+        }).setVisible(true);
+    }
+
+    private void saveToDatabase() {
+        String suggestion = activeTab.getDatabaseDocument() != null ? activeTab.getDatabaseDocument()
+                : activeTab.getFile() != null ? activeTab.getFile().getFileName().toString() : "untitled.md";
+        String name = (String) JOptionPane.showInputDialog(null, "Document name:", "Save to Database",
+                JOptionPane.QUESTION_MESSAGE, null, null, suggestion);
+        if (name != null && !name.isBlank()) {
+            storeInDatabase(name.strip());
+        }
+    }
+
+    /**
+     * Saves the document as a new revision of {@code name} in the background. A document without a
+     * file counts as saved afterwards.
+     */
+    private void storeInDatabase(String name) {
+        EditorTab tab = activeTab;
+        AutosaveManager autosave = tab.getAutosave();
+        CharSequence text = tab.getText();
+        long sequence = autosave.getEditSequence();
+        runDatabaseTask("save " + name + " to the database", () -> databaseManager.getIDatabase().save(name, text.toString()),
+                revision -> {
+                    tab.setDatabaseDocument(name);
+                    if (autosave.getFile() == null) {
+                        autosave.markSaved(sequence);
+                    }
+                    tabChanged(tab);
+                    searchIndexer.indexDatabaseDocument(name);
+                });
+    }
+
+    /**
+     * Shows the revisions of the current database document. A restored revision replaces the editor
+     * text as an ordinary edit, so saving it adds it as the newest revision.
+     */
+    private void showRevisionHistory() {
+        EditorTab tab = activeTab;
+        if (tab.getDatabaseDocument() == null) {
+            JOptionPane.showMessageDialog(null, "Open a document from the database or save it there first.",
+                    "Revision History", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        String name = tab.getDatabaseDocument();
+        runDatabaseTask("open the database", databaseManager::getIDatabase,
+                database -> new RevisionHistoryDialog(database, name, document -> {
+                    if (tabs.contains(tab) && name.equals(tab.getDatabaseDocument())) {
+                        selectTab(tab);
+                        tab.setText(document.content());
+                        editor.setCaretPosition(0);
+                    }
+                }).setVisible(true));
+    }
+
+    /**
+     * Saves the document to the database on the calling thread, used when the editor is closed.
+     */
+    private boolean storeInDatabaseAndWait() {
+        String name = activeTab.getDatabaseDocument();
+        try {
+            long sequence = activeTab.getAutosave().getEditSequence();
+            databaseManager.getIDatabase().save(name, getEditorText().toString());
+            activeTab.getAutosave().markSaved(sequence);
+            searchIndexer.indexDatabaseDocument(name);
+            return true;
+        } catch (java.sql.SQLException | RuntimeException ex) {
+            showError("Could not save " + name + " to the database: " + ex.getMessage());
+            return false;
         }
     }
 
+    /**
+     * Runs {@code task} off the EDT and passes its result to {@code onSuccess} on the EDT. Failures are
+     * shown as "Could not {@code action}".
+     */
+    private <T> void runDatabaseTask(String action, java.util.concurrent.Callable<T> task,
+                                     java.util.function.Consumer<T> onSuccess) {
+        new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return task.call();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    onSuccess.accept(get());
+                } catch (java.util.concurrent.ExecutionException ex) {
+                    showError("Could not " + action + ": " + ex.getCause().getMessage());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    private void updateTitle() {
+        frame.setTitle("Markdown Editor - " + activeTab.getTitle());
+    }
+
     private void showError(String message) {
         JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE);
     }
 
+    /**
+     * {@link #showError} for background threads.
+     */
+    private void showErrorLater(String message) {
+        SwingUtilities.invokeLater(() -> showError(message));
+    }
+
     private void saveRecentFiles() {
         File recentFile = new File(RECENT_FILES_PATH);
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(recentFile, false))) {
@@ -486,19 +1388,61 @@ public class MarkdownEditorSwing {
         }
     }
 
-    private void loadRecentFiles() {
+    /**
+     * Reads the recent files and drops the ones that no longer exist on a background thread, which can
+     * take a while on network drives. Files opened in the meantime stay at the top of the list.
+     */
+    private void loadRecentFilesInBackground() {
+        recentFilesLoader = new SwingWorker<>() {
+            @Override
+            protected List<File> doInBackground() throws IOException {
+                List<File> files = readRecentFiles();
+                files.removeIf(file -> !file.isFile());
+                return files;
+            }
+
+            @Override
+            protected void done() {
+                if (recentFilesLoader != this) {
+                    return;
+                }
+                recentFilesLoader = null;
+                try {
+                    mergeRecentFiles(get());
+                } catch (Exception ex) {
+                    showError("Failed to load recent files: " + ex.getMessage());
+                }
+                StartupTimer.mark("recent files loaded");
+                searchIndexer.start(recentFiles.stream().map(File::toPath).toList());
+            }
+        };
+        recentFilesLoader.execute();
+    }
+
+    private void mergeRecentFiles(List<File> stored) {
+        for (File file : stored) {
+            if (recentFiles.size() >= 20) {
+                break;
+            }
+            if (!recentFiles.contains(file)) {
+                recentFiles.add(file);
+            }
+        }
+        updateRecentMenu();
+    }
+
+    private List<File> readRecentFiles() throws IOException {
+        List<File> files = new ArrayList<>();
         File recentFile = new File(RECENT_FILES_PATH);
         if (!recentFile.exists()) {
-            recentFiles = new ArrayList<>();
-            return; // No recent files to load
+            return files; // No recent files to load
         }
         try (BufferedReader reader = new BufferedReader(new FileReader(recentFile))) {
             String line;
             while ((line = reader.readLine()) != null) {
-                recentFiles.add(new File(line));
+                files.add(new File(line));
             }
-        } catch (IOException e) {
-            showError("Failed to load recent files: " + e.getMessage());
         }
+        return files;
     }
 }
\ No newline at end of file
@@ -0,0 +1,372 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 17:40
+ */
+
+import com.vladsch.flexmark.ext.autolink.AutolinkExtension;
+import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughExtension;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import com.vladsch.flexmark.util.misc.Extension;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Headless Markdown rendering shared by the editor and the command line. One immutable
+ * {@link Parser}/{@link HtmlRenderer} pair is shared by all callers, rendering goes block by block
+ * through the {@link HtmlFragmentCache}, and the theme CSS comes from the {@link ThemeEngine}.
+ * All methods are thread-safe and do not touch AWT.
+ */
+@SuppressWarnings("unused")
+public final class MarkdownRenderService {
+
+    /**
+     * Identifies the parser/renderer configuration in the fragment cache.
+     */
+    public static final String OPTIONS_KEY = "tables,autolink,strikethrough,highlight";
+
+    /**
+     * Attribute flexmark writes on the block elements of the preview, holding the {@code start-end}
+     * source offsets of the node, relative to the start of the rendered text.
+     */
+    public static final String SOURCE_POSITION_ATTRIBUTE = "md-pos";
+
+    /**
+     * Identifies the preview configuration in the fragment cache, see {@link #SOURCE_POSITION_ATTRIBUTE}.
+     */
+    public static final String PREVIEW_OPTIONS_KEY = OPTIONS_KEY + "," + SOURCE_POSITION_ATTRIBUTE;
+
+    static final String EXPORT_FOOTER = "\n</body>\n</html>";
+
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Tables with at least this many rows are shown as a {@link LargeTablePane} in the preview.
+     */
+    public static final int DEFAULT_LARGE_TABLE_ROWS = 1000;
+
+    private final Parser parser;
+    private final HtmlRenderer renderer;
+    private final HtmlRenderer previewRenderer;
+    private final HtmlFragmentCache fragmentCache;
+    private final SyntaxHighlighter syntaxHighlighter;
+    private final ThemeEngine themeEngine;
+    private final int largeTableRows;
+
+    public MarkdownRenderService(HtmlFragmentCache fragmentCache, SyntaxHighlighter syntaxHighlighter) {
+        this(fragmentCache, syntaxHighlighter, ThemeEngine.builtIn());
+    }
+
+    public MarkdownRenderService(HtmlFragmentCache fragmentCache, SyntaxHighlighter syntaxHighlighter,
+                                 ThemeEngine themeEngine) {
+        this(fragmentCache, syntaxHighlighter, themeEngine, DEFAULT_LARGE_TABLE_ROWS);
+    }
+
+    /**
+     * @param largeTableRows the preview shows tables with at least this many rows as a {@link LargeTablePane},
+     *                       {@code 0} shows all tables inline; the export always writes the whole table
+     */
+    public MarkdownRenderService(HtmlFragmentCache fragmentCache, SyntaxHighlighter syntaxHighlighter,
+                                 ThemeEngine themeEngine, int largeTableRows) {
+        this.fragmentCache = fragmentCache;
+        this.syntaxHighlighter = syntaxHighlighter;
+        this.themeEngine = themeEngine;
+        this.largeTableRows = largeTableRows;
+        this.parser = createParser();
+        this.renderer = createRenderer(syntaxHighlighter, "", 0);
+        this.previewRenderer = createRenderer(syntaxHighlighter, SOURCE_POSITION_ATTRIBUTE, largeTableRows);
+    }
+
+    public static MarkdownRenderService fromConfig() {
+        return fromConfig(ThemeEngine.fromConfig());
+    }
+
+    public static MarkdownRenderService fromConfig(ThemeEngine themeEngine) {
+        LargeTableModel.setMaxRegisteredBytes(Main.config.getInt("preview.largeTableCacheMegabytes", 64) * 1024L * 1024L);
+        return new MarkdownRenderService(HtmlFragmentCache.fromConfig(), new SyntaxHighlighter(new HtmlFragmentCache(
+                Main.config.getInt("cache.highlightMaxEntries", 2000),
+                Main.config.getInt("cache.highlightMaxMegabytes", 8) * 1024L * 1024L)), themeEngine,
+                Main.config.getInt("preview.largeTableRows", DEFAULT_LARGE_TABLE_ROWS));
+    }
+
+    /**
+     * Builds the service from the configuration on a background thread, so the editor window can open
+     * while flexmark loads its extensions. A small document is rendered once to load the parser and
+     * renderer classes there as well.
+     */
+    public static CompletableFuture<MarkdownRenderService> fromConfigAsync(ThemeEngine themeEngine) {
+        return CompletableFuture.supplyAsync(() -> {
+            MarkdownRenderService service = fromConfig(themeEngine);
+            service.renderPreviewFull("# Markdown\n\nSome *text* with `code`.\n\n| a | b |\n|---|---|\n| 1 | 2 |\n");
+            StartupTimer.mark("render engine ready");
+            return service;
+        }, runnable -> {
+            Thread thread = new Thread(runnable, "render-init");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * A service without any caching, e.g. for benchmarks that must measure the real rendering cost.
+     */
+    public static MarkdownRenderService uncached() {
+        return new MarkdownRenderService(new HtmlFragmentCache(0, 0), new SyntaxHighlighter(new HtmlFragmentCache(0, 0)));
+    }
+
+    static Parser createParser() {
+        return Parser.builder()
+                .extensions(List.of(
+                    TablesExtension.create(),
+                    AutolinkExtension.create(),
+                    StrikethroughExtension.create()
+                ))
+                .build();
+    }
+
+    /**
+     * @param sourcePositionAttribute attribute for the source offsets of block elements, empty for none
+     * @param largeTableRows          see {@link LargeTableExtension}, {@code 0} for none
+     */
+    static HtmlRenderer createRenderer(SyntaxHighlighter syntaxHighlighter, String sourcePositionAttribute,
+                                       int largeTableRows) {
+        List<Extension> extensions = new ArrayList<>(List.of(
+                TablesExtension.create(),
+                AutolinkExtension.create(),
+                StrikethroughExtension.create(),
+                CodeHighlightExtension.create(syntaxHighlighter)
+        ));
+        if (largeTableRows > 0) {
+            extensions.add(LargeTableExtension.create(largeTableRows));
+        }
+        return HtmlRenderer.builder(new MutableDataSet().set(HtmlRenderer.SOURCE_POSITION_ATTRIBUTE, sourcePositionAttribute))
+                .extensions(extensions)
+                .build();
+    }
+
+    public Parser getParser() {
+        return parser;
+    }
+
+    public HtmlRenderer getRenderer() {
+        return renderer;
+    }
+
+    public HtmlFragmentCache getFragmentCache() {
+        return fragmentCache;
+    }
+
+    public ThemeEngine getThemeEngine() {
+        return themeEngine;
+    }
+
+    public SyntaxHighlighter getSyntaxHighlighter() {
+        return syntaxHighlighter;
+    }
+
+    /**
+     * The row count from which the preview shows a table as a {@link LargeTablePane}, {@code 0} if never.
+     */
+    public int getLargeTableRows() {
+        return largeTableRows;
+    }
+
+    /**
+     * Renders the document in one piece, without splitting it into blocks.
+     */
+    public String renderFull(CharSequence markdown) {
+        return render(renderer, parse(markdown));
+    }
+
+    /**
+     * Renders {@code markdown[start, end)}, which must be a complete block, through the fragment cache.
+     */
+    public String renderBlock(CharSequence markdown, int start, int end) {
+        HtmlFragmentCache.Key key = HtmlFragmentCache.key(OPTIONS_KEY, markdown, start, end);
+        return fragmentCache.get(key, () -> render(renderer, parse(markdown.subSequence(start, end))));
+    }
+
+    /**
+     * Renders the document in one piece for the preview, with source positions on the block elements.
+     */
+    public String renderPreviewFull(CharSequence markdown) {
+        return render(previewRenderer, parse(markdown));
+    }
+
+    /**
+     * Renders a block for the preview like {@link #renderBlock}, with source positions relative to {@code start}.
+     * Blocks keep their HTML when they move, so the positions must not depend on where the block is.
+     */
+    public String renderPreviewBlock(CharSequence markdown, int start, int end) {
+        HtmlFragmentCache.Key key = HtmlFragmentCache.key(PREVIEW_OPTIONS_KEY, markdown, start, end);
+        String html = fragmentCache.get(key, () -> render(previewRenderer, parse(markdown.subSequence(start, end))));
+        // A large table needs at least two characters per row; its model may have been dropped since it was cached
+        if (largeTableRows > 0 && end - start >= 2L * largeTableRows && LargeTableExtension.hasMissingTable(html)) {
+            html = render(previewRenderer, parse(markdown.subSequence(start, end)));
+            fragmentCache.put(key, html);
+        }
+        return html;
+    }
+
+    private Document parse(CharSequence markdown) {
+        try (PerformanceMetrics.Sample sample = PerformanceMetrics.start(PerformanceMetrics.Stage.PARSE)) {
+            return parser.parse(markdown.toString());
+        }
+    }
+
+    private static String render(HtmlRenderer htmlRenderer, Node document) {
+        try (PerformanceMetrics.Sample sample = PerformanceMetrics.start(PerformanceMetrics.Stage.RENDER)) {
+            return htmlRenderer.render(document);
+        }
+    }
+
+    private static void render(HtmlRenderer htmlRenderer, Node document, Appendable out) {
+        try (PerformanceMetrics.Sample sample = PerformanceMetrics.start(PerformanceMetrics.Stage.RENDER)) {
+            htmlRenderer.render(document, out);
+        }
+    }
+
+    /**
+     * Renders a complete document to an HTML body, block by block through the fragment cache.
+     */
+    public String renderBody(CharSequence markdown) {
+        StringBuilder html = new StringBuilder(markdown.length() + (markdown.length() >> 2));
+        int pos = 0;
+        while (pos < markdown.length()) {
+            int end = MarkdownBlockSplitter.blockEnd(markdown, pos);
+            if (MarkdownBlockSplitter.definesReferences(markdown, pos, end)) {
+                // Reference definitions are document-wide, isolated blocks cannot resolve them
+                return renderFull(markdown);
+            }
+            html.append(renderBlock(markdown, pos, end));
+            pos = end;
+        }
+        return html.toString();
+    }
+
+    /**
+     * Streams the HTML body of a complete document into {@code out}. Blocks are parsed and rendered one
+     * at a time, so apart from the source only a single block's AST and HTML are held in memory.
+     *
+     * @param cached go through the fragment cache; batch exports of unrelated files pass {@code false}
+     */
+    public void writeBody(CharSequence markdown, Appendable out, boolean cached) throws IOException {
+        // The blocks are written as they are rendered, so the reference check must come first
+        for (int pos = 0; pos < markdown.length(); ) {
+            int end = MarkdownBlockSplitter.blockEnd(markdown, pos);
+            if (MarkdownBlockSplitter.definesReferences(markdown, pos, end)) {
+                render(renderer, parse(markdown), out);
+                return;
+            }
+            pos = end;
+        }
+        for (int pos = 0; pos < markdown.length(); ) {
+            int end = MarkdownBlockSplitter.blockEnd(markdown, pos);
+            if (cached) {
+                out.append(renderBlock(markdown, pos, end));
+            } else {
+                render(renderer, parse(markdown.subSequence(pos, end)), out);
+            }
+            pos = end;
+        }
+    }
+
+    /**
+     * Streams a complete standalone HTML page into {@code out}, see {@link #writeBody}.
+     */
+    public void writeExportDocument(String title, CharSequence markdown, RenderOptions options, Appendable out,
+                                    boolean cached) throws IOException {
+        try (PerformanceMetrics.Sample sample = PerformanceMetrics.start(PerformanceMetrics.Stage.EXPORT)) {
+            out.append(exportHeader(title, options));
+            writeBody(markdown, out, cached);
+            out.append(EXPORT_FOOTER);
+        }
+    }
+
+    /**
+     * Exports the document to {@code target} as UTF-8, titled with the target's file name.
+     */
+    public void exportToFile(Path target, CharSequence markdown, RenderOptions options, boolean cached) throws IOException {
+        try (Writer writer = newExportWriter(target)) {
+            writeExportDocument(target.getFileName().toString(), markdown, options, writer, cached);
+        }
+    }
+
+    /**
+     * A buffered writer that encodes straight into the file channel as UTF-8, independent of the
+     * platform charset.
+     */
+    public static Writer newExportWriter(Path target) throws IOException {
+        FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), EXPORT_BUFFER_SIZE),
+                EXPORT_BUFFER_SIZE);
+    }
+
+    public IncrementalMarkdownRenderer createIncrementalRenderer(boolean verify) {
+        return new IncrementalMarkdownRenderer(this, verify);
+    }
+
+    /**
+     * @param blockStarts the source offset every fragment was rendered from
+     */
+    public PreviewPatcher.Content previewContent(List<String> fragments, int[] blockStarts, RenderOptions options) {
+        return new PreviewPatcher.Content(themeEngine.styleSheet(options), fragments, blockStarts);
+    }
+
+    /**
+     * Renders a complete standalone HTML page, as written by the export.
+     */
+    public String renderExportDocument(String title, CharSequence markdown, RenderOptions options) {
+        return exportDocument(title, renderBody(markdown), options);
+    }
+
+    public String exportStyles(RenderOptions options) {
+        return themeEngine.css(options);
+    }
+
+    public String exportDocument(String title, String body, RenderOptions options) {
+        return exportHeader(title, options) + body + EXPORT_FOOTER;
+    }
+
+    /**
+     * @param title plain text, it is escaped here
+     */
+    String exportHeader(String title, RenderOptions options) {
+        return "<!DOCTYPE html>\n" +
+            "<html lang=\"en\">\n" +
+            "<head>\n" +
+            "    <meta charset=\"UTF-8\">\n" +
+            "    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1.0\">\n" +
+            "    <title>" + escapeHtml(title) + "</title>\n" +
+            "    <style>\n" + exportStyles(options) + "\n    </style>\n" +
+            "</head>\n" +
+            "<body>\n";
+    }
+
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -8,28 +8,69 @@ package ch.framedev;
  * This File was Created by FrameDev
  * Please do not change anything without my consent!
  * =============================================
- * This Class was created at 23.05.2025 23:59
+ * This Class was created at 24.05.2025 00:01
  */
 
-import ch.framedev.javamysqlutils.MySQLV2;
-@SuppressWarnings("unused")
-public class MySQLManager implements IDatabase {
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.DriverManager;
+import java.util.Properties;
 
-    @SuppressWarnings({"FieldCanBeLocal", "FieldMayBeFinal"})
-    private MySQLV2 mySQLV2;
+/**
+ * The document store on a MySQL server. The driver is asked to cache server-side prepared statements
+ * and to rewrite batches into multi-row inserts.
+ */
+@SuppressWarnings("unused")
+public class MySQLManager extends JdbcDocumentStore {
 
     public MySQLManager() {
-        String host = Main.config.getString("database.mysql.host", "localhost");
-        int port = Main.config.getInt("database.mysql.port", 3306);
-        String database = Main.config.getString("database.mysql.database", "database");
-        String username = Main.config.getString("database.mysql.username", "username");
-        String password = Main.config.getString("database.mysql.password", "password");
-        mySQLV2 = new MySQLV2.Builder()
-                .host(host)
-                .port(port)
-                .user(username)
-                .password(password)
-                .database(database)
-                .build();
+        this(Main.config.getString("database.mysql.host", "localhost"),
+                Main.config.getInt("database.mysql.port", 3306),
+                Main.config.getString("database.mysql.database", "database"),
+                Main.config.getString("database.mysql.user", "root"),
+                Main.config.getString("database.mysql.password", "password"),
+                Main.config.getInt("database.poolSize", 4),
+                Main.config.getInt("database.connectionTimeoutMillis", 10000),
+                Main.config.getInt("database.snapshotInterval", 20));
+    }
+
+    public MySQLManager(String host, int port, String database, String user, String password, int poolSize,
+                        long connectionTimeoutMillis, int snapshotInterval) {
+        super(new ConnectionPool(() -> open(host, port, database, user, password), poolSize, connectionTimeoutMillis),
+                snapshotInterval);
+    }
+
+    private static java.sql.Connection open(String host, int port, String database, String user, String password)
+            throws java.sql.SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", user);
+        properties.setProperty("password", password);
+        properties.setProperty("useServerPrepStmts", "true");
+        properties.setProperty("cachePrepStmts", "true");
+        properties.setProperty("rewriteBatchedStatements", "true");
+        properties.setProperty("characterEncoding", "UTF-8");
+        String url = "jdbc:mysql://" + host + ":" + port + "/" + URLEncoder.encode(database, StandardCharsets.UTF_8);
+        return DriverManager.getConnection(url, properties);
+    }
+
+    @Override
+    protected String blobType() {
+        return "LONGBLOB";
+    }
+
+    @Override
+    protected String tableOptions() {
+        return " ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
+    }
+
+    @Override
+    protected String upsertDocument() {
+        return "INSERT INTO md_documents (name, revision, modified) VALUES (?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE revision = VALUES(revision), modified = VALUES(modified)";
+    }
+
+    @Override
+    protected String lockForUpdate() {
+        return " FOR UPDATE";
     }
 }
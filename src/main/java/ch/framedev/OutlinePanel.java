@@ -0,0 +1,211 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 23:35
+ */
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Lists the headings of the document in the editor as a tree and moves the caret to a heading when it
+ * is clicked or chosen with Enter. The {@link HeadingIndex} follows every edit while the panel is
+ * shown; the tree is only rebuilt when a heading was added, removed or renamed, at most every
+ * {@link #REBUILD_DELAY_MILLIS}.
+ * A hidden panel drops its index and scans the document again when it is shown.
+ */
+@SuppressWarnings("unused")
+public class OutlinePanel extends JPanel {
+
+    private static final int REBUILD_DELAY_MILLIS = 300;
+
+    /**
+     * A node of the tree, {@code ordinal} is the position of the heading in the index.
+     */
+    private record Item(String title, int ordinal) {
+        @Override
+        public String toString() {
+            return title.isEmpty() ? " " : title;
+        }
+    }
+
+    private final JTextArea editor;
+    private final HeadingIndex index = new HeadingIndex();
+    private final DefaultMutableTreeNode root = new DefaultMutableTreeNode();
+    private final DefaultTreeModel model = new DefaultTreeModel(root);
+    private final JTree tree = new JTree(model);
+    private final Timer rebuildTimer = new Timer(REBUILD_DELAY_MILLIS, e -> rebuildTree());
+    private int treeVersion = -1;
+    private Document document;
+
+    private final DocumentListener listener = new DocumentListener() {
+        public void insertUpdate(DocumentEvent e) {
+            index.insertUpdate(EditorTab.getText(e.getDocument()), e.getOffset(), e.getLength());
+            scheduleRebuild();
+        }
+
+        public void removeUpdate(DocumentEvent e) {
+            index.removeUpdate(EditorTab.getText(e.getDocument()), e.getOffset(), e.getLength());
+            scheduleRebuild();
+        }
+
+        public void changedUpdate(DocumentEvent e) {
+        }
+    };
+
+    public OutlinePanel(JTextArea editor) {
+        super(new BorderLayout());
+        this.editor = editor;
+        rebuildTimer.setRepeats(false);
+        tree.setRootVisible(false);
+        tree.setShowsRootHandles(true);
+        tree.getSelectionModel().setSelectionMode(javax.swing.tree.TreeSelectionModel.SINGLE_TREE_SELECTION);
+        tree.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                TreePath path = tree.getPathForLocation(e.getX(), e.getY());
+                if (path != null && SwingUtilities.isLeftMouseButton(e)) {
+                    jumpTo(path);
+                }
+            }
+        });
+        tree.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "jumpToHeading");
+        tree.getActionMap().put("jumpToHeading", new AbstractAction() {
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                if (tree.getSelectionPath() != null) {
+                    jumpTo(tree.getSelectionPath());
+                }
+            }
+        });
+        add(new JScrollPane(tree), BorderLayout.CENTER);
+        setPreferredSize(new Dimension(220, 0));
+
+        // The editor shows another document when the tab changes
+        editor.addPropertyChangeListener("document", e -> {
+            if (isVisible()) {
+                attach(editor.getDocument());
+            }
+        });
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        super.setVisible(visible);
+        if (visible) {
+            attach(editor.getDocument());
+        } else {
+            detach();
+        }
+    }
+
+    private void attach(Document document) {
+        detach();
+        this.document = document;
+        document.addDocumentListener(listener);
+        document.render(() -> index.rescan(EditorTab.getText(document)));
+        rebuildTree();
+    }
+
+    private void detach() {
+        if (document != null) {
+            document.removeDocumentListener(listener);
+            document = null;
+        }
+        rebuildTimer.stop();
+        index.invalidate();
+        treeVersion = -1;
+        root.removeAllChildren();
+        model.reload();
+    }
+
+    private void scheduleRebuild() {
+        if (index.getVersion() != treeVersion) {
+            rebuildTimer.restart();
+        }
+    }
+
+    /**
+     * Builds the tree from the headings, every heading is a child of the last one with a lower level.
+     */
+    private void rebuildTree() {
+        if (index.getVersion() == treeVersion) {
+            return;
+        }
+        treeVersion = index.getVersion();
+        List<HeadingIndex.Heading> headings = index.getHeadings();
+        root.removeAllChildren();
+        Deque<DefaultMutableTreeNode> parents = new ArrayDeque<>();
+        Deque<Integer> levels = new ArrayDeque<>();
+        for (int i = 0; i < headings.size(); i++) {
+            HeadingIndex.Heading heading = headings.get(i);
+            while (!levels.isEmpty() && levels.peek() >= heading.level()) {
+                levels.pop();
+                parents.pop();
+            }
+            DefaultMutableTreeNode node = new DefaultMutableTreeNode(new Item(heading.title(), i));
+            (parents.isEmpty() ? root : parents.peek()).add(node);
+            parents.push(node);
+            levels.push(heading.level());
+        }
+        model.reload();
+        for (int row = 0; row < tree.getRowCount(); row++) {
+            tree.expandRow(row);
+        }
+    }
+
+    /**
+     * Moves the caret to the heading and scrolls its line to the top of the editor.
+     */
+    private void jumpTo(TreePath path) {
+        if (index.getVersion() != treeVersion) {
+            // The headings changed since the tree was built, the ordinal may point at another one now
+            rebuildTree();
+            return;
+        }
+        if (!(path.getLastPathComponent() instanceof DefaultMutableTreeNode node)
+                || !(node.getUserObject() instanceof Item item)) {
+            return;
+        }
+        int offset = index.getHeadingOffset(item.ordinal());
+        if (offset < 0 || offset > editor.getDocument().getLength()) {
+            return;
+        }
+        editor.setCaretPosition(offset);
+        try {
+            Rectangle2D line = editor.modelToView2D(offset);
+            JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, editor);
+            if (line != null && viewport != null) {
+                int maxY = Math.max(0, editor.getHeight() - viewport.getExtentSize().height);
+                viewport.setViewPosition(new Point(viewport.getViewPosition().x, Math.min((int) line.getY(), maxY)));
+            }
+        } catch (BadLocationException ignored) {
+            // The caret is at the heading, scrolling is only a convenience
+        }
+        editor.requestFocusInWindow();
+    }
+
+    public HeadingIndex getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,330 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 22:55
+ */
+
+import jdk.jfr.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and allocation counters for the hot paths of the editor. A stage is measured with
+ * <pre>{@code
+ * try (PerformanceMetrics.Sample sample = PerformanceMetrics.start(PerformanceMetrics.Stage.PARSE)) {
+ *     ...
+ * }
+ * }</pre>
+ * which also emits a {@code ch.framedev.Stage} JFR event while a flight recording is running. Stages may
+ * nest, e.g. the render of a code block includes its highlighting. The allocation counters count the
+ * bytes the measuring thread allocated during the stage, where the JVM supports it.
+ * <p>
+ * {@code metrics.enabled: false} turns the measuring off, {@code metrics.dumpFile} writes the numbers to
+ * a {@code .json} or {@code .csv} file every {@code metrics.dumpIntervalSeconds}.
+ */
+@SuppressWarnings("unused")
+public final class PerformanceMetrics {
+
+    public enum Stage {
+        PARSE("Parse"),
+        RENDER("Render"),
+        HIGHLIGHT("Highlight"),
+        PREVIEW_UPDATE("Preview update"),
+        FILE_LOAD("File load"),
+        SAVE("Save"),
+        EXPORT("Export");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * The numbers of one stage, latencies in milliseconds.
+     */
+    public record StageStats(Stage stage, long count, double meanMillis, double p50Millis, double p90Millis,
+                             double p99Millis, double maxMillis, long allocatedBytes) {
+
+        public long allocatedBytesPerSample() {
+            return count == 0 ? 0 : allocatedBytes / count;
+        }
+    }
+
+    /**
+     * A running measurement, ends when it is closed.
+     */
+    public interface Sample extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    @Name("ch.framedev.Stage")
+    @Label("Editor Stage")
+    @Category("Markdown Editor")
+    @Description("A parse, render, highlight, preview update, file load, save or export")
+    @StackTrace(false)
+    static class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+
+    /**
+     * A log-linear histogram: every power of two is split into {@link #SUB_BUCKETS} buckets, so a
+     * percentile is off by at most 1/{@code SUB_BUCKETS} of its value.
+     */
+    private static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        void record(long nanos, long allocated) {
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(index(value));
+            totalNanos.add(value);
+            maxNanos.accumulate(value);
+            allocatedBytes.add(Math.max(0, allocated));
+        }
+
+        static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        /**
+         * The largest value that falls into the bucket.
+         */
+        static long upperBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long subBucket = index % SUB_BUCKETS;
+            return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+        StageStats snapshot(Stage stage) {
+            long[] counts = new long[buckets.length()];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            long max = maxNanos.get();
+            return new StageStats(stage, total, total == 0 ? 0 : totalNanos.sum() / 1e6 / total,
+                    percentile(counts, total, 0.5, max), percentile(counts, total, 0.9, max),
+                    percentile(counts, total, 0.99, max), max / 1e6, allocatedBytes.sum());
+        }
+
+        private static double percentile(long[] counts, long total, double quantile, long max) {
+            long rank = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < counts.length && total > 0; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max) / 1e6;
+                }
+            }
+            return 0;
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            totalNanos.reset();
+            maxNanos.reset();
+            allocatedBytes.reset();
+        }
+    }
+
+    private static final Sample NO_SAMPLE = () -> {
+    };
+    private static final Histogram[] HISTOGRAMS = new Histogram[Stage.values().length];
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+    private static volatile boolean enabled = true;
+    private static ScheduledExecutorService dumpExecutor;
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new Histogram();
+        }
+    }
+
+    private PerformanceMetrics() {
+    }
+
+    /**
+     * Applies {@code metrics.enabled} and starts writing to {@code metrics.dumpFile} if one is set.
+     */
+    public static void configure() {
+        enabled = Main.config.getBoolean("metrics.enabled", true);
+        String dumpFile = Main.config.getString("metrics.dumpFile", "");
+        if (enabled && !dumpFile.isBlank()) {
+            startDump(Path.of(dumpFile), Main.config.getInt("metrics.dumpIntervalSeconds", 60));
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        PerformanceMetrics.enabled = enabled;
+    }
+
+    /**
+     * Starts measuring a stage on the current thread.
+     */
+    public static Sample start(Stage stage) {
+        if (!enabled) {
+            return NO_SAMPLE;
+        }
+        StageEvent event = new StageEvent();
+        event.begin();
+        long startNanos = System.nanoTime();
+        long startBytes = allocatedBytes();
+        return () -> {
+            long allocated = allocatedBytes() - startBytes;
+            HISTOGRAMS[stage.ordinal()].record(System.nanoTime() - startNanos, allocated);
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = stage.getLabel();
+                event.allocated = allocated;
+                event.commit();
+            }
+        };
+    }
+
+    public static List<StageStats> snapshot() {
+        List<StageStats> stats = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            stats.add(HISTOGRAMS[stage.ordinal()].snapshot(stage));
+        }
+        return stats;
+    }
+
+    public static void reset() {
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Writes the current numbers to {@code target}, as CSV if its name ends with {@code .csv} and as JSON
+     * otherwise. The file is replaced atomically, so a reader never sees half of it.
+     */
+    public static void dump(Path target) throws IOException {
+        boolean csv = target.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+        Path absolute = target.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write(csv ? toCsv(snapshot()) : toJson(snapshot()));
+            }
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Writes the numbers to {@code target} every {@code intervalSeconds} and once more when the JVM exits.
+     */
+    public static synchronized void startDump(Path target, int intervalSeconds) {
+        if (dumpExecutor != null) {
+            return;
+        }
+        dumpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runnable write = () -> {
+            try {
+                dump(target);
+            } catch (IOException | RuntimeException ex) {
+                System.err.println("Failed to write the performance metrics to " + target + ": " + ex.getMessage());
+            }
+        };
+        long interval = Math.max(1, intervalSeconds);
+        dumpExecutor.scheduleWithFixedDelay(write, interval, interval, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(write, "metrics-dump-exit"));
+    }
+
+    static String toCsv(List<StageStats> stats) {
+        StringBuilder csv = new StringBuilder("stage,count,mean_ms,p50_ms,p90_ms,p99_ms,max_ms,allocated_bytes,allocated_bytes_per_sample\n");
+        for (StageStats stage : stats) {
+            csv.append(String.format(Locale.ROOT, "%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%d%n", stage.stage().name(),
+                    stage.count(), stage.meanMillis(), stage.p50Millis(), stage.p90Millis(), stage.p99Millis(),
+                    stage.maxMillis(), stage.allocatedBytes(), stage.allocatedBytesPerSample()));
+        }
+        return csv.toString();
+    }
+
+    static String toJson(List<StageStats> stats) {
+        StringBuilder json = new StringBuilder("{\n  \"timestamp\": \"").append(Instant.now()).append("\",\n  \"stages\": [");
+        for (int i = 0; i < stats.size(); i++) {
+            StageStats stage = stats.get(i);
+            json.append(i == 0 ? "\n" : ",\n").append(String.format(Locale.ROOT,
+                    "    {\"stage\": \"%s\", \"count\": %d, \"meanMillis\": %.3f, \"p50Millis\": %.3f, \"p90Millis\": %.3f, "
+                            + "\"p99Millis\": %.3f, \"maxMillis\": %.3f, \"allocatedBytes\": %d}",
+                    stage.stage().name(), stage.count(), stage.meanMillis(), stage.p50Millis(), stage.p90Millis(),
+                    stage.p99Millis(), stage.maxMillis(), stage.allocatedBytes()));
+        }
+        return json.append("\n  ]\n}\n").toString();
+    }
+
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,142 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 23:05
+ */
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Shows the {@link PerformanceMetrics} of every stage, refreshed every second while the panel is open.
+ */
+@SuppressWarnings("unused")
+public class PerformancePanel extends JDialog {
+
+    private static final String[] COLUMNS = {"Stage", "Count", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "Max ms",
+            "Allocated / op", "Allocated"};
+
+    private final StatsModel model = new StatsModel();
+    private final Timer refreshTimer = new Timer(1000, e -> model.refresh());
+
+    public PerformancePanel() {
+        super((Frame) null, "Performance", false);
+        JTable table = new JTable(model);
+        DefaultTableCellRenderer numbers = new DefaultTableCellRenderer();
+        numbers.setHorizontalAlignment(SwingConstants.RIGHT);
+        for (int i = 1; i < COLUMNS.length; i++) {
+            table.getColumnModel().getColumn(i).setCellRenderer(numbers);
+        }
+        table.getColumnModel().getColumn(0).setPreferredWidth(120);
+
+        JCheckBox measure = new JCheckBox("Measure", PerformanceMetrics.isEnabled());
+        measure.addActionListener(e -> PerformanceMetrics.setEnabled(measure.isSelected()));
+        JButton reset = new JButton("Reset");
+        reset.addActionListener(e -> {
+            PerformanceMetrics.reset();
+            model.refresh();
+        });
+        JButton export = new JButton("Export...");
+        export.addActionListener(e -> export());
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> dispose());
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(measure);
+        buttons.add(reset);
+        buttons.add(export);
+        buttons.add(close);
+
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(buttons, BorderLayout.SOUTH);
+        setSize(820, 260);
+        setLocationRelativeTo(null);
+        model.refresh();
+        refreshTimer.start();
+    }
+
+    @Override
+    public void dispose() {
+        refreshTimer.stop();
+        super.dispose();
+    }
+
+    private void export() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.addChoosableFileFilter(new FileNameExtensionFilter("JSON files", "json"));
+        chooser.addChoosableFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+        chooser.setSelectedFile(new File("metrics.json"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            PerformanceMetrics.dump(chooser.getSelectedFile().toPath());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Failed to export the metrics: " + ex.getMessage(), "Error",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private static String bytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static final class StatsModel extends AbstractTableModel {
+        private List<PerformanceMetrics.StageStats> stats = List.of();
+
+        void refresh() {
+            stats = PerformanceMetrics.snapshot();
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return stats.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            PerformanceMetrics.StageStats stage = stats.get(row);
+            return switch (column) {
+                case 0 -> stage.stage().getLabel();
+                case 1 -> String.valueOf(stage.count());
+                case 2 -> String.format("%.3f", stage.meanMillis());
+                case 3 -> String.format("%.3f", stage.p50Millis());
+                case 4 -> String.format("%.3f", stage.p90Millis());
+                case 5 -> String.format("%.3f", stage.p99Millis());
+                case 6 -> String.format("%.3f", stage.maxMillis());
+                case 7 -> bytes(stage.allocatedBytesPerSample());
+                default -> bytes(stage.allocatedBytes());
+            };
+        }
+    }
+}
@@ -0,0 +1,773 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 19:10
+ */
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.GapContent;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link AbstractDocument.Content} backed by a piece table. The pieces live in a persistent treap
+ * ordered by document offset, so inserts and removes are O(log n) in the number of pieces, and
+ * {@link #snapshot} is O(1): a snapshot keeps the root of its revision, and later edits copy the
+ * paths they change instead of modifying nodes. Inserted text goes to append-only buffers, which is
+ * what makes it safe to read a snapshot on another thread without holding the document lock.
+ * <p>
+ * Positions use the same scheme as {@link GapContent}: marks are stored relative to a virtual gap at
+ * the last edit, so an edit only adjusts the marks between the previous and the current edit location.
+ */
+@SuppressWarnings("unused")
+public class PieceTableContent implements AbstractDocument.Content {
+
+    private static final int ADD_BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Inserts at least this long get a buffer of their own instead of being copied into an add block.
+     */
+    private static final int DEDICATED_BUFFER_THRESHOLD = ADD_BLOCK_SIZE / 4;
+
+    /**
+     * Size of the virtual buffer the mark indices refer to. The gap is everything that is not text.
+     */
+    private static final long VIRTUAL_CAPACITY = 1L << 62;
+
+    private static final char[] EMPTY = new char[0];
+
+    private static final class Piece {
+        final char[] buffer;
+        final int offset;
+        final int length;
+        final Piece left;
+        final Piece right;
+        final int priority;
+        final int size;
+
+        Piece(char[] buffer, int offset, int length, Piece left, Piece right, int priority) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+            this.left = left;
+            this.right = right;
+            this.priority = priority;
+            this.size = length + size(left) + size(right);
+        }
+
+        Piece with(Piece left, Piece right) {
+            return new Piece(buffer, offset, length, left, right, priority);
+        }
+    }
+
+    private static final class Split {
+        Piece left;
+        Piece right;
+    }
+
+    private volatile Piece root;
+    private char[] addBlock = new char[ADD_BLOCK_SIZE];
+    private int addBlockUsed;
+
+    private final ReferenceQueue<StickyPosition> queue = new ReferenceQueue<>();
+    // Sorted by index, stored with a gap of their own so new marks near the last one are cheap to insert
+    private MarkData[] marks = new MarkData[16];
+    private int markGapStart;
+    private int markGapEnd = marks.length;
+    private int unusedMarks;
+    private int gapStart;
+
+    public PieceTableContent() {
+        // Like GapContent, the content always ends with the implied newline of the document
+        root = newPiece(new char[]{'\n'}, 0, 1);
+    }
+
+    @Override
+    public int length() {
+        return root.size;
+    }
+
+    @Override
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+        if (where > length() || where < 0) {
+            throw new BadLocationException("Invalid insert", length());
+        }
+        if (str.isEmpty()) {
+            return null;
+        }
+        moveGap(where);
+        root = insert(root, where, str);
+        // The new text ends up in front of the gap, the marks behind it move with the shrinking gap
+        gapStart += str.length();
+        return new InsertEdit(where, str.length());
+    }
+
+    @Override
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        if (where < 0 || nitems < 0 || where + nitems >= length()) {
+            throw new BadLocationException("Invalid remove", length() + 1);
+        }
+        if (nitems == 0) {
+            return null;
+        }
+        RemoveEdit edit = new RemoveEdit(where, getString(where, nitems), positionsInRange(where, nitems));
+        removeText(where, nitems);
+        return edit;
+    }
+
+    private void removeText(int where, int nitems) {
+        moveGap(where);
+        // Marks inside the removed range collapse onto its start
+        long oldGapEnd = gapStart + gapLength();
+        long newGapEnd = oldGapEnd + nitems;
+        for (int i = findSortIndex(oldGapEnd), n = markCount(); i < n; i++) {
+            MarkData mark = markAt(i);
+            if (mark.index >= newGapEnd) {
+                break;
+            }
+            mark.index = newGapEnd;
+        }
+        Split split = new Split();
+        split(root, where, split);
+        Piece left = split.left;
+        split(split.right, nitems, split);
+        root = merge(left, split.right);
+        if (gapStart == 0) {
+            resetMarksAtZero();
+        }
+    }
+
+    @Override
+    public String getString(int where, int len) throws BadLocationException {
+        checkRange(where, len);
+        char[] chars = new char[len];
+        copy(root, where, where + len, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * With partial return allowed, the segment points straight into a piece and may be shorter than
+     * {@code len}. Otherwise the text is copied into a new array, never into the segment's old one,
+     * which may still point into a piece.
+     */
+    @Override
+    public void getChars(int where, int len, Segment txt) throws BadLocationException {
+        checkRange(where, len);
+        if (len == 0) {
+            txt.array = EMPTY;
+            txt.offset = 0;
+            txt.count = 0;
+            return;
+        }
+        if (txt.isPartialReturn()) {
+            Piece node = root;
+            int base = 0;
+            while (true) {
+                int leftSize = size(node.left);
+                if (where < base + leftSize) {
+                    node = node.left;
+                } else if (where < base + leftSize + node.length) {
+                    int pieceStart = base + leftSize;
+                    txt.array = node.buffer;
+                    txt.offset = node.offset + where - pieceStart;
+                    txt.count = Math.min(len, pieceStart + node.length - where);
+                    return;
+                } else {
+                    base += leftSize + node.length;
+                    node = node.right;
+                }
+            }
+        }
+        char[] chars = new char[len];
+        copy(root, where, where + len, chars, 0);
+        txt.array = chars;
+        txt.offset = 0;
+        txt.count = len;
+    }
+
+    @Override
+    public Position createPosition(int offset) throws BadLocationException {
+        while (queue.poll() != null) {
+            unusedMarks++;
+        }
+        if (unusedMarks > Math.max(5, markCount() / 10)) {
+            removeUnusedMarks();
+        }
+        long index = offset < gapStart ? offset : offset + gapLength();
+        int sortIndex = findSortIndex(index);
+        if (sortIndex < markCount()) {
+            MarkData existing = markAt(sortIndex);
+            StickyPosition position;
+            if (existing.index == index && (position = existing.get()) != null) {
+                return position;
+            }
+        }
+        StickyPosition position = new StickyPosition();
+        MarkData mark = new MarkData(index, position);
+        position.mark = mark;
+        insertMark(sortIndex, mark);
+        return position;
+    }
+
+    /**
+     * Returns an immutable view of {@code [start, start + length)} of the current revision in O(1).
+     */
+    public Snapshot snapshot(int start, int length) {
+        Piece current = root;
+        if (start < 0 || length < 0 || start + length > current.size) {
+            throw new IndexOutOfBoundsException("Invalid snapshot range " + start + ".." + (start + length));
+        }
+        return new Snapshot(current, start, length);
+    }
+
+    /**
+     * Number of pieces the text is currently made of.
+     */
+    public int getPieceCount() {
+        return count(root);
+    }
+
+    /**
+     * A zero-copy {@link CharSequence} over one revision of the content. Sequential {@link #charAt}
+     * is O(1) amortized thanks to a cursor on the current piece, random access is O(log n).
+     * Instances are not thread-safe because of the cursor, but any number can be created cheaply.
+     */
+    public static final class Snapshot implements CharSequence {
+
+        private final Piece root;
+        private final int start;
+        private final int length;
+
+        private char[] cursorBuffer = EMPTY;
+        private int cursorOffset;
+        private int cursorStart;
+        private int cursorEnd;
+
+        private Snapshot(Piece root, int start, int length) {
+            this.root = root;
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+            }
+            int offset = start + index;
+            if (offset < cursorStart || offset >= cursorEnd) {
+                seek(offset);
+            }
+            return cursorBuffer[cursorOffset + offset - cursorStart];
+        }
+
+        @Override
+        public Snapshot subSequence(int from, int to) {
+            if (from < 0 || to > length || from > to) {
+                throw new IndexOutOfBoundsException("Invalid range " + from + ".." + to + " for length " + length);
+            }
+            return new Snapshot(root, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            copy(root, start, start + length, chars, 0);
+            return new String(chars);
+        }
+
+        /**
+         * Writes the text piece by piece, without building a String of the whole document.
+         */
+        public void writeTo(Writer out) throws IOException {
+            write(root, start, start + length, out);
+        }
+
+        private void seek(int offset) {
+            Piece node = root;
+            int base = 0;
+            while (true) {
+                int leftSize = size(node.left);
+                if (offset < base + leftSize) {
+                    node = node.left;
+                } else if (offset < base + leftSize + node.length) {
+                    cursorStart = base + leftSize;
+                    cursorEnd = cursorStart + node.length;
+                    cursorBuffer = node.buffer;
+                    cursorOffset = node.offset;
+                    return;
+                } else {
+                    base += leftSize + node.length;
+                    node = node.right;
+                }
+            }
+        }
+    }
+
+    // ---- Piece treap ----
+
+    private static int size(Piece node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int count(Piece node) {
+        return node == null ? 0 : 1 + count(node.left) + count(node.right);
+    }
+
+    private static Piece newPiece(char[] buffer, int offset, int length) {
+        return new Piece(buffer, offset, length, null, null, ThreadLocalRandom.current().nextInt());
+    }
+
+    private static Piece merge(Piece left, Piece right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return left.with(left.left, merge(left.right, right));
+        }
+        return right.with(merge(left, right.left), right.right);
+    }
+
+    /**
+     * Splits {@code node} into the text before and from {@code at}, cutting a piece in two if needed.
+     */
+    private static void split(Piece node, int at, Split out) {
+        if (node == null) {
+            out.left = null;
+            out.right = null;
+            return;
+        }
+        if (at <= 0) {
+            out.left = null;
+            out.right = node;
+            return;
+        }
+        if (at >= node.size) {
+            out.left = node;
+            out.right = null;
+            return;
+        }
+        int leftSize = size(node.left);
+        if (at <= leftSize) {
+            split(node.left, at, out);
+            out.right = node.with(out.right, node.right);
+        } else if (at >= leftSize + node.length) {
+            split(node.right, at - leftSize - node.length, out);
+            out.left = node.with(node.left, out.left);
+        } else {
+            int cut = at - leftSize;
+            out.left = new Piece(node.buffer, node.offset, cut, node.left, null, node.priority);
+            out.right = new Piece(node.buffer, node.offset + cut, node.length - cut, null, node.right, node.priority);
+        }
+    }
+
+    private Piece insert(Piece node, int where, String str) {
+        Split split = new Split();
+        split(node, where, split);
+        Piece left = split.left;
+        int length = str.length();
+        if (left != null && length < DEDICATED_BUFFER_THRESHOLD && length <= ADD_BLOCK_SIZE - addBlockUsed) {
+            // Typing appends to the piece of the previous keystroke instead of adding a new one
+            Piece last = left;
+            while (last.right != null) {
+                last = last.right;
+            }
+            if (last.buffer == addBlock && last.offset + last.length == addBlockUsed) {
+                str.getChars(0, length, addBlock, addBlockUsed);
+                addBlockUsed += length;
+                return merge(extendLast(left, length), split.right);
+            }
+        }
+        return merge(merge(left, newPieces(str)), split.right);
+    }
+
+    private static Piece extendLast(Piece node, int length) {
+        if (node.right == null) {
+            return new Piece(node.buffer, node.offset, node.length + length, node.left, null, node.priority);
+        }
+        return node.with(node.left, extendLast(node.right, length));
+    }
+
+    private Piece newPieces(String str) {
+        int length = str.length();
+        if (length >= DEDICATED_BUFFER_THRESHOLD) {
+            return newPiece(str.toCharArray(), 0, length);
+        }
+        Piece pieces = null;
+        int copied = 0;
+        while (copied < length) {
+            if (addBlockUsed == ADD_BLOCK_SIZE) {
+                // Full blocks are never written again, snapshots may still reference them
+                addBlock = new char[ADD_BLOCK_SIZE];
+                addBlockUsed = 0;
+            }
+            int chunk = Math.min(length - copied, ADD_BLOCK_SIZE - addBlockUsed);
+            str.getChars(copied, copied + chunk, addBlock, addBlockUsed);
+            pieces = merge(pieces, newPiece(addBlock, addBlockUsed, chunk));
+            addBlockUsed += chunk;
+            copied += chunk;
+        }
+        return pieces;
+    }
+
+    /**
+     * Copies {@code [from, to)} of the subtree into {@code dest}.
+     */
+    private static void copy(Piece node, int from, int to, char[] dest, int destPos) {
+        if (node == null || from >= to) {
+            return;
+        }
+        int pieceStart = size(node.left);
+        int pieceEnd = pieceStart + node.length;
+        if (from < pieceStart) {
+            copy(node.left, from, Math.min(to, pieceStart), dest, destPos);
+        }
+        int start = Math.max(from, pieceStart);
+        int end = Math.min(to, pieceEnd);
+        if (start < end) {
+            System.arraycopy(node.buffer, node.offset + start - pieceStart, dest, destPos + start - from, end - start);
+        }
+        if (to > pieceEnd) {
+            int rightFrom = Math.max(from, pieceEnd);
+            copy(node.right, rightFrom - pieceEnd, to - pieceEnd, dest, destPos + rightFrom - from);
+        }
+    }
+
+    private static void write(Piece node, int from, int to, Writer out) throws IOException {
+        if (node == null || from >= to) {
+            return;
+        }
+        int pieceStart = size(node.left);
+        int pieceEnd = pieceStart + node.length;
+        if (from < pieceStart) {
+            write(node.left, from, Math.min(to, pieceStart), out);
+        }
+        int start = Math.max(from, pieceStart);
+        int end = Math.min(to, pieceEnd);
+        if (start < end) {
+            out.write(node.buffer, node.offset + start - pieceStart, end - start);
+        }
+        if (to > pieceEnd) {
+            write(node.right, Math.max(from, pieceEnd) - pieceEnd, to - pieceEnd, out);
+        }
+    }
+
+    private void checkRange(int where, int len) throws BadLocationException {
+        if (where < 0 || len < 0 || where + len > length()) {
+            throw new BadLocationException("Invalid range", length() + 1);
+        }
+    }
+
+    // ---- Marks ----
+
+    private final class MarkData extends WeakReference<StickyPosition> {
+        long index;
+
+        MarkData(long index, StickyPosition position) {
+            super(position, queue);
+            this.index = index;
+        }
+    }
+
+    private final class StickyPosition implements Position {
+        MarkData mark;
+
+        @Override
+        public int getOffset() {
+            return offsetOf(mark.index);
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(getOffset());
+        }
+    }
+
+    /**
+     * A mark in a removed range with the offset it had, so undoing the remove can put it back like
+     * {@link GapContent} does, instead of leaving it where the range collapsed.
+     */
+    private record UndoPosition(MarkData mark, int offset) {
+    }
+
+    private int offsetOf(long index) {
+        // Marks reset to 0 while the gap is at 0 would otherwise compute a negative offset
+        return (int) Math.max(index < gapStart ? index : index - gapLength(), 0);
+    }
+
+    private long gapLength() {
+        return VIRTUAL_CAPACITY - length();
+    }
+
+    /**
+     * Moves the virtual gap to {@code offset}, converting the marks it passes. Marks at the new gap
+     * start end up behind the gap, so they move with text inserted there, except at offset 0.
+     */
+    private void moveGap(int offset) {
+        long gapLength = gapLength();
+        if (offset < gapStart) {
+            for (int i = findSortIndex(offset), n = markCount(); i < n; i++) {
+                MarkData mark = markAt(i);
+                if (mark.index >= gapStart) {
+                    break;
+                }
+                mark.index += gapLength;
+            }
+        } else if (offset > gapStart) {
+            long limit = offset + gapLength;
+            for (int i = findSortIndex(gapStart + gapLength), n = markCount(); i < n; i++) {
+                MarkData mark = markAt(i);
+                if (mark.index >= limit) {
+                    break;
+                }
+                mark.index -= gapLength;
+            }
+        }
+        gapStart = offset;
+        if (gapStart == 0) {
+            resetMarksAtZero();
+        }
+    }
+
+    /**
+     * Positions at offset 0 stay at the start of the document, like in {@link GapContent}.
+     */
+    private void resetMarksAtZero() {
+        long gapEnd = gapLength();
+        for (int i = 0, n = markCount(); i < n; i++) {
+            MarkData mark = markAt(i);
+            if (mark.index > gapEnd) {
+                break;
+            }
+            mark.index = 0;
+        }
+    }
+
+    /**
+     * Returns the marks in {@code [offset, offset + length]} with their current offsets.
+     */
+    private List<UndoPosition> positionsInRange(int offset, int length) {
+        int start = findOffsetIndex(offset);
+        int end = findOffsetIndex(offset + length + 1);
+        if (start == end) {
+            return List.of();
+        }
+        List<UndoPosition> positions = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            MarkData mark = markAt(i);
+            positions.add(new UndoPosition(mark, offsetOf(mark.index)));
+        }
+        return positions;
+    }
+
+    /**
+     * Puts the marks back where they were before {@code [offset, offset + length)} was removed, right
+     * after the text was inserted there again.
+     */
+    private void resetUndoPositions(List<UndoPosition> positions, int offset, int length) {
+        if (positions.isEmpty()) {
+            return;
+        }
+        // All marks of the range are at its end or at 0 now, their offsets are sorted until they are reset
+        int start = findOffsetIndex(offset);
+        int end = findOffsetIndex(offset + length + 1);
+        for (UndoPosition position : positions) {
+            // The insert left the gap at the end of the range, marks there stay behind it
+            position.mark().index = position.offset() < gapStart ? position.offset() : gapStart + gapLength();
+        }
+        MarkData[] range = new MarkData[end - start];
+        for (int i = 0; i < range.length; i++) {
+            range[i] = markAt(start + i);
+        }
+        Arrays.sort(range, Comparator.comparingLong(mark -> mark.index));
+        for (int i = 0; i < range.length; i++) {
+            marks[markArrayIndex(start + i)] = range[i];
+        }
+    }
+
+    private int markCount() {
+        return marks.length - (markGapEnd - markGapStart);
+    }
+
+    private MarkData markAt(int i) {
+        return marks[markArrayIndex(i)];
+    }
+
+    private int markArrayIndex(int i) {
+        return i < markGapStart ? i : i + markGapEnd - markGapStart;
+    }
+
+    /**
+     * Index of the first mark with an index of at least {@code index}.
+     */
+    private int findSortIndex(long index) {
+        int low = 0;
+        int high = markCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (markAt(mid).index < index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Index of the first mark at an offset of at least {@code offset}. Offsets grow with the indices.
+     */
+    private int findOffsetIndex(int offset) {
+        int low = 0;
+        int high = markCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (offsetOf(markAt(mid).index) < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void insertMark(int i, MarkData mark) {
+        if (markGapStart == markGapEnd) {
+            int count = marks.length;
+            MarkData[] grown = new MarkData[Math.max(16, count * 2)];
+            System.arraycopy(marks, 0, grown, 0, count);
+            markGapStart = count;
+            markGapEnd = grown.length;
+            marks = grown;
+        }
+        if (i < markGapStart) {
+            int n = markGapStart - i;
+            System.arraycopy(marks, i, marks, markGapEnd - n, n);
+            Arrays.fill(marks, i, Math.min(markGapStart, markGapEnd - n), null);
+            markGapStart -= n;
+            markGapEnd -= n;
+        } else if (i > markGapStart) {
+            int n = i - markGapStart;
+            System.arraycopy(marks, markGapEnd, marks, markGapStart, n);
+            Arrays.fill(marks, Math.max(markGapEnd, markGapStart + n), markGapEnd + n, null);
+            markGapStart += n;
+            markGapEnd += n;
+        }
+        marks[markGapStart++] = mark;
+    }
+
+    private void removeUnusedMarks() {
+        int count = markCount();
+        MarkData[] live = new MarkData[Math.max(16, count)];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            MarkData mark = markAt(i);
+            if (mark.get() != null) {
+                live[size++] = mark;
+            }
+        }
+        marks = live;
+        markGapStart = size;
+        markGapEnd = live.length;
+        unusedMarks = 0;
+    }
+
+    // ---- Undo ----
+
+    private final class InsertEdit extends AbstractUndoableEdit {
+        private final int offset;
+        private final int length;
+        private String text;
+        private List<UndoPosition> positions;
+
+        InsertEdit(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            try {
+                positions = positionsInRange(offset, length);
+                text = getString(offset, length);
+                removeText(offset, length);
+            } catch (BadLocationException ex) {
+                throw new CannotUndoException();
+            }
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            try {
+                insertString(offset, text);
+                resetUndoPositions(positions, offset, length);
+                text = null;
+                positions = null;
+            } catch (BadLocationException ex) {
+                throw new CannotRedoException();
+            }
+        }
+    }
+
+    private final class RemoveEdit extends AbstractUndoableEdit {
+        private final int offset;
+        private final String text;
+        private List<UndoPosition> positions;
+
+        RemoveEdit(int offset, String text, List<UndoPosition> positions) {
+            this.offset = offset;
+            this.text = text;
+            this.positions = positions;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            try {
+                insertString(offset, text);
+                resetUndoPositions(positions, offset, text.length());
+                positions = null;
+            } catch (BadLocationException ex) {
+                throw new CannotUndoException();
+            }
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            positions = positionsInRange(offset, text.length());
+            removeText(offset, text.length());
+        }
+    }
+}
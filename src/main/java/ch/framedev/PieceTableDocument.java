@@ -0,0 +1,55 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 19:45
+ */
+
+import javax.swing.text.PlainDocument;
+
+/**
+ * A {@link PlainDocument} over a {@link PieceTableContent}, for editing very large files without
+ * copying the whole buffer on every edit or preview refresh.
+ */
+@SuppressWarnings("unused")
+public class PieceTableDocument extends PlainDocument {
+
+    private final PieceTableContent content;
+
+    public PieceTableDocument() {
+        this(new PieceTableContent());
+    }
+
+    private PieceTableDocument(PieceTableContent content) {
+        super(content);
+        this.content = content;
+    }
+
+    /**
+     * Returns the current text as an immutable, zero-copy view in O(1). Unlike {@link #getText(int, int)}
+     * the view may be read on any thread after the lock is released, later edits never change it.
+     */
+    public PieceTableContent.Snapshot snapshot() {
+        readLock();
+        try {
+            return content.snapshot(0, getLength());
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public int getPieceCount() {
+        readLock();
+        try {
+            return content.getPieceCount();
+        } finally {
+            readUnlock();
+        }
+    }
+}
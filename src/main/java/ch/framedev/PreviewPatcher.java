@@ -0,0 +1,315 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 13:05
+ */
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.html.HTML;
+import javax.swing.text.html.HTMLDocument;
+import javax.swing.text.html.StyleSheet;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Applies rendered blocks to the preview. Every block is wrapped in its own {@code <div>} directly
+ * below {@code <body>}, so a refresh only has to replace the divs of the blocks that changed instead
+ * of rebuilding the whole {@link HTMLDocument} with {@link JEditorPane#setText(String)}. The theme is
+ * not part of the HTML but a {@link StyleSheet} linked into the document, so it can change without
+ * parsing the blocks again.
+ */
+@SuppressWarnings("unused")
+public class PreviewPatcher {
+
+    /**
+     * @param styleSheet  the theme, see {@link ThemeEngine#styleSheet(RenderOptions)}
+     * @param blockStarts the source offset of every fragment, see {@link SourcePositionIndex}
+     */
+    public record Content(StyleSheet styleSheet, List<String> fragments, int[] blockStarts) {
+    }
+
+    private final JEditorPane preview;
+    private final boolean patchingEnabled;
+
+    private StyleSheet styleSheet;
+    // The document the style sheet is linked into
+    private HTMLDocument styledDocument;
+    private List<String> fragments = List.of();
+    private int[] blockStarts = new int[0];
+    private int fullUpdates;
+    private int patchedUpdates;
+
+    public PreviewPatcher(JEditorPane preview, boolean patchingEnabled) {
+        this.preview = preview;
+        this.patchingEnabled = patchingEnabled;
+    }
+
+    /**
+     * Shows the given content. Must be called on the Event Dispatch Thread.
+     */
+    public void update(Content content) {
+        try (PerformanceMetrics.Sample sample = PerformanceMetrics.start(PerformanceMetrics.Stage.PREVIEW_UPDATE)) {
+            setStyleSheet(content.styleSheet());
+            if (patchingEnabled && !fragments.isEmpty() && patch(content.fragments(), findViewport())) {
+                patchedUpdates++;
+            } else {
+                replace(content);
+                fullUpdates++;
+            }
+        }
+        fragments = content.fragments();
+        blockStarts = content.blockStarts();
+    }
+
+    /**
+     * Forces the next update to rebuild the whole document.
+     */
+    public void reset() {
+        fragments = List.of();
+        blockStarts = new int[0];
+    }
+
+    /**
+     * Shows the current blocks with another theme. The previous style sheet is unlinked from the
+     * document and the views only read their attributes again, the blocks are not parsed again.
+     * Must be called on the Event Dispatch Thread.
+     */
+    public void setStyleSheet(StyleSheet styleSheet) {
+        if (!(preview.getDocument() instanceof HTMLDocument document)
+                || styleSheet == this.styleSheet && document == styledDocument) {
+            return;
+        }
+        StyleSheet documentStyles = document.getStyleSheet();
+        if (document == styledDocument) {
+            documentStyles.removeStyleSheet(this.styleSheet);
+        }
+        documentStyles.addStyleSheet(styleSheet);
+        this.styleSheet = styleSheet;
+        styledDocument = document;
+        // An empty change over the whole document, including the implied newline at its end, makes every
+        // view read its attributes from the style sheets again
+        document.setCharacterAttributes(0, document.getLength() + 1, SimpleAttributeSet.EMPTY, false);
+    }
+
+    /**
+     * Returns the {@code <div>} element of the given block, or {@code null} if the document does not match the blocks.
+     */
+    public Element getBlockElement(int index) {
+        Element body = findBody();
+        if (body == null || body.getElementCount() != fragments.size() || index < 0 || index >= fragments.size()) {
+            return null;
+        }
+        return body.getElement(index);
+    }
+
+    /**
+     * Returns the {@code <body>} element if its children are the current blocks, otherwise {@code null}.
+     */
+    public Element getBody() {
+        Element body = findBody();
+        return body != null && body.getElementCount() == fragments.size() ? body : null;
+    }
+
+    public int[] getBlockStarts() {
+        return blockStarts;
+    }
+
+    public int getBlockCount() {
+        return fragments.size();
+    }
+
+    public String getFragment(int index) {
+        return fragments.get(index);
+    }
+
+    /**
+     * Returns the block shown at the given y coordinate of the preview, found by a binary search over the
+     * block tops, or {@code -1} if the document does not match the blocks or is not laid out yet.
+     */
+    public int blockIndexAt(int y) {
+        Element body = findBody();
+        if (body == null || body.getElementCount() != fragments.size() || fragments.isEmpty()) {
+            return -1;
+        }
+        int low = 0;
+        int high = fragments.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            int top = blockTop(body.getElement(mid));
+            if (top < 0) {
+                return -1;
+            }
+            if (top <= y) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the y coordinate of the top of the given block, or {@code -1} if it is not known.
+     */
+    public int getBlockTop(int index) {
+        Element element = getBlockElement(index);
+        return element == null ? -1 : blockTop(element);
+    }
+
+    public int getFullUpdates() {
+        return fullUpdates;
+    }
+
+    public int getPatchedUpdates() {
+        return patchedUpdates;
+    }
+
+    private boolean patch(List<String> newFragments, JViewport viewport) {
+        Element body = findBody();
+        if (body == null || body.getElementCount() != fragments.size() || newFragments.isEmpty()) {
+            return false;
+        }
+        HTMLDocument document = (HTMLDocument) preview.getDocument();
+        int oldSize = fragments.size();
+        int newSize = newFragments.size();
+
+        int prefix = 0;
+        int limit = Math.min(oldSize, newSize);
+        while (prefix < limit && fragments.get(prefix).equals(newFragments.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && fragments.get(oldSize - 1 - suffix).equals(newFragments.get(newSize - 1 - suffix))) {
+            suffix++;
+        }
+        if (prefix == oldSize && prefix == newSize) {
+            return true;
+        }
+
+        // Blocks above the viewport may change height, e.g. when a placeholder is rendered. Keep the
+        // first visible block where it is, unless it is one of the changed blocks itself.
+        int visibleAnchor = -1;
+        int anchorOffset = 0;
+        if (viewport != null) {
+            Rectangle view = viewport.getViewRect();
+            int visible = blockIndexAt(view.y);
+            if (visible >= 0 && visible >= oldSize - suffix) {
+                visibleAnchor = visible + newSize - oldSize;
+                anchorOffset = view.y - blockTop(body.getElement(visible));
+            }
+        }
+
+        int oldChanged = oldSize - prefix - suffix;
+        int newChanged = newSize - prefix - suffix;
+        int replaced = Math.min(oldChanged, newChanged);
+        try {
+            for (int i = 0; i < replaced; i++) {
+                document.setOuterHTML(body.getElement(prefix + i), wrap(newFragments.get(prefix + i)));
+            }
+            if (newChanged > oldChanged) {
+                StringBuilder inserted = new StringBuilder();
+                for (int i = prefix + replaced; i < prefix + newChanged; i++) {
+                    inserted.append(wrap(newFragments.get(i)));
+                }
+                int anchor = prefix + replaced;
+                if (anchor > 0) {
+                    document.insertAfterEnd(body.getElement(anchor - 1), inserted.toString());
+                } else {
+                    document.insertBeforeStart(body.getElement(0), inserted.toString());
+                }
+            } else {
+                for (int i = replaced; i < oldChanged; i++) {
+                    document.removeElement(body.getElement(prefix + replaced));
+                }
+            }
+        } catch (BadLocationException | IOException | RuntimeException ex) {
+            return false;
+        }
+        if (body.getElementCount() != newSize) {
+            return false;
+        }
+        if (visibleAnchor >= 0) {
+            int index = visibleAnchor;
+            int offset = anchorOffset;
+            // Like after setText, the new heights are only known once the pending layout is done
+            SwingUtilities.invokeLater(() -> {
+                int top = getBlockTop(index);
+                if (top >= 0) {
+                    viewport.setViewPosition(new Point(viewport.getViewPosition().x, Math.max(0, top + offset)));
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Builds the complete preview document, with one {@code <div>} per block.
+     */
+    static String toHtml(Content content) {
+        int capacity = 64;
+        for (String fragment : content.fragments()) {
+            capacity += fragment.length() + 11;
+        }
+        StringBuilder html = new StringBuilder(capacity).append("<html><head></head><body>");
+        for (String fragment : content.fragments()) {
+            html.append(wrap(fragment));
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    private void replace(Content content) {
+        String html = toHtml(content);
+        JViewport viewport = findViewport();
+        Point position = viewport != null ? viewport.getViewPosition() : null;
+        preview.setText(html);
+        if (position != null) {
+            // Layout happens after setText returns, restore the scroll position once it is done
+            SwingUtilities.invokeLater(() -> viewport.setViewPosition(position));
+        }
+    }
+
+    private JViewport findViewport() {
+        return (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, preview);
+    }
+
+    private int blockTop(Element element) {
+        try {
+            Rectangle2D bounds = preview.modelToView2D(element.getStartOffset());
+            return bounds == null ? -1 : (int) bounds.getY();
+        } catch (BadLocationException ex) {
+            return -1;
+        }
+    }
+
+    private Element findBody() {
+        if (!(preview.getDocument() instanceof HTMLDocument document)) {
+            return null;
+        }
+        Element root = document.getDefaultRootElement();
+        for (int i = 0; i < root.getElementCount(); i++) {
+            Element child = root.getElement(i);
+            if (child.getAttributes().getAttribute(StyleConstants.NameAttribute) == HTML.Tag.BODY) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static String wrap(String fragment) {
+        return fragment.isBlank() ? "<div>&nbsp;</div>" : "<div>" + fragment + "</div>";
+    }
+}
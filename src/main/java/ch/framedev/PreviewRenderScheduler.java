@@ -0,0 +1,102 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 09:12
+ */
+
+import javax.swing.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces bursts of preview render requests and runs them on a single background thread.
+ * Every request gets a new version; results of requests that were superseded while rendering
+ * are dropped, so only the latest result is ever published to the Event Dispatch Thread.
+ */
+@SuppressWarnings("unused")
+public class PreviewRenderScheduler {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "preview-render");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong version = new AtomicLong();
+    private final long debounceMillis;
+    private final long maxDelayMillis;
+
+    private ScheduledFuture<?> pending;
+    private long firstPendingNanos;
+
+    public PreviewRenderScheduler(long debounceMillis, long maxDelayMillis) {
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.maxDelayMillis = Math.max(this.debounceMillis, maxDelayMillis);
+    }
+
+    /**
+     * Schedules a render after the debounce window. A request arriving before the window has
+     * elapsed replaces the pending one, but a burst is never postponed past the max delay.
+     */
+    public synchronized <T> void schedule(Callable<T> renderTask, Consumer<T> publisher, Consumer<Exception> errorHandler) {
+        long now = System.nanoTime();
+        if (pending == null || pending.isDone()) {
+            firstPendingNanos = now;
+        } else {
+            pending.cancel(false);
+        }
+        long waited = TimeUnit.NANOSECONDS.toMillis(now - firstPendingNanos);
+        long delay = Math.max(0, Math.min(debounceMillis, maxDelayMillis - waited));
+        submit(renderTask, publisher, errorHandler, delay);
+    }
+
+    /**
+     * Schedules a render without waiting for the debounce window, e.g. after a theme change.
+     */
+    public synchronized <T> void scheduleNow(Callable<T> renderTask, Consumer<T> publisher, Consumer<Exception> errorHandler) {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        firstPendingNanos = System.nanoTime();
+        submit(renderTask, publisher, errorHandler, 0);
+    }
+
+    private <T> void submit(Callable<T> renderTask, Consumer<T> publisher, Consumer<Exception> errorHandler, long delay) {
+        long requestVersion = version.incrementAndGet();
+        pending = executor.schedule(() -> {
+            if (requestVersion != version.get()) {
+                return;
+            }
+            try {
+                T result = renderTask.call();
+                SwingUtilities.invokeLater(() -> {
+                    if (requestVersion == version.get()) {
+                        publisher.accept(result);
+                    }
+                });
+            } catch (Exception ex) {
+                SwingUtilities.invokeLater(() -> {
+                    if (requestVersion == version.get()) {
+                        errorHandler.accept(ex);
+                    }
+                });
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
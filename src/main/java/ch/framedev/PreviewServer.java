@@ -0,0 +1,488 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 23:55
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Serves the open buffer and a directory of Markdown files over HTTP, rendered to the same pages as the
+ * HTML export. Every request runs on a virtual thread of its own.
+ * <p>
+ * Pages are identified by an ETag made of the content hash and the render options. A request whose
+ * {@code If-None-Match} matches gets {@code 304 Not Modified}, and rendered pages are kept in a cache
+ * bounded by {@code server.cacheMegabytes}, so a repeated request only hashes the buffer, or for a file
+ * only looks at its modification time, and renders nothing.
+ * <p>
+ * {@code /} lists the files, {@code /buffer} is the open buffer and {@code /files/...} the directory,
+ * where {@code .md} and missing {@code .html} files are rendered and all other files are sent as they are.
+ */
+@SuppressWarnings("unused")
+public final class PreviewServer implements Closeable {
+
+    public static final String BUFFER_PATH = "/buffer";
+    public static final String FILES_PATH = "/files/";
+
+    /**
+     * The text of the open buffer, {@code name} is the title of the page.
+     */
+    public record Buffer(String name, CharSequence text) {
+    }
+
+    public record Stats(long requests, long notModified, long cacheHits, long renders, int cachedPages,
+                        long cachedBytes) {
+    }
+
+    private record Page(String etag, byte[] html) {
+    }
+
+    // The options of the pages and their hash, which is part of every ETag
+    private record Style(RenderOptions options, long hash) {
+    }
+
+    // The content hash of a file at this modification time and size, so unchanged files are not read again
+    private record FileTag(FileTime modified, long size, long contentHash, int length) {
+    }
+
+    static {
+        // The JDK server writes the headers and the body separately, so with Nagle's algorithm every
+        // response waits for the client's delayed ACK, about 40 ms. Read once when its classes load
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final MarkdownRenderService renderService;
+    private volatile Style style;
+    // Null if only the buffer is served
+    private final Path root;
+    private final Path realRoot;
+    private volatile Supplier<Buffer> buffer;
+
+    private final Map<Path, FileTag> fileTags = new ConcurrentHashMap<>();
+    // Guarded by itself
+    private final LinkedHashMap<String, Page> pages = new LinkedHashMap<>(64, 0.75f, true);
+    private final long maxCachedBytes;
+    private long cachedBytes;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong renders = new AtomicLong();
+
+    /**
+     * Binds the server, {@link #start()} starts serving.
+     *
+     * @param root the directory to serve, or {@code null}
+     */
+    public PreviewServer(MarkdownRenderService renderService, RenderOptions options, InetSocketAddress address,
+                         Path root, long maxCachedBytes) throws IOException {
+        this.renderService = renderService;
+        setOptions(options);
+        this.root = root == null ? null : root.toAbsolutePath().normalize();
+        this.realRoot = root == null ? null : root.toRealPath();
+        this.maxCachedBytes = maxCachedBytes;
+        server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * A server on {@code server.bindAddress} and {@code server.port}, by default only reachable from
+     * this machine.
+     */
+    public static PreviewServer fromConfig(MarkdownRenderService renderService, RenderOptions options, Path root)
+            throws IOException {
+        return new PreviewServer(renderService, options,
+                new InetSocketAddress(Main.config.getString("server.bindAddress", "127.0.0.1"),
+                        Main.config.getInt("server.port", 8080)),
+                root, Main.config.getInt("server.cacheMegabytes", 32) * 1024L * 1024L);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Serves the result of {@code buffer} under {@link #BUFFER_PATH}. It is called on the request's
+     * thread and must return {@code null} if there is no buffer.
+     */
+    public void setBuffer(Supplier<Buffer> buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Renders the pages with other options from now on, e.g. when the editor's theme changes.
+     */
+    public void setOptions(RenderOptions options) {
+        // The CSS is part of the page, a changed theme must not be answered with 304
+        String fingerprint = MarkdownRenderService.OPTIONS_KEY + ";" + options + ";" + renderService.exportStyles(options);
+        style = new Style(options, HtmlFragmentCache.contentHash(fingerprint, 0, fingerprint.length()));
+    }
+
+    /**
+     * The address the server listens on, with the chosen port if it was bound to port 0.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public Stats getStats() {
+        synchronized (pages) {
+            return new Stats(requests.get(), notModified.get(), cacheHits.get(), renders.get(), pages.size(),
+                    cachedBytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendText(exchange, 405, "Method not allowed");
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/")) {
+                sendHtml(exchange, 200, index());
+            } else if (path.equals(BUFFER_PATH)) {
+                serveBuffer(exchange);
+            } else if (root != null && path.startsWith(FILES_PATH)) {
+                serveFile(exchange, path.substring(FILES_PATH.length()));
+            } else {
+                sendText(exchange, 404, "Not found");
+            }
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("Failed to serve " + exchange.getRequestURI() + ": " + ex.getMessage());
+            if (exchange.getResponseCode() == -1) {
+                sendText(exchange, 500, "Internal server error");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void serveBuffer(HttpExchange exchange) throws IOException {
+        Supplier<Buffer> source = buffer;
+        Buffer current = source == null ? null : source.get();
+        if (current == null) {
+            sendText(exchange, 404, "No open buffer");
+            return;
+        }
+        Style style = this.style;
+        CharSequence text = current.text();
+        String etag = etag(style, HtmlFragmentCache.contentHash(text, 0, text.length()), text.length());
+        if (!notModified(exchange, etag)) {
+            sendHtml(exchange, 200, page(style, etag, text, current.name()).html());
+        }
+    }
+
+    private void serveFile(HttpExchange exchange, String relative) throws IOException {
+        Path file = resolve(relative);
+        if (file == null) {
+            sendText(exchange, 404, "Not found");
+            return;
+        }
+        if (Files.isDirectory(file)) {
+            if (!exchange.getRequestURI().getPath().endsWith("/")) {
+                exchange.getResponseHeaders().set("Location", exchange.getRequestURI().getPath() + "/");
+                sendText(exchange, 301, "Moved");
+                return;
+            }
+            sendHtml(exchange, 200, listing(file));
+            return;
+        }
+        Path markdown = file;
+        if (!Files.isRegularFile(file) && file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".html")) {
+            // The exported name of a Markdown file, so links between exported pages work here as well
+            markdown = markdownSource(file);
+        }
+        if (markdown != null && Files.isRegularFile(markdown) && BatchExporter.isMarkdownFile(markdown)) {
+            serveMarkdownFile(exchange, markdown);
+        } else if (Files.isRegularFile(file)) {
+            String type = Files.probeContentType(file);
+            exchange.getResponseHeaders().set("Content-Type", type != null ? type : "application/octet-stream");
+            exchange.sendResponseHeaders(200, exchange.getRequestMethod().equals("HEAD") ? -1 : Files.size(file));
+            if (!exchange.getRequestMethod().equals("HEAD")) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    Files.copy(file, out);
+                }
+            }
+        } else {
+            sendText(exchange, 404, "Not found");
+        }
+    }
+
+    private void serveMarkdownFile(HttpExchange exchange, Path file) throws IOException {
+        Style style = this.style;
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        FileTag tag = fileTags.get(file);
+        String text = null;
+        if (tag == null || !tag.modified().equals(attributes.lastModifiedTime()) || tag.size() != attributes.size()) {
+            text = Files.readString(file);
+            tag = new FileTag(attributes.lastModifiedTime(), attributes.size(),
+                    HtmlFragmentCache.contentHash(text, 0, text.length()), text.length());
+            fileTags.put(file, tag);
+        }
+        String etag = etag(style, tag.contentHash(), tag.length());
+        if (notModified(exchange, etag)) {
+            return;
+        }
+        Page page = cachedPage(etag);
+        if (page == null) {
+            if (text == null) {
+                text = Files.readString(file);
+                // Changed since its attributes were read, within the resolution of the modification time
+                etag = etag(style, HtmlFragmentCache.contentHash(text, 0, text.length()), text.length());
+                exchange.getResponseHeaders().set("ETag", etag);
+            }
+            page = page(style, etag, text, BatchExporter.htmlFileName(file));
+        }
+        sendHtml(exchange, 200, page.html());
+    }
+
+    /**
+     * Sets the ETag and answers with {@code 304} if the client already has the page.
+     *
+     * @return whether the response was sent
+     */
+    private boolean notModified(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        // Browsers ask again on every load, which costs a 304 while nothing changed
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null || !matches(ifNoneMatch, etag)) {
+            return false;
+        }
+        notModified.incrementAndGet();
+        exchange.sendResponseHeaders(304, -1);
+        return true;
+    }
+
+    private Page cachedPage(String etag) {
+        Page page;
+        synchronized (pages) {
+            page = pages.get(etag);
+        }
+        if (page != null) {
+            cacheHits.incrementAndGet();
+        }
+        return page;
+    }
+
+    /**
+     * Returns the cached page or renders it like the HTML export.
+     */
+    private Page page(Style style, String etag, CharSequence markdown, String title) {
+        Page page = cachedPage(etag);
+        if (page == null) {
+            renders.incrementAndGet();
+            page = new Page(etag, renderService.renderExportDocument(title, markdown, style.options())
+                    .getBytes(StandardCharsets.UTF_8));
+            cache(page);
+        }
+        return page;
+    }
+
+    private void cache(Page page) {
+        synchronized (pages) {
+            if (page.html().length > maxCachedBytes || pages.containsKey(page.etag())) {
+                return;
+            }
+            pages.put(page.etag(), page);
+            cachedBytes += page.html().length;
+            Iterator<Page> eldest = pages.values().iterator();
+            while (cachedBytes > maxCachedBytes && eldest.hasNext()) {
+                cachedBytes -= eldest.next().html().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private static String etag(Style style, long contentHash, int length) {
+        return "\"" + Long.toHexString(contentHash ^ style.hash()) + "-" + Integer.toHexString(length) + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag) || candidate.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the file below the root, or {@code null} if the path leaves it, also through a link, or
+     * contains a hidden segment.
+     */
+    private Path resolve(String relative) {
+        if (relative.indexOf('\0') >= 0) {
+            return null;
+        }
+        Path file;
+        try {
+            file = root.resolve(relative).normalize();
+        } catch (InvalidPathException ex) {
+            return null;
+        }
+        if (!file.startsWith(root)) {
+            return null;
+        }
+        for (Path segment : root.relativize(file)) {
+            if (segment.toString().startsWith(".")) {
+                return null;
+            }
+        }
+        try {
+            Path existing = Files.exists(file) ? file : file.getParent();
+            if (!existing.toRealPath().startsWith(realRoot)) {
+                return null;
+            }
+        } catch (IOException ex) {
+            return null;
+        }
+        return file;
+    }
+
+    private static Path markdownSource(Path html) {
+        String name = html.getFileName().toString();
+        String base = name.substring(0, name.length() - ".html".length());
+        for (String extension : new String[]{".md", ".markdown"}) {
+            Path markdown = html.resolveSibling(base + extension);
+            if (Files.isRegularFile(markdown)) {
+                return markdown;
+            }
+        }
+        return null;
+    }
+
+    private byte[] index() throws IOException {
+        StringBuilder body = new StringBuilder("<h1>Preview</h1>\n<ul>\n");
+        if (buffer != null) {
+            body.append("<li><a href=\"").append(BUFFER_PATH).append("\">Open buffer</a></li>\n");
+        }
+        if (root != null) {
+            body.append("<li><a href=\"").append(FILES_PATH).append("\">").append(escapeHtml(root.toString()))
+                    .append("</a></li>\n");
+        }
+        body.append("</ul>\n");
+        return renderService.exportDocument("Preview", body.toString(), style.options()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lists the subdirectories and Markdown files of the directory, the files linked by their exported name.
+     */
+    private byte[] listing(Path directory) throws IOException {
+        List<String> directories = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.startsWith(".")) {
+                    continue;
+                }
+                if (Files.isDirectory(entry)) {
+                    directories.add(name);
+                } else if (BatchExporter.isMarkdownFile(entry)) {
+                    files.add(name);
+                }
+            }
+        }
+        directories.sort(String.CASE_INSENSITIVE_ORDER);
+        files.sort(String.CASE_INSENSITIVE_ORDER);
+        String title = "/" + root.relativize(directory).toString().replace('\\', '/');
+        StringBuilder body = new StringBuilder("<h1>").append(escapeHtml(title)).append("</h1>\n<ul>\n");
+        if (!directory.equals(root)) {
+            body.append("<li><a href=\"../\">..</a></li>\n");
+        }
+        for (String name : directories) {
+            body.append("<li><a href=\"").append(escapeUrl(name)).append("/\">").append(escapeHtml(name))
+                    .append("/</a></li>\n");
+        }
+        for (String name : files) {
+            String html = BatchExporter.htmlFileName(Path.of(name));
+            body.append("<li><a href=\"").append(escapeUrl(html)).append("\">").append(escapeHtml(name))
+                    .append("</a></li>\n");
+        }
+        body.append("</ul>\n");
+        return renderService.exportDocument(title, body.toString(), style.options()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void sendHtml(HttpExchange exchange, int status, byte[] html) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        boolean head = exchange.getRequestMethod().equals("HEAD");
+        exchange.sendResponseHeaders(status, head ? -1 : html.length);
+        if (!head) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(html);
+            }
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        boolean head = exchange.getRequestMethod().equals("HEAD");
+        exchange.sendResponseHeaders(status, head ? -1 : bytes.length);
+        if (!head) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static String escapeUrl(String name) {
+        return URLEncoder.encode(name, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
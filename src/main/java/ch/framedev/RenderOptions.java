@@ -0,0 +1,30 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 17:32
+ */
+
+/**
+ * Immutable presentation options for rendering Markdown, independent of any Swing state.
+ *
+ * @param theme the name of a {@link ThemeEngine} theme
+ */
+public record RenderOptions(String theme, int fontSize) {
+
+    public static final RenderOptions DEFAULT = new RenderOptions(ThemeEngine.LIGHT, 14);
+
+    public RenderOptions withTheme(String theme) {
+        return new RenderOptions(theme, fontSize);
+    }
+
+    public RenderOptions withFontSize(int fontSize) {
+        return new RenderOptions(theme, fontSize);
+    }
+}
@@ -0,0 +1,255 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 21:40
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Line-level deltas and compressed snapshots for the revision history. A delta rebuilds the new text
+ * from runs of lines copied from the old text and inserted text, found greedily through a hash of the
+ * old lines, so an edit only costs the lines it touched and moved blocks are copied as well. Deltas and
+ * snapshots are Deflate-compressed.
+ */
+@SuppressWarnings("unused")
+public final class RevisionDelta {
+
+    private static final byte COPY = 'C';
+    private static final byte INSERT = 'I';
+
+    /**
+     * A copied run must cover at least this many characters, shorter runs are cheaper to insert.
+     */
+    private static final int MIN_COPY_CHARACTERS = 16;
+
+    /**
+     * How many earlier occurrences of a line are tried, so repeated lines such as blank lines stay cheap.
+     */
+    private static final int MAX_CANDIDATES = 16;
+
+    private RevisionDelta() {
+    }
+
+    public static byte[] snapshot(String text) {
+        return deflate(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String readSnapshot(byte[] data) throws IOException {
+        return new String(inflate(data), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the delta that turns {@code base} into {@code target}.
+     */
+    public static byte[] encode(String base, String target) {
+        int[] baseLines = lineStarts(base);
+        int[] targetLines = lineStarts(target);
+        int baseCount = baseLines.length - 1;
+        int targetCount = targetLines.length - 1;
+
+        // head and next chain the base lines with the same content, first occurrence first
+        Map<String, Integer> head = new HashMap<>(baseCount * 2);
+        int[] next = new int[baseCount];
+        for (int i = baseCount - 1; i >= 0; i--) {
+            Integer previous = head.put(base.substring(baseLines[i], baseLines[i + 1]), i);
+            next[i] = previous == null ? -1 : previous;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarInt(out, base.length());
+        writeVarInt(out, target.length());
+        int insertStart = -1;
+        int line = 0;
+        while (line < targetCount) {
+            int bestStart = -1;
+            int bestLength = 0;
+            Integer candidate = head.get(target.substring(targetLines[line], targetLines[line + 1]));
+            for (int tried = 0; candidate != null && candidate >= 0 && tried < MAX_CANDIDATES; tried++) {
+                int length = matchLength(base, baseLines, candidate, target, targetLines, line);
+                if (length > bestLength) {
+                    bestStart = candidate;
+                    bestLength = length;
+                }
+                candidate = next[candidate];
+            }
+            if (bestLength == 0 || targetLines[line + bestLength] - targetLines[line] < MIN_COPY_CHARACTERS) {
+                if (insertStart < 0) {
+                    insertStart = targetLines[line];
+                }
+                line++;
+                continue;
+            }
+            if (insertStart >= 0) {
+                writeInsert(out, target.substring(insertStart, targetLines[line]));
+                insertStart = -1;
+            }
+            out.write(COPY);
+            writeVarInt(out, bestStart);
+            writeVarInt(out, bestLength);
+            line += bestLength;
+        }
+        if (insertStart >= 0) {
+            writeInsert(out, target.substring(insertStart));
+        }
+        return deflate(out.toByteArray());
+    }
+
+    /**
+     * Applies a delta made by {@link #encode(String, String)} to the text it was made from.
+     *
+     * @throws IOException if the delta is corrupt or belongs to another text
+     */
+    public static String apply(String base, byte[] delta) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(inflate(delta));
+        int[] baseLines = lineStarts(base);
+        int baseCount = baseLines.length - 1;
+        if (readVarInt(in) != base.length()) {
+            throw new IOException("The revision delta belongs to another text");
+        }
+        int targetLength = readVarInt(in);
+        StringBuilder target = new StringBuilder(targetLength);
+        while (in.hasRemaining()) {
+            byte type = in.get();
+            if (type == COPY) {
+                int start = readVarInt(in);
+                int count = readVarInt(in);
+                if (start < 0 || count < 0 || start + count > baseCount) {
+                    throw new IOException("Corrupt revision delta");
+                }
+                target.append(base, baseLines[start], baseLines[start + count]);
+            } else if (type == INSERT) {
+                int length = readVarInt(in);
+                if (length < 0 || length > in.remaining()) {
+                    throw new IOException("Corrupt revision delta");
+                }
+                target.append(new String(in.array(), in.position(), length, StandardCharsets.UTF_8));
+                in.position(in.position() + length);
+            } else {
+                throw new IOException("Corrupt revision delta");
+            }
+        }
+        if (target.length() != targetLength) {
+            throw new IOException("Corrupt revision delta");
+        }
+        return target.toString();
+    }
+
+    /**
+     * Returns the start of every line followed by the length of the text. Line breaks belong to the line
+     * they end, so the lines always add up to the text.
+     */
+    private static int[] lineStarts(String text) {
+        int[] starts = new int[64];
+        int count = 0;
+        int position = 0;
+        while (position < text.length()) {
+            if (count + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[count++] = position;
+            int newline = text.indexOf('\n', position);
+            position = newline < 0 ? text.length() : newline + 1;
+        }
+        starts[count] = text.length();
+        return Arrays.copyOf(starts, count + 1);
+    }
+
+    private static boolean sameLine(String base, int[] baseLines, int baseLine, String target, int[] targetLines, int targetLine) {
+        int length = baseLines[baseLine + 1] - baseLines[baseLine];
+        return length == targetLines[targetLine + 1] - targetLines[targetLine]
+                && base.regionMatches(baseLines[baseLine], target, targetLines[targetLine], length);
+    }
+
+    private static int matchLength(String base, int[] baseLines, int baseLine, String target, int[] targetLines, int targetLine) {
+        int length = 0;
+        while (baseLine + length < baseLines.length - 1 && targetLine + length < targetLines.length - 1
+                && sameLine(base, baseLines, baseLine + length, target, targetLines, targetLine + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private static void writeInsert(ByteArrayOutputStream out, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.write(INSERT);
+        writeVarInt(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated revision data");
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt revision data", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!in.hasRemaining()) {
+                throw new IOException("Corrupt revision delta");
+            }
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt revision delta");
+    }
+}
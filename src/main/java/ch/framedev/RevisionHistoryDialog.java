@@ -0,0 +1,136 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 21:50
+ */
+
+import javax.swing.*;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Lists the revisions of a document in the database, shows the selected one and restores it into the
+ * editor. All database access runs in the background.
+ */
+@SuppressWarnings("unused")
+public class RevisionHistoryDialog extends JDialog {
+
+    private final IDatabase database;
+    private final String name;
+    private final Consumer<IDatabase.StoredDocument> onRestore;
+    private final DefaultListModel<IDatabase.Revision> revisions = new DefaultListModel<>();
+    private final JList<IDatabase.Revision> revisionList = new JList<>(revisions);
+    private final JTextArea content = new JTextArea();
+    private final JButton restoreButton = new JButton("Restore");
+    private IDatabase.StoredDocument shown;
+
+    /**
+     * @param onRestore called on the EDT with the revision to put into the editor
+     */
+    public RevisionHistoryDialog(IDatabase database, String name, Consumer<IDatabase.StoredDocument> onRestore) {
+        super((Frame) null, "Revision History - " + name, true);
+        this.database = database;
+        this.name = name;
+        this.onRestore = onRestore;
+
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        revisionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        revisionList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected,
+                                                          boolean cellHasFocus) {
+                IDatabase.Revision revision = (IDatabase.Revision) value;
+                String text = String.format("#%d  %s  %,d chars  (%s, %.1f KB)", revision.revision(),
+                        format.format(new Date(revision.modifiedMillis())), revision.size(),
+                        revision.snapshot() ? "snapshot" : "delta", revision.storedBytes() / 1024.0);
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        revisionList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting() && revisionList.getSelectedValue() != null) {
+                showRevision(revisionList.getSelectedValue().revision());
+            }
+        });
+
+        content.setEditable(false);
+        content.setLineWrap(true);
+        content.setWrapStyleWord(true);
+
+        restoreButton.setEnabled(false);
+        restoreButton.addActionListener(e -> {
+            if (shown != null) {
+                onRestore.accept(shown);
+                dispose();
+            }
+        });
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> dispose());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(restoreButton);
+        buttons.add(closeButton);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                new JScrollPane(revisionList), new JScrollPane(content));
+        splitPane.setDividerLocation(330);
+        add(splitPane, BorderLayout.CENTER);
+        add(buttons, BorderLayout.SOUTH);
+        setSize(900, 500);
+        setLocationRelativeTo(null);
+
+        run(() -> database.revisions(name), list -> {
+            for (int i = list.size() - 1; i >= 0; i--) {
+                revisions.addElement(list.get(i));
+            }
+            if (!revisions.isEmpty()) {
+                revisionList.setSelectedIndex(0);
+            }
+        });
+    }
+
+    private void showRevision(int revision) {
+        restoreButton.setEnabled(false);
+        content.setText("Loading revision " + revision + "...");
+        run(() -> database.loadRevision(name, revision), document -> {
+            // A newer selection may have finished first
+            IDatabase.Revision selected = revisionList.getSelectedValue();
+            if (selected == null || selected.revision() != revision) {
+                return;
+            }
+            shown = document.orElse(null);
+            content.setText(shown != null ? shown.content() : "Revision " + revision + " no longer exists.");
+            content.setCaretPosition(0);
+            restoreButton.setEnabled(shown != null);
+        });
+    }
+
+    private <T> void run(Callable<T> task, Consumer<T> onSuccess) {
+        new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return task.call();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    onSuccess.accept(get());
+                } catch (ExecutionException ex) {
+                    content.setText("Could not read the revision history: " + ex.getCause().getMessage());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+}
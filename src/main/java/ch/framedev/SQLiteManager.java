@@ -11,15 +11,81 @@ package ch.framedev;
  * This Class was created at 24.05.2025 00:01
  */
 
-import ch.framedev.javasqliteutils.SQLite;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.util.Properties;
 
+/**
+ * The document store in a local SQLite file. The file runs in WAL mode, so reads do not wait for a save,
+ * and saves start their transaction with a write lock, so two saves of the same document cannot pick
+ * the same revision number.
+ */
 @SuppressWarnings("unused")
-public class SQLiteManager implements IDatabase {
+public class SQLiteManager extends JdbcDocumentStore {
+
+    private final Path databaseFile;
 
     public SQLiteManager() {
-        String path = Main.config.getString("database.sqlite.path", "path");
-        String database = Main.config.getString("database.sqlite.database", "database");
-        //noinspection InstantiationOfUtilityClass
-        new SQLite(path, database);
+        this(Path.of(Main.config.getString("database.sqlite.path", "path"),
+                        Main.config.getString("database.sqlite.database", "database")),
+                Main.config.getInt("database.poolSize", 4),
+                Main.config.getInt("database.connectionTimeoutMillis", 10000),
+                Main.config.getInt("database.snapshotInterval", 20));
+    }
+
+    /**
+     * Opens the store in {@code databaseFile}, creating the file and its directory if needed.
+     *
+     * @param snapshotInterval see {@link JdbcDocumentStore#JdbcDocumentStore(ConnectionPool, int)}
+     */
+    public SQLiteManager(Path databaseFile, int poolSize, long connectionTimeoutMillis, int snapshotInterval) {
+        super(new ConnectionPool(() -> open(databaseFile), poolSize, connectionTimeoutMillis), snapshotInterval);
+        this.databaseFile = databaseFile;
+        try {
+            Path directory = databaseFile.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not create the directory of " + databaseFile, ex);
+        }
+    }
+
+    public Path getDatabaseFile() {
+        return databaseFile;
+    }
+
+    private static java.sql.Connection open(Path databaseFile) throws java.sql.SQLException {
+        // Read by the SQLite JDBC driver as pragmas of the new connection
+        Properties properties = new Properties();
+        properties.setProperty("journal_mode", "WAL");
+        properties.setProperty("synchronous", "NORMAL");
+        properties.setProperty("busy_timeout", "5000");
+        properties.setProperty("transaction_mode", "IMMEDIATE");
+        return DriverManager.getConnection("jdbc:sqlite:" + databaseFile.toAbsolutePath(), properties);
+    }
+
+    @Override
+    protected String blobType() {
+        return "BLOB";
+    }
+
+    @Override
+    protected String tableOptions() {
+        return "";
+    }
+
+    @Override
+    protected String upsertDocument() {
+        return "INSERT INTO md_documents (name, revision, modified) VALUES (?, ?, ?) "
+                + "ON CONFLICT(name) DO UPDATE SET revision = excluded.revision, modified = excluded.modified";
+    }
+
+    @Override
+    protected String lockForUpdate() {
+        return "";
     }
 }
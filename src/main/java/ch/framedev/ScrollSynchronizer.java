@@ -0,0 +1,205 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 20:40
+ */
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Keeps the editor and the preview scrolled to the same part of the document. Scrolling either pane
+ * scrolls the other one to the matching element, and moving the caret scrolls the preview if the
+ * element at the caret is not visible. Within an element the position is interpolated linearly between
+ * its source offsets and its rendered height. The {@link SourcePositionIndex} is rebuilt lazily, once
+ * per preview update. Must only be used on the Event Dispatch Thread.
+ */
+@SuppressWarnings("unused")
+public class ScrollSynchronizer {
+
+    /**
+     * Differences below this many pixels are not corrected, so rounding never makes the panes ping-pong.
+     */
+    private static final int PREVIEW_TOLERANCE = 2;
+
+    private final JTextArea editor;
+    private final JScrollPane editorScrollPane;
+    private final JEditorPane preview;
+    private final JScrollPane previewScrollPane;
+    private final PreviewPatcher previewPatcher;
+
+    private SourcePositionIndex index;
+    private boolean enabled;
+    private boolean syncing;
+
+    public ScrollSynchronizer(JTextArea editor, JScrollPane editorScrollPane, JEditorPane preview,
+                              JScrollPane previewScrollPane, PreviewPatcher previewPatcher, boolean enabled) {
+        this.editor = editor;
+        this.editorScrollPane = editorScrollPane;
+        this.preview = preview;
+        this.previewScrollPane = previewScrollPane;
+        this.previewPatcher = previewPatcher;
+        this.enabled = enabled;
+        editorScrollPane.getViewport().addChangeListener(e -> editorScrolled());
+        previewScrollPane.getViewport().addChangeListener(e -> previewScrolled());
+        editor.addCaretListener(e -> caretMoved());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled) {
+            editorScrolled();
+        }
+    }
+
+    /**
+     * Must be called after every update of the preview.
+     */
+    public void previewChanged() {
+        index = null;
+    }
+
+    private void editorScrolled() {
+        if (!enabled || syncing) {
+            return;
+        }
+        Rectangle view = editorScrollPane.getViewport().getViewRect();
+        int offset = editor.viewToModel2D(new Point(view.x, view.y));
+        double y = previewY(offset);
+        if (!Double.isNaN(y)) {
+            scrollTo(previewScrollPane, y, PREVIEW_TOLERANCE);
+        }
+    }
+
+    private void previewScrolled() {
+        if (!enabled || syncing) {
+            return;
+        }
+        Rectangle view = previewScrollPane.getViewport().getViewRect();
+        int offset = sourceOffsetAt(view.y);
+        if (offset < 0) {
+            return;
+        }
+        try {
+            Rectangle2D line = editor.modelToView2D(Math.min(offset, editor.getDocument().getLength()));
+            if (line != null) {
+                scrollTo(editorScrollPane, line.getY(), editor.getFontMetrics(editor.getFont()).getHeight());
+            }
+        } catch (BadLocationException ignored) {
+            // The preview is older than the editor text
+        }
+    }
+
+    private void caretMoved() {
+        if (!enabled || syncing) {
+            return;
+        }
+        try {
+            Rectangle2D caret = editor.modelToView2D(editor.getCaretPosition());
+            double y = previewY(editor.getCaretPosition());
+            Rectangle previewView = previewScrollPane.getViewport().getViewRect();
+            if (caret == null || Double.isNaN(y) || (y >= previewView.y && y < previewView.y + previewView.height)) {
+                return;
+            }
+            // Shows the element at the same height as the caret line in the editor
+            Rectangle editorView = editorScrollPane.getViewport().getViewRect();
+            double relative = Math.max(0, Math.min(1, (caret.getY() - editorView.y) / Math.max(1, editorView.height)));
+            scrollTo(previewScrollPane, y - relative * previewView.height, PREVIEW_TOLERANCE);
+        } catch (BadLocationException ignored) {
+            // The caret is always inside the document
+        }
+    }
+
+    /**
+     * Returns the y coordinate in the preview that shows the source offset, or {@code NaN} if unknown.
+     */
+    private double previewY(int offset) {
+        SourcePositionIndex index = index();
+        int entry = index == null || offset < 0 ? -1 : index.entryAtSource(offset);
+        if (entry < 0) {
+            return Double.NaN;
+        }
+        Element element = index.getElement(entry);
+        try {
+            Rectangle2D top = preview.modelToView2D(element.getStartOffset());
+            Rectangle2D bottom = preview.modelToView2D(Math.max(element.getStartOffset(), element.getEndOffset() - 1));
+            if (top == null || bottom == null) {
+                return Double.NaN;
+            }
+            int start = index.getSourceStart(entry);
+            double fraction = Math.min(1, (double) (offset - start) / Math.max(1, index.getSourceEnd(entry) - start));
+            return top.getY() + fraction * Math.max(0, bottom.getMaxY() - top.getY());
+        } catch (BadLocationException ex) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Returns the source offset shown at the y coordinate of the preview, or {@code -1} if unknown.
+     */
+    private int sourceOffsetAt(int y) {
+        SourcePositionIndex index = index();
+        if (index == null) {
+            return -1;
+        }
+        int entry = index.entryAtDocument(preview.viewToModel2D(new Point(0, y)));
+        if (entry < 0) {
+            return -1;
+        }
+        Element element = index.getElement(entry);
+        try {
+            Rectangle2D top = preview.modelToView2D(element.getStartOffset());
+            Rectangle2D bottom = preview.modelToView2D(Math.max(element.getStartOffset(), element.getEndOffset() - 1));
+            if (top == null || bottom == null) {
+                return -1;
+            }
+            double height = bottom.getMaxY() - top.getY();
+            double fraction = height <= 0 ? 0 : Math.max(0, Math.min(1, (y - top.getY()) / height));
+            int start = index.getSourceStart(entry);
+            return start + (int) (fraction * (index.getSourceEnd(entry) - start));
+        } catch (BadLocationException ex) {
+            return -1;
+        }
+    }
+
+    private SourcePositionIndex index() {
+        if (index == null) {
+            Element body = previewPatcher.getBody();
+            if (body == null) {
+                return null;
+            }
+            index = SourcePositionIndex.build(body, previewPatcher.getBlockStarts(), editor.getDocument().getLength());
+        }
+        return index;
+    }
+
+    private void scrollTo(JScrollPane scrollPane, double y, int tolerance) {
+        JViewport viewport = scrollPane.getViewport();
+        int max = Math.max(0, viewport.getViewSize().height - viewport.getExtentSize().height);
+        int target = (int) Math.max(0, Math.min(max, Math.round(y)));
+        Point position = viewport.getViewPosition();
+        if (Math.abs(target - position.y) <= tolerance) {
+            return;
+        }
+        syncing = true;
+        try {
+            viewport.setViewPosition(new Point(position.x, target));
+        } finally {
+            syncing = false;
+        }
+    }
+}
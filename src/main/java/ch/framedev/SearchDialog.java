@@ -0,0 +1,143 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 22:25
+ */
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.Consumer;
+
+/**
+ * Searches the {@link SearchIndexer} while the query is typed and opens the chosen document with
+ * Enter or a double click.
+ */
+@SuppressWarnings("unused")
+public class SearchDialog extends JDialog {
+
+    private static final int MAX_HITS = 50;
+
+    private final SearchIndexer indexer;
+    private final Consumer<String> onOpen;
+    private final JTextField queryField = new JTextField();
+    private final DefaultListModel<SearchIndex.Hit> hits = new DefaultListModel<>();
+    private final JList<SearchIndex.Hit> hitList = new JList<>(hits);
+    private final JLabel status = new JLabel(" ");
+
+    /**
+     * @param onOpen called with the key of the chosen document, see {@link SearchIndexer}
+     */
+    public SearchDialog(SearchIndexer indexer, Consumer<String> onOpen) {
+        super((Frame) null, "Search Notes", false);
+        this.indexer = indexer;
+        this.onOpen = onOpen;
+
+        hitList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        hitList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected,
+                                                          boolean cellHasFocus) {
+                SearchIndex.Hit hit = (SearchIndex.Hit) value;
+                String location = SearchIndexer.isFile(hit.key()) ? SearchIndexer.toFile(hit.key()).toString()
+                        : "Database: " + SearchIndexer.toDatabaseDocument(hit.key());
+                String text = "<html><b>" + escape(hit.title()) + "</b><br><small>" + escape(location)
+                        + "</small><br>" + escape(hit.summary()) + "</html>";
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        hitList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openSelected();
+                }
+            }
+        });
+
+        queryField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                search();
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                search();
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+                search();
+            }
+        });
+        queryField.addActionListener(e -> openSelected());
+        // The arrow keys move through the hits while the query keeps the focus
+        queryField.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "nextHit");
+        queryField.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "previousHit");
+        queryField.getActionMap().put("nextHit", new AbstractAction() {
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                moveSelection(1);
+            }
+        });
+        queryField.getActionMap().put("previousHit", new AbstractAction() {
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                moveSelection(-1);
+            }
+        });
+        getRootPane().registerKeyboardAction(e -> dispose(), KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0),
+                JComponent.WHEN_IN_FOCUSED_WINDOW);
+
+        add(queryField, BorderLayout.NORTH);
+        add(new JScrollPane(hitList), BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        setSize(600, 450);
+        setLocationRelativeTo(null);
+        status.setText(indexer.getIndex().size() + " documents indexed");
+    }
+
+    private void search() {
+        hits.clear();
+        String query = queryField.getText();
+        if (query.isBlank()) {
+            status.setText(indexer.getIndex().size() + " documents indexed");
+            return;
+        }
+        long start = System.nanoTime();
+        for (SearchIndex.Hit hit : indexer.search(query, MAX_HITS)) {
+            hits.addElement(hit);
+        }
+        if (!hits.isEmpty()) {
+            hitList.setSelectedIndex(0);
+        }
+        status.setText(String.format("%d results in %.1f ms", hits.size(), (System.nanoTime() - start) / 1e6));
+    }
+
+    private void moveSelection(int delta) {
+        if (!hits.isEmpty()) {
+            int index = Math.max(0, Math.min(hits.size() - 1, hitList.getSelectedIndex() + delta));
+            hitList.setSelectedIndex(index);
+            hitList.ensureIndexIsVisible(index);
+        }
+    }
+
+    private void openSelected() {
+        SearchIndex.Hit hit = hitList.getSelectedValue();
+        if (hit != null) {
+            onOpen.accept(hit.key());
+            dispose();
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
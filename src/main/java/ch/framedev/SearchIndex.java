@@ -0,0 +1,433 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 22:05
+ */
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An inverted index over Markdown documents for the search dialog. Text, headings and fenced code
+ * blocks are split into lower-case terms; a term in a heading counts {@link #HEADING_WEIGHT} times.
+ * Queries are ranked with BM25, every term must match, and the last term also matches as a prefix
+ * while it is being typed, which the sorted term dictionary answers with a range scan.
+ * <p>
+ * Documents are addressed by a key, see {@link SearchIndexer}, and carry a stamp such as the file's
+ * modification time, so a caller can tell whether a document must be indexed again. The index is
+ * saved as a deflated file of prefix-compressed terms with delta-coded postings. All methods are
+ * thread-safe.
+ */
+@SuppressWarnings("unused")
+public class SearchIndex {
+
+    private static final int MAGIC = 0x4D445831;
+    private static final int HEADING_WEIGHT = 3;
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final int MAX_PREFIX_TERMS = 64;
+    private static final int SUMMARY_LENGTH = 160;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    public record Hit(String key, String title, String summary, double score) {
+    }
+
+    private static final class Document {
+        final String key;
+        final String title;
+        final String summary;
+        final long stamp;
+        final int length;
+        String[] terms;
+
+        Document(String key, String title, String summary, long stamp, int length) {
+            this.key = key;
+            this.title = title;
+            this.summary = summary;
+            this.stamp = stamp;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The documents containing a term, by ascending id, and the weighted frequency in each.
+     */
+    private static final class Postings {
+        int[] documents = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+
+        void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size++] = frequency;
+        }
+
+        void remove(int document) {
+            int index = Arrays.binarySearch(documents, 0, size, document);
+            if (index >= 0) {
+                System.arraycopy(documents, index + 1, documents, index, size - index - 1);
+                System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+
+    // Removed documents leave a null slot until the index is saved, so ids stay ascending in the postings
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private long totalLength;
+    private int count;
+    private boolean modified;
+
+    /**
+     * Returns the stamp the document was indexed with, or {@code -1} if it is not in the index.
+     */
+    public synchronized long getStamp(String key) {
+        Integer id = ids.get(key);
+        return id == null ? -1 : documents.get(id).stamp;
+    }
+
+    public synchronized Set<String> getKeys() {
+        return new HashSet<>(ids.keySet());
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized int getTermCount() {
+        return terms.size();
+    }
+
+    /**
+     * Whether the index changed since it was loaded or saved.
+     */
+    public synchronized boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Indexes the Markdown text under {@code key}, replacing an earlier version of it.
+     *
+     * @param fallbackTitle the title if the text has no heading, e.g. the file name
+     */
+    public void put(String key, String fallbackTitle, long stamp, String markdown) {
+        // Tokenizing does not need the lock
+        Map<String, int[]> frequencies = new HashMap<>();
+        String title = null;
+        StringBuilder summary = new StringBuilder();
+        int length = 0;
+        boolean inCode = false;
+        String fence = null;
+        int position = 0;
+        while (position < markdown.length()) {
+            int end = markdown.indexOf('\n', position);
+            if (end < 0) {
+                end = markdown.length();
+            }
+            String line = markdown.substring(position, end).strip();
+            position = end + 1;
+            if (line.startsWith("```") || line.startsWith("~~~")) {
+                if (!inCode) {
+                    inCode = true;
+                    fence = line.substring(0, 3);
+                    continue;
+                } else if (line.startsWith(fence)) {
+                    inCode = false;
+                    continue;
+                }
+            }
+            boolean heading = !inCode && line.startsWith("#") && line.matches("#{1,6}(\\s.*)?");
+            if (heading) {
+                line = line.replaceFirst("^#+\\s*", "");
+                if (title == null && !line.isEmpty()) {
+                    title = line;
+                }
+            } else if (!inCode && summary.length() < SUMMARY_LENGTH && !line.isEmpty()) {
+                summary.append(summary.isEmpty() ? "" : " ").append(line);
+            }
+            length += tokenize(line, heading ? HEADING_WEIGHT : 1, frequencies);
+        }
+        String shortSummary = summary.length() > SUMMARY_LENGTH ? summary.substring(0, SUMMARY_LENGTH) + "..." : summary.toString();
+        Document document = new Document(key, title != null ? title : fallbackTitle, shortSummary, stamp, length);
+        document.terms = frequencies.keySet().toArray(new String[0]);
+
+        synchronized (this) {
+            removeLocked(key);
+            int id = documents.size();
+            documents.add(document);
+            ids.put(key, id);
+            for (Map.Entry<String, int[]> term : frequencies.entrySet()) {
+                terms.computeIfAbsent(term.getKey(), t -> new Postings()).add(id, term.getValue()[0]);
+            }
+            totalLength += length;
+            count++;
+            modified = true;
+        }
+    }
+
+    public synchronized boolean remove(String key) {
+        boolean removed = removeLocked(key);
+        modified |= removed;
+        return removed;
+    }
+
+    /**
+     * Returns the best {@code limit} documents that contain every term of the query. Unless the query
+     * ends with a space, its last term also matches every term it is a prefix of, and so does any term
+     * ending with {@code *}.
+     */
+    public synchronized List<Hit> search(String query, int limit) {
+        List<String> queryTerms = new ArrayList<>();
+        List<Boolean> prefixes = new ArrayList<>();
+        for (String part : query.toLowerCase(Locale.ROOT).split("\\s+")) {
+            boolean prefix = part.endsWith("*");
+            List<String> split = new ArrayList<>();
+            splitTerms(prefix ? part.substring(0, part.length() - 1) : part, split);
+            for (int i = 0; i < split.size(); i++) {
+                queryTerms.add(split.get(i));
+                prefixes.add(prefix && i == split.size() - 1);
+            }
+        }
+        if (queryTerms.isEmpty() || count == 0) {
+            return List.of();
+        }
+        if (!query.isEmpty() && !Character.isWhitespace(query.charAt(query.length() - 1))) {
+            prefixes.set(prefixes.size() - 1, true);
+        }
+
+        double averageLength = Math.max(1, (double) totalLength / count);
+        Map<Integer, double[]> scores = null;
+        for (int i = 0; i < queryTerms.size(); i++) {
+            String term = queryTerms.get(i);
+            Collection<Postings> matches = prefixes.get(i)
+                    ? terms.subMap(term, true, term + Character.MAX_VALUE, false).values()
+                    : Optional.ofNullable(terms.get(term)).map(List::of).orElse(List.of());
+            Map<Integer, double[]> termScores = new HashMap<>();
+            int expanded = 0;
+            for (Postings postings : matches) {
+                if (expanded++ == MAX_PREFIX_TERMS) {
+                    break;
+                }
+                double idf = Math.log(1 + (count - postings.size + 0.5) / (postings.size + 0.5));
+                for (int p = 0; p < postings.size; p++) {
+                    Document document = documents.get(postings.documents[p]);
+                    double frequency = postings.frequencies[p];
+                    double score = idf * frequency * (K1 + 1)
+                            / (frequency + K1 * (1 - B + B * document.length / averageLength));
+                    termScores.computeIfAbsent(postings.documents[p], d -> new double[1])[0] += score;
+                }
+            }
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                for (Map.Entry<Integer, double[]> score : scores.entrySet()) {
+                    score.getValue()[0] += termScores.get(score.getKey())[0];
+                }
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+        PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+        for (Map.Entry<Integer, double[]> score : scores.entrySet()) {
+            Document document = documents.get(score.getKey());
+            best.add(new Hit(document.key, document.title, document.summary, score.getValue()[0]));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+        return hits;
+    }
+
+    /**
+     * Writes the index to {@code file} through a temporary file.
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        synchronized (this) {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new DeflaterOutputStream(Files.newOutputStream(temp))))) {
+                // Removed documents are dropped, so the ids are renumbered
+                int[] newIds = new int[documents.size()];
+                int next = 0;
+                out.writeInt(MAGIC);
+                writeVarInt(out, count);
+                for (int i = 0; i < documents.size(); i++) {
+                    Document document = documents.get(i);
+                    newIds[i] = document == null ? -1 : next++;
+                    if (document != null) {
+                        out.writeUTF(document.key);
+                        out.writeUTF(document.title);
+                        out.writeUTF(document.summary);
+                        out.writeLong(document.stamp);
+                        writeVarInt(out, document.length);
+                    }
+                }
+                writeVarInt(out, terms.size());
+                String previous = "";
+                for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+                    String term = entry.getKey();
+                    int shared = 0;
+                    while (shared < Math.min(term.length(), previous.length()) && term.charAt(shared) == previous.charAt(shared)) {
+                        shared++;
+                    }
+                    writeVarInt(out, shared);
+                    out.writeUTF(term.substring(shared));
+                    Postings postings = entry.getValue();
+                    writeVarInt(out, postings.size);
+                    int last = 0;
+                    for (int p = 0; p < postings.size; p++) {
+                        int id = newIds[postings.documents[p]];
+                        writeVarInt(out, id - last);
+                        writeVarInt(out, postings.frequencies[p]);
+                        last = id;
+                    }
+                    previous = term;
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #save(Path)}.
+     */
+    public static SearchIndex load(Path file) throws IOException {
+        SearchIndex index = new SearchIndex();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a search index");
+            }
+            int documentCount = readVarInt(in);
+            List<List<String>> documentTerms = new ArrayList<>(documentCount);
+            for (int i = 0; i < documentCount; i++) {
+                Document document = new Document(in.readUTF(), in.readUTF(), in.readUTF(), in.readLong(), readVarInt(in));
+                index.documents.add(document);
+                index.ids.put(document.key, i);
+                index.totalLength += document.length;
+                documentTerms.add(new ArrayList<>());
+            }
+            index.count = documentCount;
+            int termCount = readVarInt(in);
+            String previous = "";
+            for (int t = 0; t < termCount; t++) {
+                int shared = readVarInt(in);
+                if (shared > previous.length()) {
+                    throw new IOException("Corrupt search index");
+                }
+                String term = previous.substring(0, shared) + in.readUTF();
+                Postings postings = new Postings();
+                int size = readVarInt(in);
+                int id = 0;
+                for (int p = 0; p < size; p++) {
+                    id += readVarInt(in);
+                    if (id >= documentCount) {
+                        throw new IOException("Corrupt search index");
+                    }
+                    postings.add(id, readVarInt(in));
+                    documentTerms.get(id).add(term);
+                }
+                index.terms.put(term, postings);
+                previous = term;
+            }
+            for (int i = 0; i < documentCount; i++) {
+                index.documents.get(i).terms = documentTerms.get(i).toArray(new String[0]);
+            }
+        }
+        return index;
+    }
+
+    private boolean removeLocked(String key) {
+        Integer id = ids.remove(key);
+        if (id == null) {
+            return false;
+        }
+        Document document = documents.set(id, null);
+        for (String term : document.terms) {
+            Postings postings = terms.get(term);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.size == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+        totalLength -= document.length;
+        count--;
+        return true;
+    }
+
+    /**
+     * Adds the terms of the line with the given weight and returns how many there were.
+     */
+    private static int tokenize(String line, int weight, Map<String, int[]> frequencies) {
+        List<String> split = new ArrayList<>();
+        splitTerms(line.toLowerCase(Locale.ROOT), split);
+        for (String term : split) {
+            frequencies.computeIfAbsent(term, t -> new int[1])[0] += weight;
+        }
+        return split.size();
+    }
+
+    /**
+     * Splits at everything that is neither a letter, a digit nor an underscore, so identifiers in code stay whole.
+     */
+    private static void splitTerms(String text, List<String> terms) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean partOfTerm = i < text.length() && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_');
+            if (partOfTerm && start < 0) {
+                start = i;
+            } else if (!partOfTerm && start >= 0) {
+                if (i - start <= MAX_TERM_LENGTH) {
+                    terms.add(text.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt search index");
+    }
+}
@@ -0,0 +1,259 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 22:15
+ */
+
+import ch.framedev.simplejavautils.SimpleJavaUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a {@link SearchIndex} up to date on a background thread. Files are indexed under
+ * {@code file:<absolute path>} and stamped with their modification time, database documents under
+ * {@code db:<name>} with the time of their latest revision, so a document is only read again when it
+ * changed. On start the saved index is loaded and the known files, the recent files, the folders in
+ * {@code search.folders} and the database are checked; afterwards opened and saved documents are
+ * indexed as they come. The index is written back shortly after it changes and on {@link #close()}.
+ */
+@SuppressWarnings("unused")
+public class SearchIndexer {
+
+    private static final String FILE_PREFIX = "file:";
+    private static final String DATABASE_PREFIX = "db:";
+    private static final long SAVE_DELAY_SECONDS = 5;
+
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "search-index");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final Path indexFile;
+    private final List<Path> folders;
+    private final long maxFileBytes;
+    private final DatabaseManager databaseManager;
+    private final Consumer<String> errorHandler;
+    private volatile SearchIndex index = new SearchIndex();
+    private ScheduledFuture<?> pendingSave;
+
+    /**
+     * @param folders         folders whose Markdown files are indexed as well, searched recursively
+     * @param maxFileBytes    larger files are not indexed
+     * @param databaseManager the database to index, or {@code null}
+     * @param errorHandler    called with a message on the indexing thread when the index or its sources
+     *                        cannot be read or written
+     */
+    public SearchIndexer(Path indexFile, List<Path> folders, long maxFileBytes, DatabaseManager databaseManager,
+                         Consumer<String> errorHandler) {
+        this.indexFile = indexFile;
+        this.folders = List.copyOf(folders);
+        this.maxFileBytes = maxFileBytes;
+        this.databaseManager = databaseManager;
+        this.errorHandler = errorHandler;
+        // close() saves right away, a delayed save must not hold up the shutdown
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    public static SearchIndexer fromConfig(DatabaseManager databaseManager, Consumer<String> errorHandler) {
+        Path indexFile = Path.of(Main.config.getString("search.indexFile",
+                new SimpleJavaUtils().getFilePath(Main.class) + "search.index"));
+        List<Path> folders = new ArrayList<>();
+        for (String folder : Main.config.getString("search.folders", "").split(",")) {
+            if (!folder.isBlank()) {
+                folders.add(Path.of(folder.strip()));
+            }
+        }
+        return new SearchIndexer(indexFile, folders, Main.config.getInt("search.maxFileKilobytes", 4096) * 1024L,
+                databaseManager.isDatabaseSupported() ? databaseManager : null, errorHandler);
+    }
+
+    public static boolean isFile(String key) {
+        return key.startsWith(FILE_PREFIX);
+    }
+
+    public static Path toFile(String key) {
+        return Path.of(key.substring(FILE_PREFIX.length()));
+    }
+
+    public static boolean isDatabaseDocument(String key) {
+        return key.startsWith(DATABASE_PREFIX);
+    }
+
+    public static String toDatabaseDocument(String key) {
+        return key.substring(DATABASE_PREFIX.length());
+    }
+
+    public SearchIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Loads the saved index and brings it up to date in the background.
+     */
+    public void start(Collection<Path> recentFiles) {
+        List<Path> recent = List.copyOf(recentFiles);
+        executor.execute(() -> {
+            if (Files.exists(indexFile)) {
+                try {
+                    index = SearchIndex.load(indexFile);
+                } catch (IOException ex) {
+                    errorHandler.accept("Rebuilding the search index, " + indexFile + " could not be read: " + ex.getMessage());
+                }
+            }
+            Set<Path> files = new LinkedHashSet<>(recent);
+            for (String key : index.getKeys()) {
+                if (isFile(key)) {
+                    files.add(toFile(key));
+                }
+            }
+            for (Path folder : folders) {
+                try (Stream<Path> walk = Files.walk(folder)) {
+                    walk.filter(SearchIndexer::isMarkdownFile).forEach(files::add);
+                } catch (IOException | UncheckedIOException ex) {
+                    errorHandler.accept("Failed to list " + folder + ": " + ex.getMessage());
+                }
+            }
+            files.forEach(this::update);
+            updateDatabase();
+            scheduleSave();
+        });
+    }
+
+    /**
+     * Indexes the file in the background if it changed since it was last indexed.
+     */
+    public void indexFile(Path file) {
+        executor.execute(() -> {
+            update(file);
+            scheduleSave();
+        });
+    }
+
+    /**
+     * Indexes the latest revision of a database document in the background.
+     */
+    public void indexDatabaseDocument(String name) {
+        if (databaseManager == null) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                databaseManager.getIDatabase().load(name).ifPresentOrElse(
+                        document -> index.put(DATABASE_PREFIX + name, name, document.modifiedMillis(), document.content()),
+                        () -> index.remove(DATABASE_PREFIX + name));
+            } catch (Exception ex) {
+                errorHandler.accept("Failed to index " + name + " from the database: " + ex.getMessage());
+            }
+            scheduleSave();
+        });
+    }
+
+    /**
+     * Searches the index, see {@link SearchIndex#search(String, int)}.
+     */
+    public List<SearchIndex.Hit> search(String query, int limit) {
+        return index.search(query, limit);
+    }
+
+    /**
+     * Saves the index if it changed and stops the background thread.
+     */
+    public void close() {
+        executor.execute(this::save);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                errorHandler.accept("The search index was not saved in time");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void update(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        String key = FILE_PREFIX + absolute;
+        try {
+            long stamp = Files.getLastModifiedTime(absolute).toMillis();
+            if (index.getStamp(key) == stamp) {
+                return;
+            }
+            if (Files.size(absolute) > maxFileBytes) {
+                index.remove(key);
+                return;
+            }
+            String markdown = new String(Files.readAllBytes(absolute), StandardCharsets.UTF_8);
+            index.put(key, absolute.getFileName().toString(), stamp, markdown);
+        } catch (NoSuchFileException ex) {
+            index.remove(key);
+        } catch (IOException ex) {
+            // Unreadable right now, e.g. locked by another program; tried again on the next change
+        }
+    }
+
+    private void updateDatabase() {
+        if (databaseManager == null) {
+            return;
+        }
+        try {
+            IDatabase database = databaseManager.getIDatabase();
+            Set<String> stale = new HashSet<>();
+            for (String key : index.getKeys()) {
+                if (isDatabaseDocument(key)) {
+                    stale.add(key);
+                }
+            }
+            for (IDatabase.DocumentInfo info : database.list()) {
+                String key = DATABASE_PREFIX + info.name();
+                stale.remove(key);
+                if (index.getStamp(key) != info.modifiedMillis()) {
+                    database.load(info.name()).ifPresent(document ->
+                            index.put(key, info.name(), document.modifiedMillis(), document.content()));
+                }
+            }
+            stale.forEach(index::remove);
+        } catch (Exception ex) {
+            errorHandler.accept("Failed to index the database: " + ex.getMessage());
+        }
+    }
+
+    private void scheduleSave() {
+        if (pendingSave == null || pendingSave.isDone()) {
+            pendingSave = executor.schedule(this::save, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void save() {
+        if (!index.isModified()) {
+            return;
+        }
+        try {
+            index.save(indexFile);
+        } catch (IOException ex) {
+            errorHandler.accept("Failed to save the search index to " + indexFile + ": " + ex.getMessage());
+        }
+    }
+
+    private static boolean isMarkdownFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return (name.endsWith(".md") || name.endsWith(".markdown")) && Files.isRegularFile(file);
+    }
+}
@@ -0,0 +1,156 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 20:30
+ */
+
+import javax.swing.text.Element;
+import java.util.Arrays;
+
+/**
+ * Maps source offsets of the editor to elements of the preview and back. Every block {@code <div>} of
+ * the preview is an entry covering its block, and every element inside it that carries the
+ * {@link MarkdownRenderService#SOURCE_POSITION_ATTRIBUTE} written by flexmark is an entry covering
+ * the node's start/end offsets. The entries are in document order, which is also source order, so
+ * both directions are binary searches followed by a walk up to the innermost containing entry.
+ */
+@SuppressWarnings("unused")
+public final class SourcePositionIndex {
+
+    private int[] sourceStarts = new int[64];
+    private int[] sourceEnds = new int[64];
+    private int[] documentStarts = new int[64];
+    private int[] parents = new int[64];
+    private Element[] elements = new Element[64];
+    private int size;
+
+    private SourcePositionIndex() {
+    }
+
+    /**
+     * Builds the index for the blocks below {@code body}.
+     *
+     * @param blockStarts  the source offset of every block, as published with the preview content
+     * @param sourceLength the length of the source, which is where the last block ends
+     */
+    public static SourcePositionIndex build(Element body, int[] blockStarts, int sourceLength) {
+        SourcePositionIndex index = new SourcePositionIndex();
+        int blocks = body.getElementCount();
+        if (blockStarts == null || blockStarts.length != blocks) {
+            return index;
+        }
+        for (int i = 0; i < blocks; i++) {
+            int start = blockStarts[i];
+            int end = Math.max(start, i + 1 < blocks ? blockStarts[i + 1] : sourceLength);
+            Element block = body.getElement(i);
+            index.collect(block, start, index.add(start, end, -1, block));
+        }
+        return index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Element getElement(int entry) {
+        return elements[entry];
+    }
+
+    public int getSourceStart(int entry) {
+        return sourceStarts[entry];
+    }
+
+    public int getSourceEnd(int entry) {
+        return sourceEnds[entry];
+    }
+
+    /**
+     * Returns the innermost entry containing the source offset, or {@code -1} if the index is empty.
+     */
+    public int entryAtSource(int offset) {
+        int entry = lastAtMost(sourceStarts, offset);
+        while (entry >= 0 && offset >= sourceEnds[entry] && parents[entry] >= 0) {
+            entry = parents[entry];
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the innermost entry containing the offset of the preview document, or {@code -1} if the
+     * index is empty.
+     */
+    public int entryAtDocument(int offset) {
+        int entry = lastAtMost(documentStarts, offset);
+        while (entry >= 0 && offset >= elements[entry].getEndOffset() && parents[entry] >= 0) {
+            entry = parents[entry];
+        }
+        return entry;
+    }
+
+    private void collect(Element element, int blockStart, int parent) {
+        for (int i = 0; i < element.getElementCount(); i++) {
+            Element child = element.getElement(i);
+            if (child.isLeaf()) {
+                continue;
+            }
+            int entry = parent;
+            // isDefined does not look at the parents, unlike getAttribute
+            if (child.getAttributes().isDefined(MarkdownRenderService.SOURCE_POSITION_ATTRIBUTE)) {
+                String position = child.getAttributes().getAttribute(MarkdownRenderService.SOURCE_POSITION_ATTRIBUTE).toString();
+                int dash = position.indexOf('-');
+                try {
+                    int start = blockStart + Integer.parseInt(position.substring(0, dash));
+                    int end = blockStart + Integer.parseInt(position.substring(dash + 1));
+                    // Keeps the entries sorted and inside their parent, whatever the renderer wrote
+                    start = Math.max(start, sourceStarts[size - 1]);
+                    start = Math.min(start, sourceEnds[parent]);
+                    end = Math.max(start, Math.min(end, sourceEnds[parent]));
+                    entry = add(start, end, parent, child);
+                } catch (NumberFormatException | IndexOutOfBoundsException ex) {
+                    // Not a position written by flexmark, the element stays part of its parent entry
+                }
+            }
+            collect(child, blockStart, entry);
+        }
+    }
+
+    private int add(int sourceStart, int sourceEnd, int parent, Element element) {
+        if (size == sourceStarts.length) {
+            int capacity = size * 2;
+            sourceStarts = Arrays.copyOf(sourceStarts, capacity);
+            sourceEnds = Arrays.copyOf(sourceEnds, capacity);
+            documentStarts = Arrays.copyOf(documentStarts, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            elements = Arrays.copyOf(elements, capacity);
+        }
+        sourceStarts[size] = sourceStart;
+        sourceEnds[size] = sourceEnd;
+        documentStarts[size] = element.getStartOffset();
+        parents[size] = parent;
+        elements[size] = element;
+        return size++;
+    }
+
+    private int lastAtMost(int[] starts, int offset) {
+        int low = 0;
+        int high = size - 1;
+        int result = size > 0 ? 0 : -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= offset) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 22:35
+ */
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records when each startup phase finished, in milliseconds since the JVM was launched. Phases are
+ * always recorded, which only costs a timestamp each, and printed on the first keystroke if
+ * {@link #isReportEnabled()}. {@code --startup-probe} prints them and exits, see {@link Main}.
+ */
+@SuppressWarnings("unused")
+public final class StartupTimer {
+
+    public record Phase(String name, String thread, double millis) {
+    }
+
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    // How long the JVM had been running when this class was loaded, as far as the OS reports it
+    private static final double LAUNCH_OFFSET_MILLIS = ProcessHandle.current().info().startInstant()
+            .map(start -> Math.max(0, Duration.between(start, Instant.now()).toNanos() / 1e6))
+            .orElse(0.0);
+    private static final List<Phase> PHASES = new ArrayList<>();
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Whether the phases are printed on the first keystroke, set with {@code startup.timing} in the
+     * configuration or {@code -Dmarkdown.startupTiming=true}.
+     */
+    public static boolean isReportEnabled() {
+        return Boolean.getBoolean("markdown.startupTiming")
+                || Main.config != null && Main.config.getBoolean("startup.timing", false);
+    }
+
+    /**
+     * Records that {@code phase} finished now. Only the first time of each phase counts.
+     */
+    public static void mark(String phase) {
+        double millis = LAUNCH_OFFSET_MILLIS + (System.nanoTime() - ORIGIN_NANOS) / 1e6;
+        synchronized (PHASES) {
+            for (Phase recorded : PHASES) {
+                if (recorded.name().equals(phase)) {
+                    return;
+                }
+            }
+            PHASES.add(new Phase(phase, Thread.currentThread().getName(), millis));
+        }
+    }
+
+    public static List<Phase> getPhases() {
+        synchronized (PHASES) {
+            return List.copyOf(PHASES);
+        }
+    }
+
+    public static void report(PrintStream out) {
+        out.println("Startup phases (ms since JVM launch):");
+        for (Phase phase : getPhases()) {
+            out.printf("  %8.1f  %-28s %s%n", phase.millis(), phase.name(), phase.thread());
+        }
+    }
+}
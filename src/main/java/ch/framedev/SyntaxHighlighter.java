@@ -0,0 +1,174 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 14:31
+ */
+
+import ch.framedev.LanguageGrammar.TokenType;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Highlights code blocks with the precompiled {@link LanguageGrammar}s and caches the result per block.
+ */
+@SuppressWarnings("unused")
+public class SyntaxHighlighter {
+
+    private static final String IDENTIFIER = "[A-Za-z_$][\\w$]*";
+    private static final String DOUBLE_QUOTED = "\"(?:[^\"\\\\\\n]|\\\\.)*\"";
+    private static final String SINGLE_QUOTED = "'(?:[^'\\\\\\n]|\\\\.)*'";
+    private static final String NUMBER = "\\b(?:0[xX][0-9a-fA-F_]+|\\d[\\d_]*(?:\\.\\d+)?(?:[eE][+-]?\\d+)?)[lLfFdD]?\\b";
+
+    private static final Map<String, LanguageGrammar> GRAMMARS = new HashMap<>();
+
+    static {
+        LanguageGrammar java = LanguageGrammar.builder("java")
+                .rule(TokenType.COMMENT, "//[^\\n]*|/\\*[\\s\\S]*?\\*/")
+                .rule(TokenType.STRING, "\"\"\"[\\s\\S]*?\"\"\"|" + DOUBLE_QUOTED + "|" + SINGLE_QUOTED)
+                .rule(TokenType.TYPE, "@" + IDENTIFIER)
+                .rule(TokenType.NUMBER, NUMBER)
+                .rule(TokenType.IDENTIFIER, IDENTIFIER)
+                .keywords("abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+                        "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+                        "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+                        "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+                        "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+                        "volatile", "while", "var", "record", "yield", "sealed", "permits")
+                .literals("true", "false", "null")
+                .capitalizedTypes()
+                .build();
+        register(java, "java");
+
+        LanguageGrammar json = LanguageGrammar.builder("json")
+                .rule(TokenType.PROPERTY, DOUBLE_QUOTED + "(?=\\s*:)")
+                .rule(TokenType.STRING, DOUBLE_QUOTED)
+                .rule(TokenType.NUMBER, "-?\\b\\d+(?:\\.\\d+)?(?:[eE][+-]?\\d+)?\\b")
+                .rule(TokenType.IDENTIFIER, "[A-Za-z]+")
+                .literals("true", "false", "null")
+                .build();
+        register(json, "json", "jsonc");
+
+        LanguageGrammar yaml = LanguageGrammar.builder("yaml")
+                .rule(TokenType.COMMENT, "(?:^|(?<=\\s))#[^\\n]*")
+                .rule(TokenType.KEYWORD, "^(?:---|\\.\\.\\.)(?=\\s|$)")
+                .rule(TokenType.PROPERTY, "[\\w.\\-]+(?=:(?:[ \\t]|$))|" + DOUBLE_QUOTED + "(?=:(?:[ \\t]|$))")
+                .rule(TokenType.STRING, DOUBLE_QUOTED + "|'(?:[^'\\n]|'')*'")
+                .rule(TokenType.VARIABLE, "[&*][\\w\\-]+")
+                .rule(TokenType.NUMBER, "(?<![\\w.])[-+]?\\d+(?:\\.\\d+)?(?![\\w.])")
+                .rule(TokenType.IDENTIFIER, "(?<![\\w.\\-])[A-Za-z~]+(?![\\w.\\-])")
+                .literals("true", "false", "yes", "no", "on", "off", "null", "True", "False", "Yes", "No", "Null",
+                        "TRUE", "FALSE", "NULL", "~")
+                .build();
+        register(yaml, "yaml", "yml");
+
+        LanguageGrammar sql = LanguageGrammar.builder("sql")
+                .rule(TokenType.COMMENT, "--[^\\n]*|/\\*[\\s\\S]*?\\*/")
+                .rule(TokenType.STRING, "'(?:[^']|'')*'")
+                .rule(TokenType.PROPERTY, "\"[^\"\\n]*\"|`[^`\\n]*`")
+                .rule(TokenType.VARIABLE, "[:@?][A-Za-z_]\\w*")
+                .rule(TokenType.NUMBER, "\\b\\d+(?:\\.\\d+)?\\b")
+                .rule(TokenType.IDENTIFIER, "[A-Za-z_]\\w*")
+                .keywords("select", "from", "where", "and", "or", "not", "in", "is", "like", "between", "exists",
+                        "insert", "into", "values", "update", "set", "delete", "create", "table", "view", "index",
+                        "drop", "alter", "add", "column", "primary", "foreign", "key", "references", "unique",
+                        "constraint", "default", "check", "join", "inner", "left", "right", "full", "outer", "cross",
+                        "on", "as", "group", "by", "order", "having", "limit", "offset", "union", "all", "distinct",
+                        "case", "when", "then", "else", "end", "asc", "desc", "if", "begin", "commit", "rollback",
+                        "transaction", "with", "returning", "autoincrement", "auto_increment", "integer", "int",
+                        "bigint", "varchar", "text", "blob", "boolean", "real", "double", "timestamp", "date")
+                .literals("null", "true", "false")
+                .caseInsensitiveKeywords()
+                .build();
+        register(sql, "sql", "mysql", "sqlite", "postgresql", "psql", "plsql");
+
+        LanguageGrammar shell = LanguageGrammar.builder("shell")
+                .rule(TokenType.COMMENT, "(?:^|(?<=\\s))#[^\\n]*")
+                .rule(TokenType.STRING, DOUBLE_QUOTED + "|'[^']*'")
+                .rule(TokenType.VARIABLE, "\\$(?:\\{[^}\\n]*}|\\w+|[@#?$!*\\-])")
+                .rule(TokenType.NUMBER, "(?<![\\w\\-.])\\d+(?![\\w.])")
+                .rule(TokenType.IDENTIFIER, "(?<![\\w\\-./])[A-Za-z_][\\w\\-]*")
+                .keywords("if", "then", "else", "elif", "fi", "for", "while", "until", "do", "done", "case", "esac",
+                        "in", "function", "return", "select", "local", "export", "readonly", "declare", "unset",
+                        "source", "alias", "exit", "break", "continue", "shift", "set", "trap", "eval", "exec",
+                        "echo", "printf", "read", "cd", "test")
+                .literals("true", "false")
+                .build();
+        register(shell, "shell", "sh", "bash", "zsh", "ksh");
+    }
+
+    private final HtmlFragmentCache cache;
+
+    public SyntaxHighlighter(HtmlFragmentCache cache) {
+        this.cache = cache;
+    }
+
+    private static void register(LanguageGrammar grammar, String... aliases) {
+        for (String alias : aliases) {
+            GRAMMARS.put(alias, grammar);
+        }
+    }
+
+    public static LanguageGrammar getGrammar(String language) {
+        return language == null ? null : GRAMMARS.get(language.toLowerCase(Locale.ROOT));
+    }
+
+    public static boolean isSupported(String language) {
+        return getGrammar(language) != null;
+    }
+
+    /**
+     * Returns the escaped code with every token wrapped in a {@code <span>}, or {@code null} if the language is unknown.
+     */
+    public String highlight(String language, String code) {
+        LanguageGrammar grammar = getGrammar(language);
+        if (grammar == null) {
+            return null;
+        }
+        HtmlFragmentCache.Key key = HtmlFragmentCache.key("highlight:" + grammar.getName(), code, 0, code.length());
+        return cache.get(key, () -> {
+            try (PerformanceMetrics.Sample sample = PerformanceMetrics.start(PerformanceMetrics.Stage.HIGHLIGHT)) {
+                return highlight(grammar, code);
+            }
+        });
+    }
+
+    public HtmlFragmentCache.Stats getCacheStats() {
+        return cache.getStats();
+    }
+
+    static String highlight(LanguageGrammar grammar, String code) {
+        StringBuilder html = new StringBuilder(code.length() + code.length() / 2);
+        int[] position = {0};
+        grammar.tokenize(code, (type, start, end) -> {
+            escape(html, code, position[0], start);
+            html.append("<span class=\"").append(type.getCssClass()).append("\">");
+            escape(html, code, start, end);
+            html.append("</span>");
+            position[0] = end;
+        });
+        escape(html, code, position[0], code.length());
+        return html.toString();
+    }
+
+    private static void escape(StringBuilder html, String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> html.append("&amp;");
+                case '<' -> html.append("&lt;");
+                case '>' -> html.append("&gt;");
+                case '"' -> html.append("&quot;");
+                default -> html.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 17.10.2026 23:15
+ */
+
+import javax.swing.text.html.StyleSheet;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The themes of the preview and the export. Every theme is one set of colors, from which the CSS of
+ * both is generated, and the CSS of a theme and font size is built once. The preview does not put the
+ * CSS into its document but links a precompiled {@link StyleSheet}, so switching the theme or the font
+ * size only swaps that style sheet, see {@link PreviewPatcher#setStyleSheet(StyleSheet)}.
+ * <p>
+ * Besides {@code light} and {@code dark}, {@code theme.custom} lists the names of user themes, each
+ * defined under {@code themes.<name>} with a {@code base} theme and the colors that differ from it.
+ */
+@SuppressWarnings("unused")
+public final class ThemeEngine {
+
+    public static final String LIGHT = "light";
+    public static final String DARK = "dark";
+
+    /**
+     * The colors of a theme, as CSS hex colors.
+     */
+    public record Theme(String name, boolean dark, String background, String foreground, String link,
+                        String codeBackground, String border, String fontFamily, Map<String, String> tokenColors) {
+
+        public Color getBackgroundColor() {
+            return Color.decode(background);
+        }
+
+        public Color getForegroundColor() {
+            return Color.decode(foreground);
+        }
+    }
+
+    private static final String[] COLOR_KEYS = {"background", "foreground", "link", "codeBackground", "border"};
+
+    private final Map<String, Theme> themes;
+    private final Map<RenderOptions, String> css = new ConcurrentHashMap<>();
+    private final Map<RenderOptions, StyleSheet> styleSheets = new ConcurrentHashMap<>();
+
+    public ThemeEngine(List<Theme> themes) {
+        Map<String, Theme> byName = new LinkedHashMap<>();
+        for (Theme theme : themes) {
+            byName.put(theme.name(), theme);
+        }
+        this.themes = Collections.unmodifiableMap(byName);
+    }
+
+    /**
+     * Only the built-in themes.
+     */
+    public static ThemeEngine builtIn() {
+        return new ThemeEngine(List.of(light(), dark()));
+    }
+
+    /**
+     * The built-in themes and the user themes listed in {@code theme.custom}.
+     */
+    public static ThemeEngine fromConfig() {
+        List<Theme> themes = new ArrayList<>(List.of(light(), dark()));
+        for (String name : Main.config.getString("theme.custom", "").split(",")) {
+            name = name.trim();
+            if (name.isEmpty() || name.equals(LIGHT) || name.equals(DARK)) {
+                continue;
+            }
+            themes.add(loadTheme(name, DARK.equals(Main.config.getString("themes." + name + ".base", LIGHT)) ? dark() : light()));
+        }
+        return new ThemeEngine(themes);
+    }
+
+    static Theme light() {
+        Map<String, String> tokens = new LinkedHashMap<>();
+        tokens.put("keyword", "#0000ff");
+        tokens.put("string", "#a31515");
+        tokens.put("comment", "#008000");
+        tokens.put("number", "#098658");
+        tokens.put("literal", "#0000ff");
+        tokens.put("type", "#267f99");
+        tokens.put("property", "#001080");
+        tokens.put("variable", "#795e26");
+        return new Theme(LIGHT, false, "#ffffff", "#000000", "#0066cc", "#f5f5f5", "#dddddd", "Arial", tokens);
+    }
+
+    static Theme dark() {
+        Map<String, String> tokens = new LinkedHashMap<>();
+        tokens.put("keyword", "#569cd6");
+        tokens.put("string", "#ce9178");
+        tokens.put("comment", "#6a9955");
+        tokens.put("number", "#b5cea8");
+        tokens.put("literal", "#569cd6");
+        tokens.put("type", "#4ec9b0");
+        tokens.put("property", "#9cdcfe");
+        tokens.put("variable", "#d7ba7d");
+        return new Theme(DARK, true, "#1e1e1e", "#dddddd", "#569cd6", "#2d2d2d", "#404040", "Arial", tokens);
+    }
+
+    /**
+     * Reads {@code themes.<name>}, every color that is missing or invalid is taken from {@code base}.
+     */
+    private static Theme loadTheme(String name, Theme base) {
+        String prefix = "themes." + name + ".";
+        String[] colors = {base.background(), base.foreground(), base.link(), base.codeBackground(), base.border()};
+        for (int i = 0; i < COLOR_KEYS.length; i++) {
+            colors[i] = color(name, prefix + COLOR_KEYS[i], colors[i]);
+        }
+        Map<String, String> tokens = new LinkedHashMap<>();
+        for (Map.Entry<String, String> token : base.tokenColors().entrySet()) {
+            tokens.put(token.getKey(), color(name, prefix + "tokens." + token.getKey(), token.getValue()));
+        }
+        String fontFamily = Main.config.getString(prefix + "fontFamily", base.fontFamily());
+        return new Theme(name, base.dark(), colors[0], colors[1], colors[2], colors[3], colors[4],
+                fontFamily.replaceAll("[;{}<>]", ""), tokens);
+    }
+
+    private static String color(String theme, String key, String fallback) {
+        String value = Main.config.getString(key, fallback).trim();
+        try {
+            Color.decode(value);
+            return value;
+        } catch (NumberFormatException ex) {
+            System.err.println("Invalid color " + value + " for " + key + " of theme " + theme + ", using " + fallback);
+            return fallback;
+        }
+    }
+
+    public List<String> getThemeNames() {
+        return List.copyOf(themes.keySet());
+    }
+
+    public boolean hasTheme(String name) {
+        return themes.containsKey(name);
+    }
+
+    /**
+     * Returns the named theme, or the light theme if there is none with that name.
+     */
+    public Theme getTheme(String name) {
+        return themes.getOrDefault(name, themes.get(LIGHT));
+    }
+
+    /**
+     * The CSS of the theme and font size, shared by the preview and the export.
+     */
+    public String css(RenderOptions options) {
+        return css.computeIfAbsent(options, key -> buildCss(getTheme(key.theme()), key.fontSize()));
+    }
+
+    /**
+     * The compiled {@link #css(RenderOptions)} for the preview. The same instance is returned for the
+     * same options, so it can be compared by identity.
+     */
+    public StyleSheet styleSheet(RenderOptions options) {
+        return styleSheets.computeIfAbsent(options, key -> {
+            StyleSheet styleSheet = new StyleSheet();
+            styleSheet.addRule(css(key));
+            return styleSheet;
+        });
+    }
+
+    /**
+     * Compiles the style sheets of all themes for the given font size, so the first switch does not
+     * have to wait for them.
+     */
+    public void precompile(int fontSize) {
+        for (String name : themes.keySet()) {
+            styleSheet(new RenderOptions(name, fontSize));
+        }
+    }
+
+    private static String buildCss(Theme theme, int fontSize) {
+        StringBuilder css = new StringBuilder()
+                .append("body { background-color: ").append(theme.background()).append("; color: ").append(theme.foreground())
+                .append("; font-family: ").append(theme.fontFamily()).append("; font-size: ").append(fontSize).append("px; }")
+                .append("a { color: ").append(theme.link()).append("; }")
+                .append("pre { font-family: monospace; background-color: ").append(theme.codeBackground())
+                .append("; padding: 6px; border: 1px solid ").append(theme.border()).append("; border-radius: 4px; }")
+                .append("code { font-family: monospace; background-color: ").append(theme.codeBackground())
+                .append("; padding: 2px 4px; border-radius: 3px; }")
+                .append("table { border-collapse: collapse; margin: 1em 0; }")
+                .append("th, td { border: 1px solid ").append(theme.border()).append("; padding: 6px; }")
+                .append("th { background-color: ").append(theme.codeBackground()).append("; }");
+        for (Map.Entry<String, String> token : theme.tokenColors().entrySet()) {
+            css.append("span.").append(token.getKey()).append(" { color: ").append(token.getValue()).append("; }");
+        }
+        return css.toString();
+    }
+}
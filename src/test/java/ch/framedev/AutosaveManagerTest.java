@@ -0,0 +1,132 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 18.10.2026 01:30
+ */
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Edits recorded by the autosave are recovered from its journal as the text of the document.
+ */
+class AutosaveManagerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversUntitledDocumentOpenedWithText() throws Exception {
+        Path journals = directory.resolve("journals");
+        Document document = new PlainDocument();
+        AutosaveManager autosave = new AutosaveManager(document, journals, 0, 0, Throwable::printStackTrace);
+        SwingUtilities.invokeAndWait(() -> {
+            // Like the welcome tab and documents loaded from the database
+            insert(document, 0, "# Welcome\n\nStart typing.\n");
+            autosave.open(null);
+            insert(document, 11, "Some notes. ");
+            remove(document, 0, 2);
+            insert(document, document.getLength(), "The end.\n");
+        });
+        String expected = document.getText(0, document.getLength());
+        // An untitled document cannot be saved, its journal is kept
+        assertTrue(autosave.close(false, 5000));
+
+        List<AutosaveManager.Recovery> recoveries = AutosaveManager.findRecoveries(journals, Assertions::fail);
+        assertEquals(1, recoveries.size());
+        assertNull(recoveries.get(0).file());
+        assertEquals(expected, AutosaveManager.recover(recoveries.get(0)));
+    }
+
+    @Test
+    void untitledDocumentWithoutEditsLeavesNothingToRecover() throws Exception {
+        Path journals = directory.resolve("journals");
+        Document document = new PlainDocument();
+        AutosaveManager autosave = new AutosaveManager(document, journals, 0, 0, Throwable::printStackTrace);
+        SwingUtilities.invokeAndWait(() -> {
+            insert(document, 0, "# Welcome\n");
+            autosave.open(null);
+        });
+        assertTrue(autosave.close(false, 5000));
+        assertTrue(AutosaveManager.findRecoveries(journals, Assertions::fail).isEmpty());
+    }
+
+    @Test
+    void reportsUnreadableJournal() throws Exception {
+        Path journals = Files.createDirectories(directory.resolve("journals"));
+        Path broken = Files.writeString(journals.resolve("broken.journal"), "not a journal");
+        List<String> problems = new ArrayList<>();
+        assertTrue(AutosaveManager.findRecoveries(journals, problems::add).isEmpty());
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).contains(broken.toString()), problems.get(0));
+    }
+
+    @Test
+    void replaysEditsOntoTheSavedFile() throws Exception {
+        Path file = directory.resolve("notes.md");
+        Files.writeString(file, "# Notes\n\nFirst line.\n");
+        AutosaveJournal.Header header = new AutosaveJournal.Header(file.toAbsolutePath().toString(), Files.size(file),
+                Files.getLastModifiedTime(file).toMillis());
+        Path path = directory.resolve("notes.journal");
+        try (AutosaveJournal journal = AutosaveJournal.create(path, header)) {
+            journal.append(List.of(new AutosaveJournal.Edit(1, 20, 0, " Second line."),
+                    new AutosaveJournal.Edit(2, 2, 5, null)));
+            journal.append(List.of(new AutosaveJournal.Edit(3, 2, 0, "To do")));
+        }
+        assertEquals("# To do\n\nFirst line. Second line.\n", AutosaveJournal.replay(AutosaveJournal.read(path)));
+    }
+
+    @Test
+    void savesFileAndDropsJournalOnClose() throws Exception {
+        Path journals = directory.resolve("journals");
+        Path file = directory.resolve("notes.md");
+        Files.writeString(file, "# Notes\n");
+        Document document = new PlainDocument();
+        AutosaveManager autosave = new AutosaveManager(document, journals, 0, 0, Throwable::printStackTrace);
+        SwingUtilities.invokeAndWait(() -> {
+            insert(document, 0, "# Notes\n");
+            autosave.open(file);
+            insert(document, 8, "\nMore.\n");
+        });
+        assertTrue(autosave.close(false, 5000));
+        assertEquals("# Notes\n\nMore.\n", Files.readString(file));
+        assertTrue(AutosaveManager.findRecoveries(journals, Assertions::fail).isEmpty());
+    }
+
+    private static void insert(Document document, int offset, String text) {
+        try {
+            document.insertString(offset, text, null);
+        } catch (BadLocationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void remove(Document document, int offset, int length) {
+        try {
+            document.remove(offset, length);
+        } catch (BadLocationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
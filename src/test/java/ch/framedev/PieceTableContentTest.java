@@ -0,0 +1,223 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 18.10.2026 00:50
+ */
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.GapContent;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.UndoableEdit;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the same random inserts, removes, undos and redos on a {@link PieceTableContent} and on Swing's
+ * {@link GapContent} and checks that the text, the snapshots and every position stay the same.
+ */
+class PieceTableContentTest {
+
+    private static final int RUNS = 300;
+    private static final int STEPS = 400;
+
+    /**
+     * An edit made on both contents, undone and redone together.
+     */
+    private record EditPair(UndoableEdit pieceTable, UndoableEdit gap) {
+    }
+
+    private record PositionPair(Position pieceTable, Position gap) {
+    }
+
+    @Test
+    void randomEditsMatchGapContent() throws Exception {
+        for (long seed = 0; seed < RUNS; seed++) {
+            run(seed);
+        }
+    }
+
+    @Test
+    void positionsAtTheStartStayThere() throws Exception {
+        PieceTableContent content = new PieceTableContent();
+        content.insertString(0, "abcdef");
+        Position start = content.createPosition(0);
+        Position middle = content.createPosition(3);
+        content.remove(0, 4);
+        assertEquals(0, start.getOffset());
+        assertEquals(0, middle.getOffset());
+        content.insertString(0, "xy");
+        assertEquals(0, start.getOffset());
+        assertEquals("xyef\n", content.getString(0, content.length()));
+    }
+
+    @Test
+    void snapshotKeepsItsRevision() throws Exception {
+        PieceTableContent content = new PieceTableContent();
+        content.insertString(0, "hello world");
+        PieceTableContent.Snapshot snapshot = content.snapshot(0, 11);
+        content.remove(0, 6);
+        content.insertString(0, "goodbye ");
+        assertEquals("hello world", snapshot.toString());
+        assertEquals("world", snapshot.subSequence(6, 11).toString());
+        assertEquals("goodbye world\n", content.getString(0, content.length()));
+    }
+
+    private static void run(long seed) throws BadLocationException, IOException {
+        Random random = new Random(seed);
+        PieceTableContent pieceTable = new PieceTableContent();
+        GapContent gap = new GapContent();
+        Deque<EditPair> undoable = new ArrayDeque<>();
+        Deque<EditPair> redoable = new ArrayDeque<>();
+        List<PositionPair> positions = new ArrayList<>();
+        List<WeakReference<Position>> dropped = new ArrayList<>();
+        for (int step = 0; step < STEPS; step++) {
+            String where = "seed " + seed + ", step " + step;
+            int length = gap.length();
+            int operation = random.nextInt(100);
+            if (operation < 35) {
+                int offset = random.nextInt(length);
+                String text = randomText(random);
+                push(undoable, redoable, pieceTable.insertString(offset, text), gap.insertString(offset, text));
+            } else if (operation < 60 && length > 1) {
+                int offset = random.nextInt(length - 1);
+                int count = 1 + random.nextInt(Math.min(length - 1 - offset, random.nextBoolean() ? 8 : 4096));
+                push(undoable, redoable, pieceTable.remove(offset, count), gap.remove(offset, count));
+            } else if (operation < 72 && !undoable.isEmpty()) {
+                EditPair edit = undoable.pop();
+                edit.pieceTable().undo();
+                edit.gap().undo();
+                redoable.push(edit);
+            } else if (operation < 80 && !redoable.isEmpty()) {
+                EditPair edit = redoable.pop();
+                edit.pieceTable().redo();
+                edit.gap().redo();
+                undoable.push(edit);
+            } else if (operation < 95) {
+                // The start and the end are where positions go wrong
+                int offset = switch (random.nextInt(4)) {
+                    case 0 -> 0;
+                    case 1 -> length - 1;
+                    default -> random.nextInt(length);
+                };
+                if (!isTaken(offset, positions, dropped)) {
+                    positions.add(new PositionPair(pieceTable.createPosition(offset), gap.createPosition(offset)));
+                }
+            } else if (!positions.isEmpty()) {
+                // Lets the marks of dropped positions be collected and purged
+                PositionPair position = positions.remove(random.nextInt(positions.size()));
+                dropped.add(new WeakReference<>(position.pieceTable()));
+                dropped.add(new WeakReference<>(position.gap()));
+            }
+            check(where, random, pieceTable, gap, positions);
+        }
+    }
+
+    /**
+     * Both contents hand out a live position at the same place again instead of a new one. After a remove
+     * collapsed several positions into one place, which of them {@link GapContent} picks depends on its
+     * binary search, and they differ once undo puts them back. New positions only go where none is yet.
+     */
+    private static boolean isTaken(int offset, List<PositionPair> positions, List<WeakReference<Position>> dropped) {
+        for (PositionPair position : positions) {
+            if (position.pieceTable().getOffset() == offset || position.gap().getOffset() == offset) {
+                return true;
+            }
+        }
+        dropped.removeIf(reference -> reference.get() == null);
+        for (WeakReference<Position> reference : dropped) {
+            Position position = reference.get();
+            if (position != null && position.getOffset() == offset) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void push(Deque<EditPair> undoable, Deque<EditPair> redoable, UndoableEdit pieceTable,
+                             UndoableEdit gap) {
+        undoable.push(new EditPair(pieceTable, gap));
+        redoable.clear();
+    }
+
+    private static String randomText(Random random) {
+        int kind = random.nextInt(40);
+        int length;
+        if (kind == 0) {
+            // Long enough for a buffer of its own
+            length = 16 * 1024 + random.nextInt(8 * 1024);
+        } else if (kind < 12) {
+            length = 1 + random.nextInt(500);
+        } else {
+            length = 1 + random.nextInt(4);
+        }
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(random.nextInt(20) == 0 ? '\n' : (char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    private static void check(String where, Random random, PieceTableContent pieceTable, GapContent gap,
+                              List<PositionPair> positions) throws BadLocationException, IOException {
+        int length = gap.length();
+        assertEquals(length, pieceTable.length(), where);
+        String expected = gap.getString(0, length);
+        assertEquals(expected, pieceTable.getString(0, length), where);
+
+        int start = random.nextInt(length);
+        int count = random.nextInt(length - start + 1);
+        assertEquals(expected.substring(start, start + count), chars(pieceTable, start, count, false), where);
+        assertEquals(expected.substring(start, start + count), chars(pieceTable, start, count, true), where);
+
+        PieceTableContent.Snapshot snapshot = pieceTable.snapshot(start, count);
+        assertEquals(expected.substring(start, start + count), snapshot.toString(), where);
+        if (count > 0) {
+            int index = random.nextInt(count);
+            assertEquals(expected.charAt(start + index), snapshot.charAt(index), where);
+            StringWriter written = new StringWriter();
+            snapshot.subSequence(index, count).writeTo(written);
+            assertEquals(expected.substring(start + index, start + count), written.toString(), where);
+        }
+
+        for (int i = 0; i < positions.size(); i++) {
+            PositionPair position = positions.get(i);
+            assertEquals(position.gap().getOffset(), position.pieceTable().getOffset(), where + ", position " + i);
+        }
+    }
+
+    /**
+     * Reads through {@link AbstractDocument.Content#getChars}, piece by piece with a partial return.
+     */
+    private static String chars(AbstractDocument.Content content, int start, int count, boolean partial)
+            throws BadLocationException {
+        Segment segment = new Segment();
+        segment.setPartialReturn(partial);
+        StringBuilder text = new StringBuilder(count);
+        int offset = start;
+        while (offset < start + count) {
+            content.getChars(offset, start + count - offset, segment);
+            text.append(segment.array, segment.offset, segment.count);
+            offset += segment.count;
+        }
+        return text.toString();
+    }
+}
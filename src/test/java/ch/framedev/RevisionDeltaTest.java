@@ -0,0 +1,160 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 18.10.2026 01:20
+ */
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deltas rebuild the text they were made for, on their own and as revision chains in the SQLite store.
+ */
+class RevisionDeltaTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsEdgeCases() throws IOException {
+        String document = "# Title\n\nSome text that is long enough to be copied.\nAnother line of the document.\n";
+        assertRoundTrip("", "");
+        assertRoundTrip("", document);
+        assertRoundTrip(document, "");
+        assertRoundTrip(document, document);
+        assertRoundTrip(document, document + "A line at the end without a newline");
+        assertRoundTrip(document, "A new first line\n" + document);
+        assertRoundTrip(document.replace("\n", "\r\n"), document);
+        assertRoundTrip(document, document.replace("text", "Text 😀 with émojis"));
+        assertRoundTrip("\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n", "\n\n\n\nx\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n");
+    }
+
+    @Test
+    void roundTripsRandomEdits() throws IOException {
+        for (long seed = 0; seed < 200; seed++) {
+            Random random = new Random(seed);
+            List<String> lines = randomLines(random, 1 + random.nextInt(300));
+            String base = String.join("", lines);
+            for (int edit = random.nextInt(20); edit >= 0; edit--) {
+                edit(random, lines);
+            }
+            String target = String.join("", lines);
+            assertEquals(target, RevisionDelta.apply(base, RevisionDelta.encode(base, target)), "seed " + seed);
+        }
+    }
+
+    @Test
+    void smallEditGivesSmallDelta() {
+        Random random = new Random(1);
+        List<String> lines = randomLines(random, 1000);
+        String base = String.join("", lines);
+        lines.set(500, "A changed line\n");
+        lines.add(100, lines.remove(900));
+        String target = String.join("", lines);
+        int delta = RevisionDelta.encode(base, target).length;
+        assertTrue(delta * 20 < RevisionDelta.snapshot(target).length, "delta of " + delta + " bytes");
+    }
+
+    @Test
+    void rejectsDeltaOfAnotherText() {
+        byte[] delta = RevisionDelta.encode("the old text\n", "the new text\n");
+        assertThrows(IOException.class, () -> RevisionDelta.apply("some other text\n", delta));
+    }
+
+    @Test
+    void storeRebuildsRevisionsAcrossSnapshots() throws SQLException {
+        Path file = directory.resolve("revisions.db");
+        Random random = new Random(7);
+        List<String> lines = randomLines(random, 300);
+        List<String> saved = new ArrayList<>();
+        try (SQLiteManager store = new SQLiteManager(file, 1, 5000, 3)) {
+            for (int revision = 1; revision <= 8; revision++) {
+                edit(random, lines);
+                String content = String.join("", lines);
+                assertEquals(revision, store.save("notes.md", content));
+                saved.add(content);
+            }
+            // A new snapshot after every three revisions, the others are deltas
+            assertEquals(List.of(true, false, false, true, false, false, true, false),
+                    store.revisions("notes.md").stream().map(IDatabase.Revision::snapshot).toList());
+        }
+
+        // A new store has nothing cached, so every revision is rebuilt from its snapshot and deltas
+        try (SQLiteManager store = new SQLiteManager(file, 1, 5000, 3)) {
+            for (int revision = 8; revision >= 1; revision--) {
+                assertEquals(saved.get(revision - 1), store.loadRevision("notes.md", revision).orElseThrow().content(),
+                        "revision " + revision);
+            }
+            assertEquals(saved.get(7), store.load("notes.md").orElseThrow().content());
+        }
+    }
+
+    private static void assertRoundTrip(String base, String target) throws IOException {
+        assertEquals(target, RevisionDelta.apply(base, RevisionDelta.encode(base, target)));
+    }
+
+    private static List<String> randomLines(Random random, int count) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(randomLine(random));
+        }
+        return lines;
+    }
+
+    private static String randomLine(Random random) {
+        if (random.nextInt(5) == 0) {
+            return "\n";
+        }
+        StringBuilder line = new StringBuilder();
+        for (int words = 1 + random.nextInt(12); words > 0; words--) {
+            for (int letters = 1 + random.nextInt(8); letters > 0; letters--) {
+                line.append((char) ('a' + random.nextInt(26)));
+            }
+            line.append(' ');
+        }
+        return line.append('\n').toString();
+    }
+
+    /**
+     * Changes, inserts, deletes or moves a line.
+     */
+    private static void edit(Random random, List<String> lines) {
+        int line = random.nextInt(lines.size() + 1);
+        switch (random.nextInt(4)) {
+            case 0 -> lines.add(line, randomLine(random));
+            case 1 -> {
+                if (line < lines.size()) {
+                    lines.set(line, randomLine(random));
+                }
+            }
+            case 2 -> {
+                if (line < lines.size() && lines.size() > 1) {
+                    lines.remove(line);
+                }
+            }
+            default -> {
+                if (line < lines.size()) {
+                    lines.add(random.nextInt(lines.size()), lines.remove(line));
+                }
+            }
+        }
+    }
+}
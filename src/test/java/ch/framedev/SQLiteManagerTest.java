@@ -0,0 +1,132 @@
+package ch.framedev;
+
+
+
+/*
+ * ch.framedev
+ * =============================================
+ * This File was Created by FrameDev
+ * Please do not change anything without my consent!
+ * =============================================
+ * This Class was created at 18.10.2026 01:10
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The document store on a SQLite file in a temporary directory.
+ */
+class SQLiteManagerTest {
+
+    @TempDir
+    Path directory;
+
+    private SQLiteManager store;
+
+    @BeforeEach
+    void open() {
+        store = new SQLiteManager(directory.resolve("documents.db"), 2, 5000, 20);
+    }
+
+    @AfterEach
+    void close() {
+        store.close();
+    }
+
+    @Test
+    void savesLoadsListsAndDeletes() throws SQLException {
+        assertTrue(store.load("notes.md").isEmpty());
+        assertEquals(1, store.save("notes.md", "# Notes\n"));
+        assertEquals(1, store.save("todo.md", "- [ ] write tests\n"));
+
+        IDatabase.StoredDocument notes = store.load("notes.md").orElseThrow();
+        assertEquals("notes.md", notes.name());
+        assertEquals(1, notes.revision());
+        assertEquals("# Notes\n", notes.content());
+
+        List<IDatabase.DocumentInfo> documents = store.list();
+        assertEquals(List.of("notes.md", "todo.md"), documents.stream().map(IDatabase.DocumentInfo::name).toList());
+        assertEquals("- [ ] write tests\n".length(), documents.get(1).size());
+
+        assertTrue(store.delete("notes.md"));
+        assertFalse(store.delete("notes.md"));
+        assertTrue(store.load("notes.md").isEmpty());
+        assertTrue(store.revisions("notes.md").isEmpty());
+        assertEquals(List.of("todo.md"), store.list().stream().map(IDatabase.DocumentInfo::name).toList());
+    }
+
+    @Test
+    void numbersRevisionsPerDocument() throws SQLException {
+        assertEquals(1, store.save("a.md", "one"));
+        assertEquals(2, store.save("a.md", "two"));
+        assertEquals(1, store.save("b.md", "other"));
+        assertEquals(3, store.save("a.md", "three"));
+
+        assertEquals(List.of(1, 2, 3), store.revisions("a.md").stream().map(IDatabase.Revision::revision).toList());
+        assertEquals("two", store.loadRevision("a.md", 2).orElseThrow().content());
+        assertEquals("three", store.load("a.md").orElseThrow().content());
+        assertEquals(3, store.list().get(0).revision());
+        assertTrue(store.loadRevision("a.md", 4).isEmpty());
+
+        // A deleted document starts over
+        store.delete("a.md");
+        assertEquals(1, store.save("a.md", "again"));
+    }
+
+    @Test
+    void saveAllRollsBackWhenOneDocumentFails() throws SQLException {
+        store.save("kept.md", "unchanged");
+        // A revision without a document makes the insert of the second document fail on its primary key
+        try (ConnectionPool.Lease lease = store.getPool().borrow()) {
+            PreparedStatement insert = lease.prepare("INSERT INTO md_revisions "
+                    + "(name, revision, modified, size, base, chain_bytes, data) VALUES ('broken.md', 1, 0, 0, 1, 0, ?)");
+            insert.setBytes(1, RevisionDelta.snapshot(""));
+            insert.executeUpdate();
+        }
+
+        Map<String, String> documents = new LinkedHashMap<>();
+        documents.put("kept.md", "changed");
+        documents.put("broken.md", "fails");
+        documents.put("new.md", "never saved");
+        assertThrows(SQLException.class, () -> store.saveAll(documents));
+
+        assertEquals(List.of("kept.md"), store.list().stream().map(IDatabase.DocumentInfo::name).toList());
+        IDatabase.StoredDocument kept = store.load("kept.md").orElseThrow();
+        assertEquals(1, kept.revision());
+        assertEquals("unchanged", kept.content());
+        assertEquals(1, store.revisions("kept.md").size());
+        assertTrue(store.load("new.md").isEmpty());
+
+        // The connection went back to the pool without the failed transaction
+        assertEquals(2, store.save("kept.md", "changed"));
+        assertEquals(1, store.save("new.md", "saved"));
+    }
+
+    @Test
+    void reopenedStoreReadsTheSavedDocuments() throws SQLException {
+        store.saveAll(Map.of("a.md", "first", "b.md", "second"));
+        store.save("a.md", "first, edited");
+        store.close();
+
+        store = new SQLiteManager(directory.resolve("documents.db"), 1, 5000, 20);
+        assertEquals("first, edited", store.load("a.md").orElseThrow().content());
+        assertEquals("first", store.loadRevision("a.md", 1).orElseThrow().content());
+        assertEquals("second", store.load("b.md").orElseThrow().content());
+        assertEquals(3, store.save("a.md", "first, edited twice"));
+    }
+}